@@ -0,0 +1,127 @@
+package deliveryApp.core;
+
+import deliveryApp.menu.MenuItem;
+import deliveryApp.menu.Money;
+import deliveryApp.orders.Order;
+import deliveryApp.users.Customer;
+import deliveryApp.users.Driver;
+import deliveryApp.users.Location;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A surge: a wave of orders lands on a city of free drivers, more orders
+ * than drivers. Compares matching each order as it arrives with holding
+ * them and solving the whole wave at once, on time and on the total
+ * cost of the drivers picked (reported as the totalCost counter, in km
+ * under {@link AssignmentScorer#distanceAndRating}).
+ *
+ * 300 x 240 is solved over every pair; 3000 x 2400 over each order's
+ * nearest and best-rated drivers.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchDispatchBenchmark {
+
+    private static final double CITY_KM = 20;
+
+    private static final AssignmentScorer SCORER =
+            AssignmentScorer.distanceAndRating(Dispatcher.DEFAULT_RATING_WEIGHT_KM);
+
+    @Param({"300", "3000"})
+    public int orders;
+
+    Driver[] drivers;
+    Order[] wave;
+    Dispatcher dispatcher;
+
+    /**
+     * Total cost of the assignments made in the measured wave.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Cost {
+        public double totalCost;
+        public int assigned;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            totalCost = 0;
+            assigned = 0;
+        }
+
+        void add(Order o) {
+            totalCost += SCORER.cost(o, o.getDriver());
+            assigned++;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom rnd = new SplittableRandom(7);
+        drivers = new Driver[orders * 4 / 5];
+        for (int i = 0; i < drivers.length; i++) {
+            drivers[i] = new Driver(BenchFixtures.driverName(i), "pw", "Driver", "555", "d@test.com");
+            drivers[i].addRating(1 + rnd.nextInt(5));
+            // One order each, so both sides serve the same number of orders
+            drivers[i].setCapacity(1);
+        }
+
+        List<MenuItem> items = List.of(new MenuItem(1, "Item", Money.ofCents(500)));
+        wave = new Order[orders];
+        for (int i = 0; i < orders; i++) {
+            Customer c = new Customer(BenchFixtures.customerName(i), "pw", "C", "555", "c@test.com");
+            c.setAddress(randomPoint(rnd));
+            wave[i] = new Order(i, c, items);
+        }
+
+        // Same driver positions for every invocation
+        for (Driver d : drivers) {
+            d.setPosition(randomPoint(rnd));
+        }
+    }
+
+    private static Location randomPoint(SplittableRandom rnd) {
+        return new Location(rnd.nextDouble() * CITY_KM, rnd.nextDouble() * CITY_KM);
+    }
+
+    @Setup(Level.Invocation)
+    public void freshCity() {
+        dispatcher = new Dispatcher();
+        for (Driver d : drivers) {
+            dispatcher.driverFreed(d);
+        }
+    }
+
+    @Benchmark
+    public int greedy(Cost cost) {
+        int n = 0;
+        for (Order o : wave) {
+            if (dispatcher.orderPlaced(o) != null) {
+                cost.add(o);
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int batch(Cost cost) {
+        dispatcher.setBatchMode(true);
+        for (Order o : wave) {
+            dispatcher.orderPlaced(o);
+        }
+        List<Order> assigned = dispatcher.dispatchBatch(SCORER);
+        for (Order o : assigned) {
+            cost.add(o);
+        }
+        return assigned.size();
+    }
+}
@@ -0,0 +1,109 @@
+package deliveryApp.core;
+
+import deliveryApp.menu.MenuItem;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes synthetic persistence files into a temporary directory so
+ * benchmarks can build a DeliverySystem of any size without touching
+ * the real data files in the working directory.
+ */
+final class BenchFixtures {
+
+    private BenchFixtures() {
+    }
+
+    static Path newDataDir() {
+        try {
+            return Files.createTempDirectory("delivery-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String customerName(int i) {
+        return "customer" + i;
+    }
+
+    static String driverName(int i) {
+        return "driver" + i;
+    }
+
+    /**
+     * Writes admins.txt, customers.txt and drivers.txt with the given counts.
+     * Drivers get a short rating history so the heap has something to order by.
+     */
+    static void writeUsers(Path dir, int customers, int drivers) {
+        try (BufferedWriter admins = Files.newBufferedWriter(dir.resolve("admins.txt"));
+             BufferedWriter cust = Files.newBufferedWriter(dir.resolve("customers.txt"));
+             BufferedWriter drv = Files.newBufferedWriter(dir.resolve("drivers.txt"))) {
+
+            admins.write("admin,admin123,Admin User,555-0000,admin@test.com");
+            admins.newLine();
+
+            for (int i = 0; i < customers; i++) {
+                cust.write(customerName(i) + ",pw" + i + ",Customer " + i
+                        + ",555-" + i + ",c" + i + "@test.com");
+                cust.newLine();
+            }
+
+            for (int i = 0; i < drivers; i++) {
+                drv.write(driverName(i) + ",pw" + i + ",Driver " + i
+                        + ",555-" + i + ",d" + i + "@test.com,"
+                        + (1 + i % 5) + ";" + (1 + (i / 5) % 5));
+                drv.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void writeMenu(Path dir, int items) {
+        try (BufferedWriter bw = Files.newBufferedWriter(dir.resolve("menu.txt"))) {
+            for (int i = 0; i < items; i++) {
+                bw.write("Item " + i + "," + (1 + (i % 2000) / 100.0));
+                bw.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The first, middle and last items of a menu, for orders that touch
+     * all of it.
+     */
+    static List<MenuItem> spreadItems(List<MenuItem> menu) {
+        return List.of(menu.get(0), menu.get(menu.size() / 2), menu.get(menu.size() - 1));
+    }
+
+    static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void deleteDir(Path dir) {
+        if (dir == null || !Files.exists(dir)) return;
+
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException ignored) {
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package deliveryApp.core;
+
+import deliveryApp.menu.MenuItem;
+import deliveryApp.orders.Order;
+import deliveryApp.orders.OrderRequest;
+import deliveryApp.users.Customer;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to take in a burst of {@code burst} orders from an aggregator,
+ * one placeOrder call at a time versus a single placeOrders batch.
+ *
+ * Every invocation starts from a fresh system and an empty order log,
+ * so both sides pay for dispatching against the same pool of drivers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkPlacementBenchmark {
+
+    @Param({"10000"})
+    public int burst;
+
+    @Param({"100", "10000"})
+    public int drivers;
+
+    Path dir;
+    DeliverySystem system;
+    List<OrderRequest> requests;
+
+    @Setup(Level.Trial)
+    public void writeFixtures() {
+        dir = BenchFixtures.newDataDir();
+        BenchFixtures.writeUsers(dir, 100, drivers);
+        BenchFixtures.writeMenu(dir, 10);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        BenchFixtures.deleteFile(dir.resolve("orders.txt"));
+        system = new DeliverySystem(dir);
+
+        List<MenuItem> items = List.copyOf(system.getMenu().subList(0, 3));
+        requests = new ArrayList<>(burst);
+        for (int i = 0; i < burst; i++) {
+            Customer c = (Customer) system.findUser(BenchFixtures.customerName(i % 100));
+            requests.add(new OrderRequest(c, items));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        system.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFixtures() {
+        BenchFixtures.deleteDir(dir);
+    }
+
+    @Benchmark
+    public Order perOrder() {
+        Order last = null;
+        for (OrderRequest r : requests) {
+            last = system.placeOrder(r.customer(), r.items());
+        }
+        return last;
+    }
+
+    @Benchmark
+    public List<Order> batch() {
+        return system.placeOrders(requests);
+    }
+}
@@ -0,0 +1,137 @@
+package deliveryApp.core;
+
+import deliveryApp.menu.MenuItem;
+import deliveryApp.orders.Order;
+import deliveryApp.orders.OrderStatus;
+import deliveryApp.users.Customer;
+import deliveryApp.users.Driver;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Multi-threaded stress run against one shared DeliverySystem.
+ *
+ * Customer threads place orders while driver threads work through their
+ * assigned orders and customers rate drivers. When everything has been
+ * delivered the run checks the invariants (unique contiguous IDs, every
+ * order delivered and indexed once, every driver back in the pool exactly
+ * once) and then restarts the system from disk to check the replay.
+ *
+ * Run with:
+ *   mvn -Pbench test-compile exec:exec -Dbench.main=deliveryApp.core.ConcurrencyStress -Djmh.args="16 5000 64"
+ * Arguments: customer threads, orders per thread, drivers. Exits with 1 on failure.
+ */
+public class ConcurrencyStress {
+
+    private static final Set<OrderStatus> OPEN =
+            EnumSet.of(OrderStatus.ACCEPTED, OrderStatus.IN_PROGRESS);
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int drivers = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int total = threads * perThread;
+
+        Path dir = BenchFixtures.newDataDir();
+        BenchFixtures.writeUsers(dir, threads, drivers);
+        BenchFixtures.writeMenu(dir, 10);
+
+        DeliverySystem system = new DeliverySystem(dir);
+        List<MenuItem> items = List.copyOf(system.getMenu().subList(0, 2));
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads + drivers);
+        AtomicBoolean placing = new AtomicBoolean(true);
+        List<Future<?>> customers = new ArrayList<>();
+        List<Future<?>> driverLoops = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (int t = 0; t < threads; t++) {
+            Customer c = (Customer) system.login(BenchFixtures.customerName(t), "pw" + t);
+            customers.add(pool.submit(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                for (int i = 0; i < perThread; i++) {
+                    system.placeOrder(c, items);
+                    if (rnd.nextInt(10) == 0) {
+                        int n = rnd.nextInt(drivers);
+                        Driver d = (Driver) system.login(BenchFixtures.driverName(n), "pw" + n);
+                        system.rateDriver(d, 1 + rnd.nextInt(5));
+                    }
+                }
+            }));
+        }
+
+        for (int i = 0; i < drivers; i++) {
+            Driver d = (Driver) system.login(BenchFixtures.driverName(i), "pw" + i);
+            driverLoops.add(pool.submit(() -> {
+                while (placing.get() || system.countOrders(OrderStatus.DELIVERED) < total) {
+                    List<Order> open = system.getOrdersForDriver(d, OPEN);
+                    if (open.isEmpty()) {
+                        LockSupport.parkNanos(100_000);
+                        continue;
+                    }
+                    for (Order o : open) {
+                        system.updateOrderStatus(o, OrderStatus.IN_PROGRESS);
+                        system.updateOrderStatus(o, OrderStatus.DELIVERED);
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> f : customers) f.get();
+        placing.set(false);
+        for (Future<?> f : driverLoops) f.get(5, TimeUnit.MINUTES);
+        pool.shutdown();
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.printf("%d orders by %d threads and %d drivers in %d ms%n",
+                total, threads, drivers, elapsedMs);
+
+        List<String> failures = new ArrayList<>();
+        check(failures, system.countOrders(null) == total, "order count " + system.countOrders(null));
+        check(failures, system.countOrders(OrderStatus.DELIVERED) == total, "not every order was delivered");
+        for (int id = 1; id <= total; id++) {
+            if (system.getOrder(id) == null) {
+                failures.add("missing order ID " + id);
+                break;
+            }
+        }
+
+        int indexed = 0;
+        for (int i = 0; i < drivers; i++) {
+            Driver d = (Driver) system.login(BenchFixtures.driverName(i), "pw" + i);
+            indexed += system.getOrdersForDriver(d, null).size();
+            check(failures, d.isAvailable(), d.getUserName() + " still busy");
+        }
+        check(failures, indexed == total, "driver index holds " + indexed + " orders");
+        check(failures, system.getPendingOrderCount() == 0, "orders left pending");
+        check(failures, system.getAvailableDriverCount() == drivers,
+                "driver pool holds " + system.getAvailableDriverCount() + " drivers");
+        system.close();
+
+        DeliverySystem restarted = new DeliverySystem(dir);
+        check(failures, restarted.countOrders(OrderStatus.DELIVERED) == total, "replay lost orders");
+        Customer c = (Customer) restarted.login(BenchFixtures.customerName(0), "pw0");
+        Order next = restarted.placeOrder(c, items);
+        check(failures, next.getOrderId() == total + 1, "ID after restart " + next.getOrderId());
+        restarted.close();
+
+        BenchFixtures.deleteDir(dir);
+
+        if (!failures.isEmpty()) {
+            failures.forEach(f -> System.out.println("FAIL: " + f));
+            System.exit(1);
+        }
+        System.out.println("All invariants hold.");
+    }
+
+    private static void check(List<String> failures, boolean ok, String message) {
+        if (!ok) failures.add(message);
+    }
+}
@@ -0,0 +1,112 @@
+package deliveryApp.core;
+
+import deliveryApp.menu.MenuItem;
+import deliveryApp.orders.Order;
+import deliveryApp.orders.OrderStatus;
+import deliveryApp.users.Customer;
+import deliveryApp.users.User;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of one shared DeliverySystem driven by many threads.
+ * Each operation places an order and, if a driver took it, delivers it,
+ * so the driver pool stays stocked for the next order.
+ *
+ * {@link #main} sweeps 1 to 32 threads and prints the scaling table:
+ *   mvn -Pbench test-compile exec:exec -Dbench.main=deliveryApp.core.ConcurrentThroughputBenchmark -Djmh.args=
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentThroughputBenchmark {
+
+    static final int CUSTOMERS = 64;
+    static final int DRIVERS = 1024;
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        Path dir;
+        DeliverySystem system;
+        List<MenuItem> items;
+        final AtomicInteger nextCustomer = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            dir = BenchFixtures.newDataDir();
+            BenchFixtures.writeUsers(dir, CUSTOMERS, DRIVERS);
+            BenchFixtures.writeMenu(dir, 10);
+            system = new DeliverySystem(dir);
+            items = List.copyOf(system.getMenu().subList(0, 3));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            system.close();
+            BenchFixtures.deleteDir(dir);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        Customer customer;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(Shared shared) {
+            int i = shared.nextCustomer.getAndIncrement() % CUSTOMERS;
+            customer = (Customer) shared.system.login(BenchFixtures.customerName(i), "pw" + i);
+        }
+    }
+
+    @Benchmark
+    public Order placeAndDeliver(Shared shared, Session session) {
+        Order o = shared.system.placeOrder(session.customer, shared.items);
+        if (o.getDriver() != null) {
+            shared.system.updateOrderStatus(o, OrderStatus.DELIVERED);
+        }
+        return o;
+    }
+
+    @Benchmark
+    public User login(Shared shared, Session session) {
+        int i = session.next;
+        session.next = (i + 1) % CUSTOMERS;
+        return shared.system.login(BenchFixtures.customerName(i), "pw" + i);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] threadCounts = {1, 2, 4, 8, 16, 32};
+        StringBuilder table = new StringBuilder("\nthreads  placeAndDeliver ops/s  login ops/s\n");
+
+        for (int threads : threadCounts) {
+            Options opts = new OptionsBuilder()
+                    .include(ConcurrentThroughputBenchmark.class.getName())
+                    .threads(threads)
+                    .build();
+            Collection<RunResult> results = new Runner(opts).run();
+
+            double place = 0, login = 0;
+            for (RunResult r : results) {
+                String label = r.getPrimaryResult().getLabel();
+                double score = r.getPrimaryResult().getScore();
+                if (label.equals("placeAndDeliver")) place = score;
+                else if (label.equals("login")) login = score;
+            }
+            table.append(String.format("%7d  %21.0f  %11.0f%n", threads, place, login));
+        }
+
+        System.out.println(table);
+    }
+}
@@ -0,0 +1,103 @@
+package deliveryApp.core;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading large CSV user dumps: 90% customers, 10% drivers. Compares the
+ * old line.split(",") plus trim() parsing with CsvReader, and times the
+ * whole parallel load into a DeliverySystem.
+ *
+ * Each operation reads every row once, so it runs as single shots.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class CsvLoadBenchmark {
+
+    private static final String[] FILES = {"admins.txt", "customers.txt", "drivers.txt"};
+
+    @State(Scope.Benchmark)
+    public static class Rows {
+
+        @Param({"5000000"})
+        public int rows;
+
+        Path dir;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            dir = BenchFixtures.newDataDir();
+            BenchFixtures.writeUsers(dir, rows - rows / 10, rows / 10);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            BenchFixtures.deleteDir(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Loaded {
+
+        @Param({"5000000"})
+        public int rows;
+
+        Path dir;
+        DeliverySystem system;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            dir = BenchFixtures.newDataDir();
+            BenchFixtures.writeUsers(dir, rows - rows / 10, rows / 10);
+            system = new DeliverySystem(dir);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            system.close();
+            BenchFixtures.deleteDir(dir);
+        }
+    }
+
+    @Benchmark
+    public void splitLines(Rows s, Blackhole bh) throws IOException {
+        for (String file : FILES) {
+            try (BufferedReader br = Files.newBufferedReader(s.dir.resolve(file))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    for (String field : line.split(",")) {
+                        bh.consume(field.trim());
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void csvReader(Rows s, Blackhole bh) throws IOException {
+        for (String file : FILES) {
+            try (CsvReader r = CsvReader.open(s.dir.resolve(file))) {
+                while (r.next()) {
+                    for (int i = 0; i < r.fieldCount(); i++) {
+                        bh.consume(r.field(i));
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public DeliverySystem loadUsersFromFiles(Loaded s) {
+        s.system.loadUsersFromFiles();
+        return s.system;
+    }
+}
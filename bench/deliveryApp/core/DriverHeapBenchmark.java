@@ -0,0 +1,80 @@
+package deliveryApp.core;
+
+import deliveryApp.users.Driver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the indexed {@link DriverHeap} with the java.util.PriorityQueue
+ * it replaced, for the two operations dispatch and rating perform:
+ * re-ordering a driver after a rating change, and taking the best driver
+ * then returning it once its delivery is done.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DriverHeapBenchmark {
+
+    @Param({"10000", "100000"})
+    public int drivers;
+
+    Driver[] all;
+    PriorityQueue<Driver> queue;
+    DriverHeap heap;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        all = new Driver[drivers];
+        queue = new PriorityQueue<>((a, b) -> Double.compare(b.getRatingScore(), a.getRatingScore()));
+        heap = new DriverHeap();
+
+        for (int i = 0; i < drivers; i++) {
+            Driver d = new Driver(BenchFixtures.driverName(i), "pw", "Driver", "555", "d@test.com");
+            d.addRating(1 + i % 5);
+            all[i] = d;
+            queue.add(d);
+            heap.add(d);
+        }
+    }
+
+    private Driver nextDriver() {
+        Driver d = all[next];
+        next = (next + 1) % all.length;
+        return d;
+    }
+
+    @Benchmark
+    public void rerateWithPriorityQueue() {
+        Driver d = nextDriver();
+        d.addRating(1 + next % 5);
+        queue.remove(d);
+        queue.add(d);
+    }
+
+    @Benchmark
+    public void rerateWithDriverHeap() {
+        Driver d = nextDriver();
+        d.addRating(1 + next % 5);
+        heap.update(d);
+    }
+
+    @Benchmark
+    public Driver pollAndReturnWithPriorityQueue() {
+        Driver d = queue.poll();
+        queue.add(d);
+        return d;
+    }
+
+    @Benchmark
+    public Driver pollAndReturnWithDriverHeap() {
+        Driver d = heap.poll();
+        heap.add(d);
+        return d;
+    }
+}
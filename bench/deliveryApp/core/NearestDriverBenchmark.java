@@ -0,0 +1,120 @@
+package deliveryApp.core;
+
+import deliveryApp.menu.MenuItem;
+import deliveryApp.menu.Money;
+import deliveryApp.orders.Order;
+import deliveryApp.users.Customer;
+import deliveryApp.users.Driver;
+import deliveryApp.users.Location;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One dispatch cycle on a synthetic 40 x 40 km city: an order comes in,
+ * the dispatcher picks a driver, and the driver delivers it and is free
+ * again at the delivery address. Compares the grid search for the nearest suitable
+ * driver with picking by rating alone (orders without an address) and
+ * with a plain scan over every free driver for the nearest one.
+ *
+ * Half the drivers and addresses sit in a dense centre, the rest are
+ * spread over the whole map.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NearestDriverBenchmark {
+
+    private static final double CITY_KM = 40;
+    private static final int ORDERS = 4096;
+
+    @Param({"100000"})
+    public int drivers;
+
+    Dispatcher dispatcher;
+    Driver[] all;
+    Order[] located;
+    Order[] unlocated;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom rnd = new SplittableRandom(42);
+        dispatcher = new Dispatcher();
+        all = new Driver[drivers];
+
+        for (int i = 0; i < drivers; i++) {
+            Driver d = new Driver(BenchFixtures.driverName(i), "pw", "Driver", "555", "d@test.com");
+            d.addRating(1 + i % 5);
+            d.setPosition(randomPoint(rnd));
+            all[i] = d;
+            dispatcher.driverFreed(d);
+        }
+
+        List<MenuItem> items = List.of(new MenuItem(1, "Item", Money.ofCents(500)));
+        located = new Order[ORDERS];
+        unlocated = new Order[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            Customer c = new Customer(BenchFixtures.customerName(i), "pw", "C", "555", "c@test.com");
+            c.setAddress(randomPoint(rnd));
+            located[i] = new Order(i, c, items);
+
+            Customer nowhere = new Customer(BenchFixtures.customerName(i), "pw", "C", "555", "c@test.com");
+            unlocated[i] = new Order(i, nowhere, items);
+        }
+    }
+
+    private static Location randomPoint(SplittableRandom rnd) {
+        if (rnd.nextBoolean()) {
+            // Dense centre, about 8 km across
+            return new Location(CITY_KM / 2 + rnd.nextGaussian() * 2, CITY_KM / 2 + rnd.nextGaussian() * 2);
+        }
+        return new Location(rnd.nextDouble() * CITY_KM, rnd.nextDouble() * CITY_KM);
+    }
+
+    private Order nextOrder(Order[] orders) {
+        Order o = orders[next];
+        next = (next + 1) % ORDERS;
+        return o;
+    }
+
+    @Benchmark
+    public Driver nearestDriver() {
+        Order o = nextOrder(located);
+        Driver d = dispatcher.orderPlaced(o);
+        dispatcher.driverMoved(d, o.getCustomer().getAddress());
+        dispatcher.orderDelivered(o);
+        return d;
+    }
+
+    @Benchmark
+    public Driver bestRatedDriver() {
+        Order o = nextOrder(unlocated);
+        Driver d = dispatcher.orderPlaced(o);
+        dispatcher.orderDelivered(o);
+        return d;
+    }
+
+    /**
+     * What finding the nearest free driver costs without an index.
+     */
+    @Benchmark
+    public Driver linearScan() {
+        Location to = nextOrder(located).getCustomer().getAddress();
+        Driver best = null;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (Driver d : all) {
+            double distance = to.distanceTo(d.getPosition());
+            if (distance < bestDistance) {
+                best = d;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+}
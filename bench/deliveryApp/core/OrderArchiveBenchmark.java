@@ -0,0 +1,103 @@
+package deliveryApp.core;
+
+import deliveryApp.menu.MenuItem;
+import deliveryApp.menu.Money;
+import deliveryApp.orders.Order;
+import deliveryApp.orders.OrderStatus;
+import deliveryApp.users.Customer;
+import deliveryApp.users.Driver;
+import deliveryApp.users.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading delivered orders back from the archive: a lookup that hits the
+ * cache, one that has to go to the segment file, and a page of 20
+ * orders from a random starting ID, as the admin listing reads them.
+ * The orders are spread over segments of 50,000, as hourly archiving
+ * would leave them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderArchiveBenchmark {
+
+    private static final int SEGMENT_ORDERS = 50_000;
+    private static final int HOT_ORDERS = 1_000;
+
+    @Param({"1000000"})
+    public int orders;
+
+    Path dir;
+    OrderArchive archive;
+    SplittableRandom rnd = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dir = BenchFixtures.newDataDir();
+
+        Map<String, User> users = new HashMap<>();
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Customer c = new Customer(BenchFixtures.customerName(i), "pw", "C", "555", "c@test.com");
+            users.put(c.getUserName(), c);
+            customers.add(c);
+        }
+        Driver d = new Driver(BenchFixtures.driverName(0), "pw", "D", "555", "d@test.com");
+        users.put(d.getUserName(), d);
+
+        archive = new OrderArchive(dir.resolve("archive"), users::get, HOT_ORDERS);
+        List<MenuItem> items = List.of(new MenuItem(1, "Hamburger", Money.ofCents(599)),
+                new MenuItem(2, "Fries", Money.ofCents(300)));
+
+        List<Order> segment = new ArrayList<>(SEGMENT_ORDERS);
+        for (int id = 1; id <= orders; id++) {
+            segment.add(new Order(id, customers.get(id % customers.size()), d, OrderStatus.DELIVERED, items));
+            if (segment.size() == SEGMENT_ORDERS || id == orders) {
+                archive.append(segment);
+                segment.clear();
+            }
+        }
+
+        // Warm the cache with a fixed set of orders
+        for (int id = 1; id <= HOT_ORDERS; id++) {
+            archive.get(id);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchFixtures.deleteDir(dir);
+    }
+
+    @Benchmark
+    public Order cachedGet() {
+        return archive.get(1 + rnd.nextInt(HOT_ORDERS));
+    }
+
+    @Benchmark
+    public Order uncachedGet() {
+        return archive.get(HOT_ORDERS + 1 + rnd.nextInt(orders - HOT_ORDERS));
+    }
+
+    @Benchmark
+    public int pageOf20() {
+        Iterator<Order> it = archive.merge(List.<Order>of().iterator(), 1 + rnd.nextInt(orders));
+        int sum = 0;
+        for (int i = 0; i < 20 && it.hasNext(); i++) {
+            sum += it.next().getOrderId();
+        }
+        return sum;
+    }
+}
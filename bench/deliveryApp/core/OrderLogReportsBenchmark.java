@@ -0,0 +1,102 @@
+package deliveryApp.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full scan of a big order log by the report engine, on pools of
+ * different sizes, to see how the scan scales with cores. Each order
+ * leaves four lines (placed, assigned, in progress, delivered), spread
+ * over a year. The log is generated once into the temp directory and
+ * kept for later runs, since writing it takes longer than scanning it;
+ * it is read from the page cache after the first iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class OrderLogReportsBenchmark {
+
+    private static final long START_MILLIS = 1_700_000_000_000L;
+    private static final long YEAR_MILLIS = TimeUnit.DAYS.toMillis(365);
+    private static final String[] ITEMS = {"Hamburger", "Fries", "Drink", "Salad", "\"Fish, chips\""};
+    private static final String[] PRICES = {"5.99", "3.00", "1.50", "7.25", "9.99"};
+
+    @Param({"50000000"})
+    public int records;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    ForkJoinPool pool;
+    OrderLogReports reports;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Path log = Paths.get(System.getProperty("java.io.tmpdir"), "bench-orders-" + records + ".txt");
+        if (!Files.exists(log)) writeLog(log, records);
+
+        long size;
+        try {
+            size = Files.size(log);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pool = new ForkJoinPool(parallelism);
+        reports = new OrderLogReports(log, () -> size, List::of, pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private static void writeLog(Path log, int records) {
+        Path tmp = log.resolveSibling(log.getFileName() + ".tmp");
+        SplittableRandom rnd = new SplittableRandom(42);
+        try (BufferedWriter w = Files.newBufferedWriter(tmp)) {
+            for (int id = 1; id <= records / 4; id++) {
+                long placed = START_MILLIS + rnd.nextLong(YEAR_MILLIS);
+                String driver = BenchFixtures.driverName(rnd.nextInt(500));
+
+                w.write("PLACED," + id + "," + placed + "," + BenchFixtures.customerName(rnd.nextInt(100_000)));
+                for (int n = 1 + rnd.nextInt(3); n > 0; n--) {
+                    int item = rnd.nextInt(ITEMS.length);
+                    w.write("," + ITEMS[item] + "," + PRICES[item]);
+                }
+                w.write("\nASSIGNED," + id + "," + (placed + 60_000) + "," + driver);
+                w.write("\nSTATUS," + id + "," + (placed + 600_000) + ",IN_PROGRESS," + driver);
+                w.write("\nSTATUS," + id + "," + (placed + 1_800_000) + ",DELIVERED," + driver + "\n");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(tmp, log);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Benchmark
+    public Object topItems() {
+        return reports.topItems(START_MILLIS, START_MILLIS + YEAR_MILLIS / 2, 10);
+    }
+
+    @Benchmark
+    public Object driverLeaderboard() {
+        return reports.driverLeaderboard(START_MILLIS, START_MILLIS + YEAR_MILLIS / 2, 10);
+    }
+}
@@ -0,0 +1,165 @@
+package deliveryApp.core;
+
+import deliveryApp.menu.MenuItem;
+import deliveryApp.orders.Order;
+import deliveryApp.orders.OrderStatus;
+import deliveryApp.users.Customer;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the order hot paths: placing an order, delivering an
+ * order while others wait, and updating an order's status. Status
+ * updates must move an order on, so every other update delivers an
+ * order and places its replacement.
+ *
+ * The backlog state models a driver shortage: every driver is already
+ * busy and {@code pendingOrders} orders are waiting in the queue.
+ *
+ * Orders take the first, middle and last items of a menu of {@code menuSize}.
+ *
+ * The million points need the 3 GB fork heap, and their setup (placing up
+ * to two million orders before every iteration) takes far longer than
+ * the measurement; leave them out with -p for a quick run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class OrderPathBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Backlog {
+
+        @Param({"10", "1000", "10000", "1000000"})
+        public int drivers;
+
+        @Param({"10", "1000", "10000", "1000000"})
+        public int pendingOrders;
+
+        @Param({"10", "1000000"})
+        public int menuSize;
+
+        Path dir;
+        DeliverySystem system;
+        Customer customer;
+        List<MenuItem> items;
+
+        // Orders held by drivers, then orders still waiting, both oldest first
+        final ArrayDeque<Order> active = new ArrayDeque<>();
+        final ArrayDeque<Order> waiting = new ArrayDeque<>();
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            dir = BenchFixtures.newDataDir();
+            BenchFixtures.writeUsers(dir, 100, drivers);
+            BenchFixtures.writeMenu(dir, menuSize);
+
+            system = new DeliverySystem(dir);
+            customer = (Customer) system.login(BenchFixtures.customerName(0), "pw0");
+            items = BenchFixtures.spreadItems(system.getMenu());
+
+            // Occupy every driver, then leave the rest of the orders waiting
+            active.clear();
+            waiting.clear();
+            for (int i = 0; i < drivers + pendingOrders; i++) {
+                Order o = system.placeOrder(customer, items);
+                (i < drivers ? active : waiting).offer(o);
+            }
+        }
+
+        /**
+         * Delivers the oldest active order; its driver picks up the oldest waiting one.
+         */
+        void deliverNext() {
+            Order done = active.poll();
+            if (done == null) return;
+
+            system.updateOrderStatus(done, OrderStatus.DELIVERED);
+            Order picked = waiting.poll();
+            if (picked != null) active.offer(picked);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            system.close();
+            BenchFixtures.deleteDir(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Assigned {
+
+        @Param({"10", "1000", "100000", "1000000"})
+        public int drivers;
+
+        @Param({"10", "1000000"})
+        public int menuSize;
+
+        Path dir;
+        DeliverySystem system;
+        Customer customer;
+        List<MenuItem> items;
+        Order[] orders;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            dir = BenchFixtures.newDataDir();
+            BenchFixtures.writeUsers(dir, 100, drivers);
+            BenchFixtures.writeMenu(dir, menuSize);
+
+            system = new DeliverySystem(dir);
+            customer = (Customer) system.login(BenchFixtures.customerName(0), "pw0");
+            items = BenchFixtures.spreadItems(system.getMenu());
+
+            orders = new Order[drivers];
+            for (int i = 0; i < drivers; i++) {
+                orders[i] = system.placeOrder(customer, items);
+            }
+        }
+
+        /**
+         * Moves the next order one step: an accepted order goes out for
+         * delivery, one out for delivery is delivered and replaced by a
+         * new order for the driver it freed.
+         */
+        Order advanceNext() {
+            Order o = orders[next];
+            if (o.getStatus() == OrderStatus.ACCEPTED) {
+                system.updateOrderStatus(o, OrderStatus.IN_PROGRESS);
+            } else {
+                system.updateOrderStatus(o, OrderStatus.DELIVERED);
+                orders[next] = system.placeOrder(customer, items);
+            }
+            next = (next + 1) % orders.length;
+            return o;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            system.close();
+            BenchFixtures.deleteDir(dir);
+        }
+    }
+
+    @Benchmark
+    public Order placeOrder(Backlog s) {
+        return s.system.placeOrder(s.customer, s.items);
+    }
+
+    @Benchmark
+    public void deliverWithBacklog(Backlog s) {
+        s.deliverNext();
+    }
+
+    @Benchmark
+    public Order updateOrderStatus(Assigned s) {
+        return s.advanceNext();
+    }
+}
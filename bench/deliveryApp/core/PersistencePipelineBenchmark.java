@@ -0,0 +1,63 @@
+package deliveryApp.core;
+
+import deliveryApp.menu.MenuItem;
+import deliveryApp.orders.Order;
+import deliveryApp.users.Customer;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of placeOrder with the order log written on the
+ * caller's thread and with the background persistence writer, read off
+ * the p99 of the sample-time results. The durable variant also waits
+ * until the order is synced to disk: a sync per order without the
+ * writer, a share of a group commit with it.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistencePipelineBenchmark {
+
+    @Param({"false", "true"})
+    public boolean asyncWrites;
+
+    Path dir;
+    DeliverySystem system;
+    Customer customer;
+    List<MenuItem> items;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        dir = BenchFixtures.newDataDir();
+        BenchFixtures.writeUsers(dir, 100, 10);
+        BenchFixtures.writeMenu(dir, 10);
+
+        system = new DeliverySystem(dir, asyncWrites);
+        customer = (Customer) system.login(BenchFixtures.customerName(0), "pw0");
+        items = List.copyOf(system.getMenu().subList(0, 3));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        system.close();
+        BenchFixtures.deleteDir(dir);
+    }
+
+    @Benchmark
+    public Order placeOrder() {
+        return system.placeOrder(customer, items);
+    }
+
+    @Benchmark
+    public Order placeOrderDurable() {
+        Order o = system.placeOrder(customer, items);
+        system.awaitDurable();
+        return o;
+    }
+}
@@ -0,0 +1,221 @@
+package deliveryApp.core;
+
+import deliveryApp.menu.MenuCatalog;
+import deliveryApp.menu.MenuItem;
+import deliveryApp.menu.Money;
+import deliveryApp.metrics.OrderAnalytics;
+import deliveryApp.orders.Order;
+import deliveryApp.orders.OrderStatus;
+import deliveryApp.users.Customer;
+import deliveryApp.users.Driver;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Restarts a DeliverySystem from awkward states on disk and checks what
+ * it comes back with. Each scenario runs in its own data directory.
+ *
+ * Run with:
+ *   mvn -Pbench test-compile exec:exec -Dbench.main=deliveryApp.core.RecoveryCheck
+ * Exits with 1 on failure.
+ */
+public class RecoveryCheck {
+
+    public static void main(String[] args) throws Exception {
+        List<String> failures = new ArrayList<>();
+        snapshotAheadOfOffset(failures);
+        deliveredTwiceInLog(failures);
+        journalRotationFails(failures);
+        removedItemIdStaysRetired(failures);
+        acceptedWithoutDriver(failures);
+
+        if (!failures.isEmpty()) {
+            failures.forEach(f -> System.out.println("FAIL: " + f));
+            System.exit(1);
+        }
+        System.out.println("All recovery checks pass.");
+    }
+
+    /**
+     * A snapshot already holds a delivered order, but its log offset points
+     * just after the order was placed, so replay meets the assignment and
+     * status lines again. They must not move the order back or count the
+     * delivery twice.
+     */
+    private static void snapshotAheadOfOffset(List<String> failures) throws Exception {
+        Path dir = BenchFixtures.newDataDir();
+        BenchFixtures.writeUsers(dir, 1, 1);
+        BenchFixtures.writeMenu(dir, 2);
+
+        DeliverySystem system = new DeliverySystem(dir);
+        Customer c = (Customer) system.login(BenchFixtures.customerName(0), "pw0");
+        List<MenuItem> items = List.copyOf(system.getMenu());
+        Order o = system.placeOrder(c, items);
+        system.updateOrderStatus(o, OrderStatus.IN_PROGRESS);
+        system.updateOrderStatus(o, OrderStatus.DELIVERED);
+        system.close();
+
+        byte[] log = Files.readAllBytes(dir.resolve("orders.txt"));
+        int placedEnd = 0;
+        while (log[placedEnd++] != '\n') { }
+        setLogOffset(dir.resolve("system.snapshot"), placedEnd);
+
+        for (int restart = 1; restart <= 2; restart++) {
+            DeliverySystem restarted = new DeliverySystem(dir);
+            String when = "restart " + restart + ": ";
+            Order r = restarted.getOrder(o.getOrderId());
+            check(failures, r != null && r.getStatus() == OrderStatus.DELIVERED,
+                    when + "order is " + (r == null ? "missing" : r.getStatus()));
+            check(failures, restarted.getAvailableDriverCount() == 1, when + "driver still busy");
+
+            List<OrderAnalytics.DriverTally> drivers = restarted.getAnalytics().drivers();
+            long deliveries = drivers.stream().mapToLong(OrderAnalytics.DriverTally::deliveries).sum();
+            check(failures, deliveries == 1, when + "deliveries=" + deliveries);
+            restarted.close();
+        }
+
+        BenchFixtures.deleteDir(dir);
+    }
+
+    /**
+     * An order log from before status moves were checked may deliver an
+     * order, take it back to IN_PROGRESS and deliver it again. Replaying
+     * it must count one delivery.
+     */
+    private static void deliveredTwiceInLog(List<String> failures) throws Exception {
+        Path dir = BenchFixtures.newDataDir();
+        BenchFixtures.writeUsers(dir, 1, 1);
+        BenchFixtures.writeMenu(dir, 2);
+
+        DeliverySystem system = new DeliverySystem(dir);
+        Customer c = (Customer) system.login(BenchFixtures.customerName(0), "pw0");
+        Order o = system.placeOrder(c, List.copyOf(system.getMenu()));
+        system.updateOrderStatus(o, OrderStatus.DELIVERED);
+        long delivered = o.getStatusTime(OrderStatus.DELIVERED);
+        String driver = o.getDriver().getUserName();
+        system.close();
+
+        String again = "STATUS," + o.getOrderId() + "," + (delivered + 1) + ",IN_PROGRESS," + driver + "\n"
+                + "STATUS," + o.getOrderId() + "," + (delivered + 2) + ",DELIVERED," + driver + "\n";
+        Files.writeString(dir.resolve("orders.txt"), again, StandardOpenOption.APPEND);
+        Files.delete(dir.resolve("system.snapshot"));
+
+        DeliverySystem restarted = new DeliverySystem(dir);
+        long deliveries = restarted.getAnalytics().drivers().stream()
+                .mapToLong(OrderAnalytics.DriverTally::deliveries).sum();
+        check(failures, deliveries == 1, "delivered twice: deliveries=" + deliveries);
+        check(failures, restarted.getAvailableDriverCount() == 1, "delivered twice: driver still busy");
+        restarted.close();
+
+        BenchFixtures.deleteDir(dir);
+    }
+
+    /**
+     * A user journal whose rotation fails must keep taking records in the
+     * live file, and compact normally once the problem is gone.
+     */
+    private static void journalRotationFails(List<String> failures) throws Exception {
+        Path dir = BenchFixtures.newDataDir();
+        Path file = dir.resolve("users.journal");
+        // A directory where the rotated journal goes makes the rotation fail
+        Path blocker = dir.resolve("users.journal.compacting");
+        Files.createDirectories(blocker.resolve("x"));
+
+        UserJournal journal = new UserJournal(file, null);
+        journal.open();
+        journal.append("CUSTOMER", "before");
+        check(failures, journal.compactNow(() -> () -> true), "journal: first compaction not started");
+        journal.append("CUSTOMER", "after");
+        check(failures, Files.readAllLines(file).size() == 2,
+                "journal: live file holds " + Files.readAllLines(file).size() + " records");
+
+        BenchFixtures.deleteDir(blocker);
+        check(failures, journal.compactNow(() -> () -> true), "journal: retry not started");
+        journal.awaitCompaction();
+        check(failures, journal.isEmpty() && !Files.exists(blocker), "journal: retry did not compact");
+        journal.append("CUSTOMER", "later");
+        journal.close();
+        check(failures, Files.readAllLines(file).size() == 1, "journal: record after retry lost");
+
+        BenchFixtures.deleteDir(dir);
+    }
+
+    /**
+     * Removing the newest menu item and restarting, from the snapshot or
+     * from menu.txt, must not hand its ID to the next item added.
+     */
+    private static void removedItemIdStaysRetired(List<String> failures) throws Exception {
+        for (boolean fromSnapshot : new boolean[]{true, false}) {
+            Path dir = BenchFixtures.newDataDir();
+            BenchFixtures.writeUsers(dir, 1, 1);
+            BenchFixtures.writeMenu(dir, 2);
+
+            DeliverySystem system = new DeliverySystem(dir);
+            MenuItem newest = system.addMenuItem("Soup", Money.ofCents(450));
+            system.removeMenuItem(newest.getId());
+            system.close();
+            if (!fromSnapshot) Files.delete(dir.resolve("system.snapshot"));
+
+            DeliverySystem restarted = new DeliverySystem(dir);
+            MenuItem added = restarted.addMenuItem("Salad", Money.ofCents(700));
+            check(failures, added.getId() > newest.getId(), (fromSnapshot ? "snapshot" : "menu.txt")
+                    + ": removed item ID " + newest.getId() + " handed out again");
+            restarted.close();
+
+            BenchFixtures.deleteDir(dir);
+        }
+    }
+
+    /**
+     * A snapshot written while an order was being requeued may hold it as
+     * ACCEPTED with no driver. Startup must put it back in the queue (and
+     * hand it to the free driver) rather than fail.
+     */
+    private static void acceptedWithoutDriver(List<String> failures) throws Exception {
+        Path dir = BenchFixtures.newDataDir();
+        Customer c = new Customer(BenchFixtures.customerName(0), "pw0", "C", "555", "c@test.com");
+        Driver d = new Driver(BenchFixtures.driverName(0), "pw0", "D", "555", "d@test.com");
+        List<MenuItem> items = List.of(new MenuItem(1, "Soup", Money.ofCents(450)));
+        Order torn = new Order(1, c, null, OrderStatus.ACCEPTED, items);
+        SystemSnapshot.write(dir.resolve("system.snapshot"), List.of(c, d), MenuCatalog.of(items),
+                2, 0, List.of(torn));
+
+        try {
+            DeliverySystem restarted = new DeliverySystem(dir);
+            Order o = restarted.getOrder(1);
+            check(failures, o != null && o.getStatus() == OrderStatus.ACCEPTED && o.getDriver() != null,
+                    "torn order: " + (o == null ? "missing" : o.getStatus() + " with " + o.getDriver()));
+            restarted.close();
+        } catch (RuntimeException e) {
+            failures.add("torn order: startup failed with " + e);
+        }
+
+        BenchFixtures.deleteDir(dir);
+    }
+
+    // ============================================================
+    // HELPERS
+    // ============================================================
+
+    /**
+     * Rewrites the order log offset in a snapshot's header and its checksum.
+     */
+    private static void setLogOffset(Path snapshot, long offset) throws Exception {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+        buf.putLong(20, offset);
+        CRC32C crc = new CRC32C();
+        crc.update(buf.array(), 0, buf.limit() - 4);
+        buf.putInt(buf.limit() - 4, (int) crc.getValue());
+        Files.write(snapshot, buf.array());
+    }
+
+    private static void check(List<String> failures, boolean ok, String message) {
+        if (!ok) failures.add(message);
+    }
+}
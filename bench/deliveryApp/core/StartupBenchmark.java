@@ -0,0 +1,122 @@
+package deliveryApp.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the startup loaders that parse the CSV persistence files, and
+ * of a whole cold start from a binary snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+// A fixed heap, so the timings are not dominated by the heap growing
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class StartupBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class UserFiles {
+
+        @Param({"10", "10000", "1000000"})
+        public int users;
+
+        @Param({"10", "1000", "100000", "1000000"})
+        public int drivers;
+
+        Path dir;
+        DeliverySystem system;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            dir = BenchFixtures.newDataDir();
+            BenchFixtures.writeUsers(dir, users, drivers);
+            BenchFixtures.writeMenu(dir, 10);
+            system = new DeliverySystem(dir);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            system.close();
+            BenchFixtures.deleteDir(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class MenuFile {
+
+        @Param({"10", "10000", "1000000"})
+        public int menuSize;
+
+        Path dir;
+        DeliverySystem system;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            dir = BenchFixtures.newDataDir();
+            BenchFixtures.writeUsers(dir, 10, 10);
+            BenchFixtures.writeMenu(dir, menuSize);
+            system = new DeliverySystem(dir);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            system.close();
+            BenchFixtures.deleteDir(dir);
+        }
+    }
+
+    /**
+     * A data directory whose state has already been folded into a snapshot.
+     */
+    @State(Scope.Benchmark)
+    public static class Snapshot {
+
+        @Param({"10000", "1000000"})
+        public int users;
+
+        @Param({"1000", "100000", "1000000"})
+        public int drivers;
+
+        Path dir;
+        DeliverySystem system;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            dir = BenchFixtures.newDataDir();
+            BenchFixtures.writeUsers(dir, users, drivers);
+            BenchFixtures.writeMenu(dir, 1000);
+            new DeliverySystem(dir).close();
+        }
+
+        @TearDown(Level.Invocation)
+        public void closeSystem() {
+            system.close();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            BenchFixtures.deleteDir(dir);
+        }
+    }
+
+    @Benchmark
+    public DeliverySystem coldStartFromSnapshot(Snapshot s) {
+        s.system = new DeliverySystem(s.dir);
+        return s.system;
+    }
+
+    @Benchmark
+    public DeliverySystem loadUsersFromFiles(UserFiles s) {
+        s.system.loadUsersFromFiles();
+        return s.system;
+    }
+
+    @Benchmark
+    public DeliverySystem loadMenuFromFile(MenuFile s) {
+        s.system.loadMenuFromFile();
+        return s.system;
+    }
+}
@@ -0,0 +1,68 @@
+package deliveryApp.core;
+
+import deliveryApp.users.Driver;
+import deliveryApp.users.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of login lookups and driver ratings as the user base grows.
+ * The million-driver points need the 3 GB fork heap.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class UserPathBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Users {
+
+        @Param({"10", "10000", "1000000"})
+        public int users;
+
+        @Param({"10", "1000", "100000", "1000000"})
+        public int drivers;
+
+        Path dir;
+        DeliverySystem system;
+        Driver[] driverList;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            dir = BenchFixtures.newDataDir();
+            BenchFixtures.writeUsers(dir, users, drivers);
+            BenchFixtures.writeMenu(dir, 10);
+
+            system = new DeliverySystem(dir);
+            driverList = new Driver[drivers];
+            for (int i = 0; i < drivers; i++) {
+                driverList[i] = (Driver) system.login(BenchFixtures.driverName(i), "pw" + i);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            system.close();
+            BenchFixtures.deleteDir(dir);
+        }
+    }
+
+    @Benchmark
+    public User login(Users s) {
+        int i = s.next;
+        s.next = (i + 1) % s.users;
+        return s.system.login(BenchFixtures.customerName(i), "pw" + i);
+    }
+
+    @Benchmark
+    public void rateDriver(Users s) {
+        int i = s.next;
+        s.next = (i + 1) % s.drivers;
+        s.system.rateDriver(s.driverList[i], 1 + i % 5);
+    }
+}
@@ -0,0 +1,57 @@
+package deliveryApp.menu;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of browsing and editing a large catalog: lookups by ID and by
+ * name, and publishing a new snapshot with one item added or removed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MenuCatalogBenchmark {
+
+    @Param({"100", "50000"})
+    public int items;
+
+    MenuCatalog catalog;
+
+    @Setup
+    public void setUp() {
+        List<MenuItem> loaded = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            // Roughly 100 items per restaurant
+            loaded.add(new MenuItem("Restaurant " + (i / 100) + " Item " + i, Money.ofCents(100 + i % 2000)));
+        }
+        catalog = MenuCatalog.of(loaded);
+    }
+
+    @Benchmark
+    public MenuItem findById() {
+        return catalog.findById(1 + ThreadLocalRandom.current().nextInt(items));
+    }
+
+    @Benchmark
+    public MenuItem findByName() {
+        int i = ThreadLocalRandom.current().nextInt(items);
+        return catalog.findByName("RESTAURANT " + (i / 100) + " ITEM " + i);
+    }
+
+    @Benchmark
+    public MenuCatalog addItem() {
+        return catalog.withItem("Special", Money.ofCents(999));
+    }
+
+    @Benchmark
+    public MenuCatalog removeItem() {
+        return catalog.withoutId(1 + ThreadLocalRandom.current().nextInt(items));
+    }
+}
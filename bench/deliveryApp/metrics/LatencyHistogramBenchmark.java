@@ -0,0 +1,49 @@
+package deliveryApp.metrics;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording into the metrics on the order path, alone and with
+ * several threads hitting the same histogram. Run with -prof gc to check
+ * that recording allocates nothing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LatencyHistogramBenchmark {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final DeliveryMetrics metrics = new DeliveryMetrics(() -> 0, () -> 0);
+
+    @State(Scope.Thread)
+    public static class Values {
+        long next = 1;
+
+        long value() {
+            // Spread over a few orders of magnitude, as real latencies are
+            next = next * 6364136223846793005L + 1442695040888963407L;
+            return (next >>> 40) & 0xFFFFF;
+        }
+    }
+
+    @Benchmark
+    public void record(Values v) {
+        histogram.record(v.value());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended(Values v) {
+        histogram.record(v.value());
+    }
+
+    @Benchmark
+    public void orderPlaced() {
+        metrics.orderPlaced(System.nanoTime());
+    }
+}
@@ -0,0 +1,87 @@
+package deliveryApp.metrics;
+
+import deliveryApp.menu.MenuItem;
+import deliveryApp.menu.Money;
+import deliveryApp.orders.Order;
+import deliveryApp.orders.OrderStatus;
+import deliveryApp.users.Customer;
+import deliveryApp.users.Driver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the analytics cost: applying a placement, a status change and a
+ * delivery after a million orders have already been counted, and reading
+ * the admin report, which should not depend on that history either.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderAnalyticsBenchmark {
+
+    @Param({"1000000"})
+    public int history;
+
+    OrderAnalytics analytics;
+    Order[] orders;
+    SplittableRandom rnd = new SplittableRandom(42);
+    long now;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            customers.add(new Customer("customer" + i, "pw", "C", "555", "c@test.com"));
+        }
+        List<Driver> drivers = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            drivers.add(new Driver("driver" + i, "pw", "D", "555", "d@test.com"));
+        }
+        List<MenuItem> items = List.of(new MenuItem(1, "Hamburger", Money.ofCents(599)),
+                new MenuItem(2, "Fries", Money.ofCents(300)));
+
+        // Delivered orders to count before measuring, and reused as events
+        orders = new Order[4096];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = new Order(i + 1, customers.get(i % customers.size()),
+                    drivers.get(i % drivers.size()), OrderStatus.DELIVERED, items);
+        }
+        analytics = new OrderAnalytics();
+        for (int i = 0; i < history; i++) {
+            analytics.orderRestored(orders[i % orders.length]);
+        }
+        now = System.currentTimeMillis();
+    }
+
+    private Order next() {
+        return orders[rnd.nextInt(orders.length)];
+    }
+
+    @Benchmark
+    public void orderPlaced() {
+        analytics.orderPlaced(next());
+    }
+
+    @Benchmark
+    public void statusChanged() {
+        analytics.statusChanged(OrderStatus.ACCEPTED, OrderStatus.IN_PROGRESS);
+    }
+
+    @Benchmark
+    public void orderDelivered() {
+        analytics.orderDelivered(next());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String report() {
+        return analytics.report(now);
+    }
+}
@@ -0,0 +1,80 @@
+package deliveryApp.users;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording a rating and reading back the average, for the ring
+ * buffer against the boxed LinkedList drivers used to keep, plus the cost
+ * of writing a window out in text and binary form.
+ *
+ * Run with -prof gc to see the allocation rate of each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RatingWindowBenchmark {
+
+    @Param({"10", "100"})
+    public int window;
+
+    RatingWindow ring;
+    Queue<Integer> list;
+    int next;
+
+    final StringBuilder text = new StringBuilder(512);
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+    final DataOutputStream out = new DataOutputStream(bytes);
+
+    @Setup
+    public void setUp() {
+        ring = new RatingWindow(window, 0.2);
+        list = new LinkedList<>();
+        for (int i = 0; i < window; i++) {
+            ring.add(1 + i % 5);
+            list.offer(1 + i % 5);
+        }
+    }
+
+    @Benchmark
+    public double ringAdd() {
+        ring.add(1 + (next++ % 5));
+        return ring.average();
+    }
+
+    /**
+     * What Driver.addRating used to do: a boxed queue re-summed on every add.
+     */
+    @Benchmark
+    public double linkedListAdd() {
+        if (list.size() == window) list.poll();
+        list.offer(1 + (next++ % 5));
+
+        double sum = 0;
+        for (int r : list) sum += r;
+        return sum / list.size();
+    }
+
+    @Benchmark
+    public int writeText() {
+        text.setLength(0);
+        ring.appendTo(text);
+        return text.length();
+    }
+
+    @Benchmark
+    public int writeBinary() throws IOException {
+        bytes.reset();
+        ring.writeTo(out);
+        return bytes.size();
+    }
+}
@@ -0,0 +1,91 @@
+package deliveryApp.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What an SLA timer costs with many outstanding: each operation sets a
+ * timer 30 to 120 minutes out and cancels the oldest one, as orders
+ * moving through their statuses do. Compares the timing wheel with one
+ * ScheduledFuture per timer on a ScheduledThreadPoolExecutor (removed on
+ * cancel, so its queue stays the same size).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimingWheelBenchmark {
+
+    private static final long MIN_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final long MAX_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(120);
+
+    @Param({"1000000"})
+    public int outstanding;
+
+    private final SplittableRandom rnd = new SplittableRandom(42);
+    private final Runnable noop = () -> { };
+
+    TimingWheel<Integer> wheel;
+    TimingWheel.Timer<Integer>[] timers;
+
+    ScheduledThreadPoolExecutor executor;
+    ScheduledFuture<?>[] futures;
+
+    long now;
+    int oldest;
+
+    @Setup(Level.Trial)
+    // No generic array creation in Java; the raw array only ever holds Timer<Integer>
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void setUp() {
+        now = System.currentTimeMillis();
+        wheel = new TimingWheel<>(1000, now);
+        timers = new TimingWheel.Timer[outstanding];
+
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        futures = new ScheduledFuture<?>[outstanding];
+
+        for (int i = 0; i < outstanding; i++) {
+            timers[i] = wheel.schedule(i, now + delay());
+            futures[i] = executor.schedule(noop, delay(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private long delay() {
+        return rnd.nextLong(MIN_DELAY_MILLIS, MAX_DELAY_MILLIS);
+    }
+
+    private int nextSlot() {
+        int i = oldest;
+        oldest = (oldest + 1) % outstanding;
+        return i;
+    }
+
+    @Benchmark
+    public boolean timingWheel() {
+        int i = nextSlot();
+        boolean cancelled = wheel.cancel(timers[i]);
+        timers[i] = wheel.schedule(i, now + delay());
+        return cancelled;
+    }
+
+    @Benchmark
+    public boolean scheduledExecutor() {
+        int i = nextSlot();
+        boolean cancelled = futures[i].cancel(false);
+        futures[i] = executor.schedule(noop, delay(), TimeUnit.MILLISECONDS);
+        return cancelled;
+    }
+}
@@ -0,0 +1,174 @@
+package deliveryApp.web;
+
+import deliveryApp.core.DeliverySystem;
+import deliveryApp.users.Customer;
+import deliveryApp.users.Driver;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Local load test for {@link DeliveryHttpServer}. Starts a server on a
+ * throwaway data directory and keeps {@code concurrency} virtual users
+ * busy for the given duration: most act as customers placing orders, the
+ * rest as drivers fetching and delivering their orders. Each user is an
+ * asynchronous request chain, so the client needs no thread per
+ * connection. Prints throughput, error count and latency percentiles.
+ *
+ * Run with (arguments: concurrency, seconds, drivers):
+ *   mvn -Pbench test-compile exec:exec -Dbench.main=deliveryApp.web.HttpLoadTest -Djmh.args="2000 20 200"
+ * Tens of thousands of connections need a raised open-file limit (ulimit -n).
+ */
+public class HttpLoadTest {
+
+    private static final Pattern ORDER_ID = Pattern.compile("\"orderId\":(\\d+)");
+    private static final Pattern TOKEN = Pattern.compile("\"token\":\"([^\"]+)\"");
+
+    private final HttpClient client;
+    private final String base;
+    private final long deadline;
+
+    private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+    private final AtomicLong errors = new AtomicLong();
+
+    HttpLoadTest(String base, long deadline) {
+        this.base = base;
+        this.deadline = deadline;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int drivers = args.length > 2 ? Integer.parseInt(args[2]) : Math.max(1, concurrency / 10);
+        int customers = Math.max(1, concurrency - drivers);
+
+        Path dir = Files.createTempDirectory("delivery-load");
+        DeliverySystem system = new DeliverySystem(dir);
+        for (int i = 0; i < customers; i++) {
+            system.registerUser(new Customer("customer" + i, "pw", "Customer " + i, "555", "c@test.com"));
+        }
+        for (int i = 0; i < drivers; i++) {
+            system.registerUser(new Driver("driver" + i, "pw", "Driver " + i, "555", "d@test.com"));
+        }
+
+        DeliveryHttpServer server = new DeliveryHttpServer(system, 0);
+        server.start();
+
+        long start = System.nanoTime();
+        HttpLoadTest test = new HttpLoadTest("http://localhost:" + server.getPort(),
+                start + TimeUnit.SECONDS.toNanos(seconds));
+
+        List<CompletableFuture<Void>> users = new ArrayList<>();
+        for (int i = 0; i < customers; i++) {
+            users.add(test.login("customer" + i).thenCompose(test::customerLoop));
+        }
+        for (int i = 0; i < drivers; i++) {
+            users.add(test.login("driver" + i).thenCompose(test::driverLoop));
+        }
+        CompletableFuture.allOf(users.toArray(new CompletableFuture<?>[0])).join();
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        test.report(concurrency, elapsed);
+
+        server.stop();
+        system.close();
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private CompletableFuture<String> login(String user) {
+        return send(post("/login", null, "{\"username\":\"" + user + "\",\"password\":\"pw\"}"))
+                .thenApply(body -> {
+                    Matcher m = TOKEN.matcher(body);
+                    return m.find() ? m.group(1) : null;
+                });
+    }
+
+    private CompletableFuture<Void> customerLoop(String token) {
+        if (token == null || System.nanoTime() > deadline) return CompletableFuture.completedFuture(null);
+        return send(post("/orders", token, "{\"items\":[1,2]}"))
+                .thenCompose(ignored -> customerLoop(token));
+    }
+
+    private CompletableFuture<Void> driverLoop(String token) {
+        if (token == null || System.nanoTime() > deadline) return CompletableFuture.completedFuture(null);
+
+        HttpRequest list = HttpRequest.newBuilder(URI.create(base + "/orders?status=ACCEPTED"))
+                .header("Authorization", "Bearer " + token)
+                .GET().build();
+
+        return send(list).thenCompose(body -> {
+            Matcher m = ORDER_ID.matcher(body);
+            if (!m.find()) {
+                // nothing assigned yet; back off briefly before asking again
+                return CompletableFuture.runAsync(() -> { },
+                                CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS))
+                        .thenCompose(ignored -> driverLoop(token));
+            }
+            return send(post("/orders/" + m.group(1) + "/status", token, "{\"status\":\"DELIVERED\"}"))
+                    .thenCompose(ignored -> driverLoop(token));
+        });
+    }
+
+    private HttpRequest post(String path, String token, String json) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(base + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (token != null) b.header("Authorization", "Bearer " + token);
+        return b.build();
+    }
+
+    /**
+     * Sends one request, recording its latency; errors count but never stop the user.
+     */
+    private CompletableFuture<String> send(HttpRequest request) {
+        long t0 = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((resp, err) -> {
+                    latencies.add(System.nanoTime() - t0);
+                    if (err != null || resp.statusCode() >= 400) {
+                        errors.incrementAndGet();
+                        return "";
+                    }
+                    return resp.body();
+                });
+    }
+
+    private void report(int concurrency, double seconds) {
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+
+        System.out.printf("%nconcurrency %d, %d requests in %.1f s = %.0f req/s, %d errors%n",
+                concurrency, sorted.length, seconds, sorted.length / seconds, errors.get());
+        if (sorted.length == 0) return;
+        System.out.printf("latency ms  p50 %.2f  p90 %.2f  p99 %.2f  max %.2f%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.90),
+                percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int i = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, i)] / 1e6;
+    }
+}
@@ -0,0 +1,33 @@
+package deliveryApp.core;
+
+import deliveryApp.orders.Order;
+import deliveryApp.users.Driver;
+import deliveryApp.users.Location;
+
+/**
+ * Cost of giving an order to a driver, for batch dispatch. Lower is
+ * better; the batch is solved for the lowest total cost. Return
+ * Double.POSITIVE_INFINITY to rule a pair out.
+ */
+@FunctionalInterface
+public interface AssignmentScorer {
+
+    /** Distance assumed when the address or the driver's position is unknown. */
+    double UNKNOWN_DISTANCE_KM = 10.0;
+
+    double cost(Order order, Driver driver);
+
+    /**
+     * Distance from the driver to the delivery address plus kmPerStar for
+     * every star the driver's rating is short of 5, the same trade-off
+     * the one-at-a-time dispatcher makes.
+     */
+    static AssignmentScorer distanceAndRating(double kmPerStar) {
+        return (order, driver) -> {
+            Location to = order.getCustomer().getAddress();
+            Location from = driver.getPosition();
+            double km = (to != null && from != null) ? from.distanceTo(to) : UNKNOWN_DISTANCE_KM;
+            return km + kmPerStar * Math.max(0, 5.0 - driver.getRatingScore());
+        };
+    }
+}
@@ -0,0 +1,233 @@
+package deliveryApp.core;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment of a batch of orders to drivers: the Hungarian
+ * method in its shortest-augmenting-path form (as in Jonker-Volgenant),
+ * run over a sparse candidate graph.
+ *
+ * Orders are added one at a time. Each addition runs Dijkstra over reduced
+ * costs from the new order until it reaches a driver nobody holds, then
+ * shifts every order along that path by one driver. Dual prices on the
+ * orders and drivers keep the reduced costs non-negative, so the result
+ * is exactly optimal over the candidate lists. Each search stops at the
+ * first free driver, so a batch with short candidate lists costs far less
+ * than the O(n^3) of the dense method.
+ *
+ * Every order also has a private "stay in the queue" option at its leave
+ * cost, so an order always finds a free option and the batch does not
+ * have to be square.
+ */
+final class AssignmentSolver {
+
+    private AssignmentSolver() {
+    }
+
+    /**
+     * Solves one batch.
+     *
+     * @param drivers    number of drivers, numbered from 0
+     * @param candidates per order, the drivers it may take
+     * @param costs      per order, the cost of each of its candidates
+     * @param leaveCost  per order, the cost of leaving it unassigned
+     * @return per order, the driver it gets, or -1
+     */
+    static int[] solve(int drivers, int[][] candidates, double[][] costs, double[] leaveCost) {
+        return new Search(drivers, candidates, costs, leaveCost).run();
+    }
+
+    /**
+     * Working state for one batch. Column j < drivers is a driver; column
+     * drivers + i is order i's "stay" option.
+     */
+    private static final class Search {
+        final int drivers;
+        final int[][] candidates;
+        final double[][] costs;
+        final double[] leaveCost;
+
+        final double[] rowPrice;     // u
+        final double[] colPrice;     // v
+        final int[] rowCol;          // column held by each order, or -1
+        final int[] colRow;          // order holding each column, or -1
+
+        // Dijkstra state, reset lazily by stamping
+        final double[] dist;
+        final int[] via;             // order through which a column was reached
+        final int[] seen;            // stamp: dist is valid for this search
+        final int[] done;            // stamp: column is final for this search
+        int stamp;
+
+        int[] scanned;
+        int scannedCount;
+
+        // Binary heap of (dist, column) with lazy deletion
+        double[] heapDist = new double[64];
+        int[] heapCol = new int[64];
+        int heapSize;
+
+        Search(int drivers, int[][] candidates, double[][] costs, double[] leaveCost) {
+            this.drivers = drivers;
+            this.candidates = candidates;
+            this.costs = costs;
+            this.leaveCost = leaveCost;
+
+            int orders = candidates.length;
+            int cols = drivers + orders;
+            rowPrice = new double[orders];
+            colPrice = new double[cols];
+            rowCol = new int[orders];
+            colRow = new int[cols];
+            dist = new double[cols];
+            via = new int[cols];
+            seen = new int[cols];
+            done = new int[cols];
+            scanned = new int[16];
+            Arrays.fill(rowCol, -1);
+            Arrays.fill(colRow, -1);
+
+            // Start each order's price at its cheapest option, so every
+            // reduced cost begins non-negative
+            for (int i = 0; i < orders; i++) {
+                double min = leaveCost[i];
+                for (double c : costs[i]) min = Math.min(min, c);
+                rowPrice[i] = min;
+            }
+        }
+
+        int[] run() {
+            for (int i = 0; i < candidates.length; i++) {
+                augment(i);
+            }
+
+            int[] result = new int[candidates.length];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = rowCol[i] < drivers ? rowCol[i] : -1;
+            }
+            return result;
+        }
+
+        /**
+         * Finds the cheapest way to fit order r in and applies it.
+         */
+        private void augment(int r) {
+            stamp++;
+            heapSize = 0;
+            scannedCount = 0;
+            relaxRow(r, 0);
+
+            int end;
+            double total;
+            while (true) {
+                int j = pop();
+                if (done[j] == stamp) continue;
+                done[j] = stamp;
+                addScanned(j);
+
+                if (colRow[j] < 0) {
+                    end = j;
+                    total = dist[j];
+                    break;
+                }
+                // Moving j's holder on costs its row's other options
+                relaxRow(colRow[j], dist[j]);
+            }
+
+            // Update prices so held pairs stay tight and no reduced cost goes negative
+            for (int k = 0; k < scannedCount; k++) {
+                int j = scanned[k];
+                colPrice[j] -= total - dist[j];
+            }
+
+            // Shift orders along the path back to r
+            int j = end;
+            while (true) {
+                int i = via[j];
+                int previous = rowCol[i];
+                rowCol[i] = j;
+                colRow[j] = i;
+                if (i == r) break;
+                j = previous;
+            }
+
+            // Re-tighten every order whose column moved or was re-priced
+            for (int k = 0; k < scannedCount; k++) {
+                int i = colRow[scanned[k]];
+                if (i >= 0) rowPrice[i] = costOf(i, rowCol[i]) - colPrice[rowCol[i]];
+            }
+        }
+
+        /**
+         * Relaxes every option of order i, reached at distance base.
+         */
+        private void relaxRow(int i, double base) {
+            int[] cand = candidates[i];
+            double[] cost = costs[i];
+            for (int k = 0; k < cand.length; k++) {
+                relax(cand[k], base + cost[k] - rowPrice[i] - colPrice[cand[k]], i);
+            }
+            int stay = drivers + i;
+            relax(stay, base + leaveCost[i] - rowPrice[i] - colPrice[stay], i);
+        }
+
+        private void relax(int j, double d, int i) {
+            if (done[j] == stamp) return;
+            if (seen[j] == stamp && dist[j] <= d) return;
+            seen[j] = stamp;
+            dist[j] = d;
+            via[j] = i;
+            push(d, j);
+        }
+
+        private double costOf(int i, int j) {
+            if (j >= drivers) return leaveCost[i];
+            int[] cand = candidates[i];
+            for (int k = 0; k < cand.length; k++) {
+                if (cand[k] == j) return costs[i][k];
+            }
+            throw new IllegalStateException("order " + i + " holds a driver it never bid on");
+        }
+
+        private void addScanned(int j) {
+            if (scannedCount == scanned.length) scanned = Arrays.copyOf(scanned, scannedCount * 2);
+            scanned[scannedCount++] = j;
+        }
+
+        private void push(double d, int j) {
+            if (heapSize == heapDist.length) {
+                heapDist = Arrays.copyOf(heapDist, heapSize * 2);
+                heapCol = Arrays.copyOf(heapCol, heapSize * 2);
+            }
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heapDist[parent] <= d) break;
+                heapDist[i] = heapDist[parent];
+                heapCol[i] = heapCol[parent];
+                i = parent;
+            }
+            heapDist[i] = d;
+            heapCol[i] = j;
+        }
+
+        private int pop() {
+            int top = heapCol[0];
+            double d = heapDist[--heapSize];
+            int j = heapCol[heapSize];
+            int i = 0;
+            int half = heapSize >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < heapSize && heapDist[child + 1] < heapDist[child]) child++;
+                if (heapDist[child] >= d) break;
+                heapDist[i] = heapDist[child];
+                heapCol[i] = heapCol[child];
+                i = child;
+            }
+            heapDist[i] = d;
+            heapCol[i] = j;
+            return top;
+        }
+    }
+}
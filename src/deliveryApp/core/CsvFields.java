@@ -0,0 +1,69 @@
+package deliveryApp.core;
+
+import java.util.List;
+
+/**
+ * Minimal CSV field quoting shared by the append-only logs.
+ * A field is wrapped in double quotes only when it contains a comma,
+ * a quote or a line break; embedded quotes are doubled.
+ */
+final class CsvFields {
+
+    private CsvFields() {
+    }
+
+    static void append(StringBuilder out, String value) {
+        if (!needsQuotes(value)) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"') out.append('"');
+            out.append(ch);
+        }
+        out.append('"');
+    }
+
+    /**
+     * Splits one CSV line into fields, honouring double-quoted fields.
+     */
+    static void split(String line, List<String> out) {
+        out.clear();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        cur.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    cur.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                out.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(ch);
+            }
+        }
+        out.add(cur.toString());
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') return true;
+        }
+        return false;
+    }
+}
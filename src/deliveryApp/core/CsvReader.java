@@ -0,0 +1,191 @@
+package deliveryApp.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Streaming CSV reader that scans raw bytes, one record at a time.
+ *
+ * Fields may be double-quoted, with embedded quotes doubled and commas or
+ * line breaks inside the quotes; this is the format {@link CsvFields}
+ * writes. Quoted fields are unescaped in place inside the read buffer and
+ * unquoted fields have surrounding blanks trimmed by moving their bounds,
+ * so a record costs nothing beyond the Strings the caller asks for.
+ * Blank lines are skipped.
+ *
+ * Not thread-safe; each file gets its own reader.
+ */
+final class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private byte[] buf = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private boolean eof;
+
+    // Start of the current record in buf; field bounds are relative to it
+    private int recordStart;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int count;
+
+    CsvReader(InputStream in) {
+        this.in = in;
+    }
+
+    static CsvReader open(Path file) throws IOException {
+        return new CsvReader(Files.newInputStream(file));
+    }
+
+    /**
+     * Advances to the next non-blank record. Returns false at end of input.
+     */
+    boolean next() throws IOException {
+        do {
+            if (!readRecord()) return false;
+        } while (count == 1 && starts[0] == ends[0]);
+        return true;
+    }
+
+    int fieldCount() {
+        return count;
+    }
+
+    String field(int i) {
+        return new String(buf, recordStart + starts[i], ends[i] - starts[i], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses one record. Offsets are relative to recordStart, so they stay
+     * valid when fill() moves the record to the front of the buffer.
+     * Unescaped bytes are written back at w, which never passes p, so the
+     * buffer doubles as the output; until a field has had quotes, w == p
+     * and plain bytes are skipped over without being copied.
+     */
+    private boolean readRecord() throws IOException {
+        count = 0;
+        recordStart = pos;
+        if (pos == limit && !fill()) return false;
+
+        byte[] buf = this.buf;
+        int base = recordStart;
+        int p = 0;
+        int w = 0;
+        int fieldStart = 0;
+        boolean quoted = false;      // inside quotes
+        boolean wasQuoted = false;   // this field had quotes, so keep its blanks
+
+        while (true) {
+            if (!quoted && w == p) {
+                int i = base + p;
+                while (i < limit) {
+                    byte c = buf[i];
+                    if (c == ',' || c == '\n' || c == '"') break;
+                    i++;
+                }
+                p = w = i - base;
+            }
+
+            if (base + p == limit) {
+                if (!fill()) {
+                    // Last record without a trailing newline
+                    endField(fieldStart, w, wasQuoted);
+                    pos = limit;
+                    return true;
+                }
+                buf = this.buf;
+                base = recordStart;
+                continue;
+            }
+
+            byte b = buf[base + p++];
+
+            if (quoted) {
+                if (b != '"') {
+                    buf[base + w++] = b;
+                    continue;
+                }
+                if (base + p == limit) {
+                    fill();   // moves the record even when it finds no more input
+                    buf = this.buf;
+                    base = recordStart;
+                }
+                if (base + p < limit && buf[base + p] == '"') {
+                    buf[base + w++] = '"';
+                    p++;
+                } else {
+                    quoted = false;
+                }
+            } else if (b == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (b == ',') {
+                endField(fieldStart, w, wasQuoted);
+                fieldStart = w = p;
+                wasQuoted = false;
+            } else if (b == '\n') {
+                endField(fieldStart, w, wasQuoted);
+                pos = base + p;
+                return true;
+            } else {
+                buf[base + w++] = b;
+            }
+        }
+    }
+
+    private void endField(int from, int to, boolean keepBlanks) {
+        if (!keepBlanks) {
+            while (from < to && isBlank(buf[recordStart + from])) from++;
+            while (to > from && isBlank(buf[recordStart + to - 1])) to--;
+        }
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count] = from;
+        ends[count] = to;
+        count++;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    /**
+     * Moves the current record to the front of the buffer (growing the
+     * buffer if the record already fills it) and reads more input after
+     * it. Returns false once the input is exhausted.
+     */
+    private boolean fill() throws IOException {
+        if (eof) return false;
+
+        int kept = limit - recordStart;
+        if (kept == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        } else if (recordStart > 0) {
+            System.arraycopy(buf, recordStart, buf, 0, kept);
+        }
+        recordStart = 0;
+        limit = kept;
+
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n < 0) {
+            eof = true;
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,80 @@
+package deliveryApp.core;
+
+import deliveryApp.orders.Order;
+import deliveryApp.users.Location;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The orders one driver is carrying, in the order they will be dropped
+ * off. A new stop goes wherever it adds the least driving to the trip
+ * from the driver's position through the stops already planned; if any
+ * of those points is unknown it simply goes last.
+ *
+ * Not thread-safe; the dispatcher only touches routes under its lock.
+ */
+final class DeliveryRoute {
+
+    private final ArrayList<Order> stops = new ArrayList<>(4);
+
+    int size() {
+        return stops.size();
+    }
+
+    boolean isEmpty() {
+        return stops.isEmpty();
+    }
+
+    List<Order> stops() {
+        return List.copyOf(stops);
+    }
+
+    /**
+     * Where the last stop is, or null if it has no known address.
+     */
+    Location lastDropOff() {
+        return stops.isEmpty() ? null : addressOf(stops.get(stops.size() - 1));
+    }
+
+    /**
+     * Plans a stop for the order, starting from the driver's position.
+     */
+    void add(Order o, Location from) {
+        stops.add(bestSlot(addressOf(o), from), o);
+    }
+
+    boolean remove(Order o) {
+        return stops.remove(o);
+    }
+
+    /**
+     * The insertion point that adds the least distance, or the end if
+     * the distances are not all known.
+     */
+    private int bestSlot(Location to, Location from) {
+        int end = stops.size();
+        if (to == null || from == null || end == 0) return end;
+
+        // Going last only adds the leg from the current last stop
+        Location previous = from;
+        double bestExtra = Double.POSITIVE_INFINITY;
+        int best = end;
+        for (int i = 0; i < end; i++) {
+            Location next = addressOf(stops.get(i));
+            if (next == null) return end;
+
+            double extra = previous.distanceTo(to) + to.distanceTo(next) - previous.distanceTo(next);
+            if (extra < bestExtra) {
+                bestExtra = extra;
+                best = i;
+            }
+            previous = next;
+        }
+        return previous.distanceTo(to) <= bestExtra ? end : best;
+    }
+
+    private static Location addressOf(Order o) {
+        return o.getCustomer().getAddress();
+    }
+}
@@ -1,17 +1,40 @@
 package deliveryApp.core;
 
 import deliveryApp.users.*;
+import deliveryApp.menu.MenuCatalog;
 import deliveryApp.menu.MenuItem;
+import deliveryApp.menu.Money;
+import deliveryApp.metrics.DeliveryMetrics;
+import deliveryApp.metrics.OrderAnalytics;
 import deliveryApp.orders.*;
+import deliveryApp.utils.TimingWheel;
 
 import java.io.*;
 import java.nio.file.*;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Central controller for the entire delivery application.
  * Handles menu, users, orders, driver assignment, ratings,
  * and full file-based persistence.
+ *
+ * Safe for many concurrent sessions: users and orders live in concurrent
+ * maps, order IDs come from an atomic counter, each order's transitions
+ * are serialized on the order itself, and only the short matching step
+ * inside the Dispatcher takes a shared lock.
  */
 public class DeliverySystem {
 
@@ -21,28 +44,193 @@ public class DeliverySystem {
     private static final String DRIVERS_FILE = "drivers.txt";
     private static final String ADMINS_FILE = "admins.txt";
     private static final String ORDERS_FILE = "orders.txt";
+    private static final String USERS_JOURNAL = "users.journal";
+    private static final String SNAPSHOT_FILE = "system.snapshot";
+    private static final String ARCHIVE_DIR = "archive";
+
+    // First line of menu.txt, followed by the next item ID
+    private static final String NEXT_ITEM_ID = "nextId=";
+
+    // How often a binary snapshot is taken while anything has changed
+    private static final long SNAPSHOT_INTERVAL_SECONDS = 300;
+
+    // Resolution of the SLA timers
+    private static final long SLA_TICK_MILLIS = 1000;
+
+    // How often delivered orders are checked for archiving
+    private static final long ARCHIVE_INTERVAL_MINUTES = 60;
+
+    /** How long delivered orders stay in memory unless told otherwise. */
+    public static final Duration DEFAULT_ARCHIVE_AFTER = Duration.ofDays(7);
+
+    // Directory that holds all of the files above
+    private final Path dataDir;
 
     // ---------- In-memory data structures ----------
-    private final Map<String, User> users = new HashMap<>();
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+
+    private final Dispatcher dispatcher = new Dispatcher();
+
+    private final OrderStore allOrders = new OrderStore();
+
+    // Delivered orders moved out of the heap; see archiveDeliveredOrders
+    private final OrderArchive archive;
+    private volatile Duration archiveAfter = DEFAULT_ARCHIVE_AFTER;
+    // One sweep at a time, or two could write the same orders to two segments
+    private final Object archiveSweep = new Object();
+
+    // Secondary indexes, maintained on placement, assignment and status change
+    private final OrderIndex<Driver> ordersByDriver = new OrderIndex<>();
+    private final OrderIndex<Customer> ordersByCustomer = new OrderIndex<>();
+
+    // Replaced wholesale on every edit, so readers never need a lock
+    private volatile MenuCatalog menu = MenuCatalog.empty();
+
+    private final AtomicInteger orderIdCounter = new AtomicInteger(1);
 
-    private final Queue<Order> pendingOrders = new LinkedList<>();
+    private final DeliveryMetrics metrics =
+            new DeliveryMetrics(this::getPendingOrderCount, this::getAvailableDriverCount);
 
-    private final PriorityQueue<Driver> availableDrivers =
-            new PriorityQueue<>((a, b) -> Double.compare(b.getAverageRating(), a.getAverageRating()));
+    // Business totals over every order ever placed, archived ones included
+    private final OrderAnalytics analytics = new OrderAnalytics();
 
-    private final Map<Integer, Order> allOrders = new HashMap<>();
+    // Writes the order log, user journal and menu off the callers' threads; null to write inline
+    private final PersistencePipeline pipeline;
 
-    private final List<MenuItem> menu = new ArrayList<>();
+    private final OrderEventLog orderLog;
 
-    private int orderIdCounter = 1;
+    // Ad-hoc reports that scan the whole order log
+    private final OrderLogReports logReports;
+
+    private final UserJournal userJournal;
+
+    private final ScheduledExecutorService snapshotTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "snapshot-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Runs batch dispatch while it is switched on; see setBatchDispatch
+    private final ScheduledExecutorService batchTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "batch-dispatch");
+        t.setDaemon(true);
+        return t;
+    });
+    private ScheduledFuture<?> batchTick;
+
+    // One timer per open order, all driven by a single task; see setSlaPolicy
+    private volatile SlaPolicy slaPolicy = SlaPolicy.defaults();
+    private final TimingWheel<Order> slaTimers = new TimingWheel<>(SLA_TICK_MILLIS, System.currentTimeMillis());
+    private final ScheduledExecutorService slaTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sla-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Orders that ran over their SLA, by ID, until delivered or re-queued
+    private final Map<Integer, Order> flaggedOrders = new ConcurrentSkipListMap<>();
+
+    // What the latest snapshot covered, to skip snapshots when nothing changed
+    private volatile long snapshotLogOffset = -1;
+    private volatile MenuCatalog snapshotMenu;
 
     // ============================================================
     // CONSTRUCTOR
     // ============================================================
 
     public DeliverySystem() {
-        loadMenuFromFile();
-        loadUsersFromFiles();
+        this(Paths.get(""));
+    }
+
+    /**
+     * Creates a system whose persistence files live in the given directory.
+     * Changes are written to disk in the background; see {@link #awaitDurable}.
+     */
+    public DeliverySystem(Path dataDir) {
+        this(dataDir, true);
+    }
+
+    /**
+     * Creates a system whose persistence files live in the given directory.
+     * With asyncWrites, changes are queued for a background writer that
+     * writes and syncs them in batches; without, each change is written
+     * (but not synced) on the thread that makes it.
+     */
+    public DeliverySystem(Path dataDir, boolean asyncWrites) {
+        this.dataDir = dataDir;
+        this.pipeline = asyncWrites
+                ? new PersistencePipeline(PersistencePipeline.DEFAULT_CAPACITY, true, metrics.groupCommits())
+                : null;
+        this.orderLog = new OrderEventLog(dataDir.resolve(ORDERS_FILE), metrics.orderLogWrites(), pipeline);
+        this.logReports = new OrderLogReports(dataDir.resolve(ORDERS_FILE), orderLog::size,
+                () -> users.values().stream().filter(u -> u instanceof Customer).map(User::getUserName).toList());
+        this.userJournal = new UserJournal(dataDir.resolve(USERS_JOURNAL), pipeline);
+        this.archive = new OrderArchive(dataDir.resolve(ARCHIVE_DIR),
+                name -> users.get(name.toLowerCase()), OrderArchive.DEFAULT_CACHE_SIZE);
+
+        // The binary snapshot if there is one; the CSV files otherwise
+        SystemSnapshot snapshot = SystemSnapshot.open(dataDir.resolve(SNAPSHOT_FILE));
+        loadMenu(snapshot);
+        boolean stale = loadUsers(snapshot);
+        archive.open(analytics);
+        stale |= replayOrderLog(snapshot);
+
+        // Fold anything that had to be replayed into a fresh snapshot
+        try {
+            if ((stale || snapshot == null) && snapshotWriter().getAsBoolean()) {
+                userJournal.truncate();
+            } else {
+                userJournal.open();
+            }
+        } catch (IOException e) {
+            System.out.println("Error opening user journal.");
+        }
+        if (snapshot != null && !stale) {
+            snapshotLogOffset = snapshot.getOrderLogOffset();
+            snapshotMenu = menu;
+        }
+
+        snapshotTimer.scheduleWithFixedDelay(this::snapshotIfChanged,
+                SNAPSHOT_INTERVAL_SECONDS, SNAPSHOT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        snapshotTimer.scheduleWithFixedDelay(this::archiveIfDue,
+                ARCHIVE_INTERVAL_MINUTES, ARCHIVE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        slaTimer.scheduleAtFixedRate(this::checkSlas,
+                SLA_TICK_MILLIS, SLA_TICK_MILLIS, TimeUnit.MILLISECONDS);
+        metrics.register(dataDir.toAbsolutePath().toString());
+    }
+
+    /**
+     * Writes out everything still queued and a final snapshot, then closes
+     * the order log and user journal. Call once when the app exits.
+     */
+    public void close() {
+        slaTimer.shutdownNow();
+        batchTimer.shutdownNow();
+        snapshotTimer.shutdownNow();
+        userJournal.awaitCompaction();
+        // Drained first so the snapshot covers the whole log
+        awaitDurable();
+        snapshotIfChanged();
+
+        if (pipeline != null) pipeline.close();
+        userJournal.close();
+        orderLog.close();
+        metrics.unregister();
+    }
+
+    /**
+     * Waits until every change made so far, by any thread, is written and
+     * synced to disk. Changes are written in the background, so call this
+     * when a change must survive a crash before going on; the wait covers
+     * one batch, shared with whoever else is waiting.
+     */
+    public void awaitDurable() {
+        if (pipeline != null) {
+            pipeline.awaitDurable();
+        } else {
+            orderLog.sync();
+            userJournal.sync();
+        }
     }
 
     // ============================================================
@@ -54,6 +242,13 @@ public class DeliverySystem {
         return (u != null && u.verifyPassword(password)) ? u : null;
     }
 
+    /**
+     * Looks up a user by username (case-insensitive), or null if unknown.
+     */
+    public User findUser(String username) {
+        return username == null ? null : users.get(username.toLowerCase());
+    }
+
     /**
      * Check whether a username is already taken.
      */
@@ -63,92 +258,188 @@ public class DeliverySystem {
 
     /**
      * Registers a new user and persists to disk.
+     * Returns false if the username was taken in the meantime.
      */
-    public void registerUser(User u) {
-        users.put(u.getUserName().toLowerCase(), u);
+    public boolean registerUser(User u) {
+        if (users.putIfAbsent(u.getUserName().toLowerCase(), u) != null) {
+            return false;
+        }
+
+        persistUser(u);
 
         if (u instanceof Driver d && d.isAvailable()) {
-            availableDrivers.add(d);
+            freeDriver(d);
         }
-
-        saveUsersToFiles();
+        return true;
     }
 
     // ============================================================
     // MENU MANAGEMENT + FILE PERSISTENCE
     // ============================================================
 
-    private void loadMenuFromFile() {
-        menu.clear();
-        Path path = Paths.get(MENU_FILE);
+    /**
+     * Takes the menu from the snapshot unless menu.txt was written after
+     * it (every edit rewrites menu.txt, and it may be edited by hand).
+     */
+    private void loadMenu(SystemSnapshot snapshot) {
+        Path path = dataDir.resolve(MENU_FILE);
+        try {
+            if (snapshot != null && (!Files.exists(path)
+                    || Files.getLastModifiedTime(path).toMillis() < snapshot.getWrittenAt())) {
+                menu = snapshot.readMenu();
+                return;
+            }
+        } catch (IOException e) {
+            // fall through to menu.txt
+        }
+        loadMenuFromFile();
+    }
+
+    /**
+     * Reads menu.txt ("id,name,price" per line, after a "nextId=N" line
+     * that keeps removed items' IDs retired). Old files without the ID
+     * column are still accepted; their items get IDs in file order.
+     */
+    synchronized void loadMenuFromFile() {
+        Path path = dataDir.resolve(MENU_FILE);
 
         if (!Files.exists(path)) {
             // Create default menu if file missing
-            menu.add(new MenuItem("Hamburger", 5.99));
-            menu.add(new MenuItem("Fries", 3.00));
-            menu.add(new MenuItem("Drink", 1.50));
+            menu = MenuCatalog.of(defaultMenu());
             saveMenuToFile();
             return;
         }
 
-        try (BufferedReader br = Files.newBufferedReader(path)) {
-            String line;
-
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length != 2) continue;
-
-                String name = parts[0].trim();
-                double price = Double.parseDouble(parts[1].trim());
-
-                menu.add(new MenuItem(name, price));
+        List<MenuItem> loaded = new ArrayList<>();
+        int nextId = 1;
+
+        try (CsvReader r = CsvReader.open(path)) {
+            while (r.next()) {
+                if (r.fieldCount() == 1 && r.field(0).startsWith(NEXT_ITEM_ID)) {
+                    nextId = Integer.parseInt(r.field(0).substring(NEXT_ITEM_ID.length()));
+                } else if (r.fieldCount() == 3) {
+                    loaded.add(new MenuItem(Integer.parseInt(r.field(0)),
+                            r.field(1), Money.parse(r.field(2))));
+                } else if (r.fieldCount() == 2) {
+                    loaded.add(new MenuItem(r.field(0), Money.parse(r.field(1))));
+                }
             }
 
+            menu = MenuCatalog.of(loaded, nextId);
+
         } catch (IOException | NumberFormatException e) {
             System.out.println("Error reading menu file. Using default menu.");
-            menu.clear();
-            menu.add(new MenuItem("Hamburger", 5.99));
-            menu.add(new MenuItem("Fries", 3.00));
-            menu.add(new MenuItem("Drink", 1.50));
+            menu = MenuCatalog.of(defaultMenu());
             saveMenuToFile();
         }
     }
 
-    private void saveMenuToFile() {
-        try (BufferedWriter bw = Files.newBufferedWriter(Paths.get(MENU_FILE))) {
-            for (MenuItem item : menu) {
-                bw.write(item.getName() + "," + item.getPrice());
-                bw.newLine();
+    private static List<MenuItem> defaultMenu() {
+        return List.of(
+                new MenuItem("Hamburger", Money.ofCents(599)),
+                new MenuItem("Fries", Money.ofCents(300)),
+                new MenuItem("Drink", Money.ofCents(150)));
+    }
+
+    /**
+     * Renders the menu here and rewrites the file on the persistence
+     * writer, if there is one.
+     */
+    private synchronized void saveMenuToFile() {
+        List<String> lines = new ArrayList<>(menu.size() + 1);
+        lines.add(NEXT_ITEM_ID + menu.getNextId());
+        StringBuilder line = new StringBuilder(64);
+        for (MenuItem item : menu.getItems()) {
+            line.setLength(0);
+            line.append(item.getId()).append(',');
+            CsvFields.append(line, item.getName());
+            line.append(',').append(item.getPrice());
+            lines.add(line.toString());
+        }
+
+        Runnable write = () -> {
+            try {
+                writeAtomically(dataDir.resolve(MENU_FILE), lines);
+            } catch (IOException e) {
+                System.out.println("Error writing menu file: " + e.getMessage());
             }
-        } catch (IOException e) {
-            System.out.println("Error writing menu file: " + e.getMessage());
+        };
+        if (pipeline != null) {
+            pipeline.run(write);
+        } else {
+            write.run();
         }
     }
 
-    public List<MenuItem> getMenu() {
+    /**
+     * Returns the current menu snapshot. It never changes; edits publish a new one.
+     */
+    public MenuCatalog getCatalog() {
         return menu;
     }
 
-    public void addMenuItem(String name, double price) {
-        menu.add(new MenuItem(name, price));
+    /**
+     * Items of the current menu snapshot, in the order they were added.
+     */
+    public List<MenuItem> getMenu() {
+        return menu.getItems();
+    }
+
+    public synchronized MenuItem addMenuItem(String name, Money price) {
+        menu = menu.withItem(name, price);
         saveMenuToFile();
+        return menu.getItems().get(menu.size() - 1);
     }
 
-    public void removeMenuItem(String name) {
-        menu.removeIf(item -> item.getName().equalsIgnoreCase(name));
+    /**
+     * Removes every item with this name (ignoring case). Returns false if there was none.
+     */
+    public synchronized boolean removeMenuItem(String name) {
+        MenuCatalog next = menu.withoutName(name);
+        if (next == menu) return false;
+
+        menu = next;
         saveMenuToFile();
+        return true;
+    }
+
+    public synchronized boolean removeMenuItem(int id) {
+        MenuCatalog next = menu.withoutId(id);
+        if (next == menu) return false;
+
+        menu = next;
+        saveMenuToFile();
+        return true;
     }
 
     // ============================================================
     // USER FILE LOADING + SAVING
     // ============================================================
 
-    private void loadUsersFromFiles() {
+    /**
+     * Reloads users from the CSV files and the journal.
+     */
+    void loadUsersFromFiles() {
+        loadUsers(null);
+    }
+
+    /**
+     * Loads users from the snapshot, or from the CSV files if there is
+     * none, then applies the journal on top. Returns true if anything had
+     * to be replayed or added, i.e. the files on disk are behind.
+     */
+    private boolean loadUsers(SystemSnapshot snapshot) {
         users.clear();
+        dispatcher.clear();
+
+        if (snapshot != null) {
+            snapshot.readUsers(u -> users.put(u.getUserName().toLowerCase(), u));
+        } else {
+            loadUserFiles();
+        }
 
-        loadAdmins();
-        loadCustomers();
-        loadDrivers();
+        // Changes made since the last snapshot
+        boolean dirty = userJournal.replay(this::applyUserRecord) > 0;
 
         // Ensure at least one admin exists
         boolean hasAdmin = users.values().stream().anyMatch(u -> u instanceof Admin);
@@ -156,213 +447,1019 @@ public class DeliverySystem {
             Admin admin = new Admin("admin", "admin123",
                     "Admin User", "555-0000", "admin@test.com");
             users.put("admin", admin);
-            saveUsersToFiles();
+            dirty = true;
         }
-    }
-
-    private void loadAdmins() {
-        Path path = Paths.get(ADMINS_FILE);
-        if (!Files.exists(path)) return;
 
-        try (BufferedReader br = Files.newBufferedReader(path)) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(",");
-                if (p.length < 5) continue;
-
-                Admin a = new Admin(
-                        p[0].trim(), p[1].trim(), p[2].trim(),
-                        p[3].trim(), p[4].trim()
-                );
-                users.put(a.getUserName().toLowerCase(), a);
+        for (User u : users.values()) {
+            if (u instanceof Driver d && d.isAvailable()) {
+                dispatcher.driverFreed(d);
             }
-        } catch (IOException e) {
-            System.out.println("Error reading admins file.");
         }
+        return dirty;
     }
 
-    private void loadCustomers() {
-        Path path = Paths.get(CUSTOMERS_FILE);
-        if (!Files.exists(path)) return;
-
-        try (BufferedReader br = Files.newBufferedReader(path)) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(",");
-                if (p.length < 5) continue;
+    /**
+     * Reads the three user files at once (customers and drivers on pool
+     * threads, admins here) and merges them in file order, so a name that
+     * appears twice resolves the same way as when the files were read one
+     * after another.
+     */
+    private void loadUserFiles() {
+        CompletableFuture<List<User>> customers = CompletableFuture.supplyAsync(
+                () -> readUserFile(CUSTOMERS_FILE, "customers", r -> {
+                    Customer c = new Customer(r.field(0), r.field(1), r.field(2), r.field(3), r.field(4));
+                    // optional address column
+                    if (r.fieldCount() >= 6) {
+                        c.setAddress(Location.parse(r.field(5)));
+                    }
+                    return c;
+                }));
+
+        CompletableFuture<List<User>> drivers = CompletableFuture.supplyAsync(
+                () -> readUserFile(DRIVERS_FILE, "drivers", r -> {
+                    Driver d = new Driver(r.field(0), r.field(1), r.field(2), r.field(3), r.field(4));
+                    // optional ratings column
+                    if (r.fieldCount() >= 6) {
+                        d.loadRatingsFromString(r.field(5));
+                    }
+                    // optional position column
+                    if (r.fieldCount() >= 7) {
+                        d.setPosition(Location.parse(r.field(6)));
+                    }
+                    // optional capacity column
+                    if (r.fieldCount() >= 8) {
+                        d.setCapacity(parseCapacity(r.field(7)));
+                    }
+                    return d;
+                }));
+
+        List<User> admins = readUserFile(ADMINS_FILE, "admins", r -> new Admin(
+                r.field(0), r.field(1), r.field(2), r.field(3), r.field(4)));
+
+        for (List<User> loaded : List.of(admins, customers.join(), drivers.join())) {
+            for (User u : loaded) {
+                users.put(u.getUserName().toLowerCase(), u);
+            }
+        }
+    }
 
-                Customer c = new Customer(
-                        p[0].trim(), p[1].trim(), p[2].trim(),
-                        p[3].trim(), p[4].trim()
-                );
-                users.put(c.getUserName().toLowerCase(), c);
+    /**
+     * Reads one user file, one row per user; rows with fewer than five
+     * fields are skipped.
+     */
+    private List<User> readUserFile(String fileName, String label, Function<CsvReader, User> row) {
+        Path path = dataDir.resolve(fileName);
+        List<User> loaded = new ArrayList<>();
+        if (!Files.exists(path)) return loaded;
+
+        try (CsvReader r = CsvReader.open(path)) {
+            while (r.next()) {
+                if (r.fieldCount() < 5) continue;
+                loaded.add(row.apply(r));
             }
         } catch (IOException e) {
-            System.out.println("Error reading customers file.");
+            System.out.println("Error reading " + label + " file.");
         }
+        return loaded;
     }
 
-    private void loadDrivers() {
-        Path path = Paths.get(DRIVERS_FILE);
-        if (!Files.exists(path)) return;
+    /**
+     * Applies one journal record: type,username,password,name,phone,email,
+     * then the address for a customer, or the ratings, position and
+     * capacity for a driver (older records stop earlier).
+     */
+    private void applyUserRecord(List<String> f) {
+        if (f.size() < 6) return;
+
+        User u;
+        switch (f.get(0)) {
+            case "ADMIN" -> u = new Admin(f.get(1), f.get(2), f.get(3), f.get(4), f.get(5));
+            case "CUSTOMER" -> {
+                Customer c = new Customer(f.get(1), f.get(2), f.get(3), f.get(4), f.get(5));
+                if (f.size() >= 7) {
+                    c.setAddress(Location.parse(f.get(6)));
+                }
+                u = c;
+            }
+            case "DRIVER" -> {
+                Driver d = new Driver(f.get(1), f.get(2), f.get(3), f.get(4), f.get(5));
+                if (f.size() >= 7) {
+                    d.loadRatingsFromString(f.get(6));
+                }
+                if (f.size() >= 8) {
+                    d.setPosition(Location.parse(f.get(7)));
+                }
+                if (f.size() >= 9) {
+                    d.setCapacity(parseCapacity(f.get(8)));
+                }
+                u = d;
+            }
+            default -> {
+                return;
+            }
+        }
+        users.put(u.getUserName().toLowerCase(), u);
+    }
 
-        try (BufferedReader br = Files.newBufferedReader(path)) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(",");
-                if (p.length < 5) continue;
+    /**
+     * Records a single user's current state. Costs the same no matter how
+     * many users exist; the snapshot files are rewritten in the background
+     * once enough records have piled up.
+     */
+    private void persistUser(User u) {
+        if (u instanceof Admin a) {
+            userJournal.append("ADMIN", a.getUserName(), a.getPassword(),
+                    a.getName(), a.getPhoneNumber(), a.getEmail());
+        } else if (u instanceof Customer c) {
+            userJournal.append("CUSTOMER", c.getUserName(), c.getPassword(),
+                    c.getName(), c.getPhoneNumber(), c.getEmail(), locationData(c.getAddress()));
+        } else if (u instanceof Driver d) {
+            userJournal.append("DRIVER", d.getUserName(), d.getPassword(),
+                    d.getName(), d.getPhoneNumber(), d.getEmail(), d.getRatingsData(),
+                    locationData(d.getPosition()), Integer.toString(d.getCapacity()));
+        }
 
-                Driver d = new Driver(
-                        p[0].trim(), p[1].trim(), p[2].trim(),
-                        p[3].trim(), p[4].trim()
-                );
+        userJournal.compactIfNeeded(users.size(), this::snapshotWriter);
+    }
 
-                // optional ratings column
-                if (p.length >= 6) {
-                    d.loadRatingsFromString(p[5].trim());
-                }
+    // ============================================================
+    // SNAPSHOTS
+    // ============================================================
 
-                users.put(d.getUserName().toLowerCase(), d);
+    /**
+     * Captures the state a snapshot needs and returns the job that writes
+     * it: the binary snapshot plus the CSV files, which stay current so
+     * they can still be loaded if the snapshot is ever lost.
+     *
+     * Runs while the user journal is locked, so every journal record
+     * already rotated aside is in the captured users. The order log
+     * offset is read before the orders are walked, so the orders written
+     * out are never older than the offset says.
+     */
+    private BooleanSupplier snapshotWriter() {
+        long logOffset = orderLog.size();
+        int nextOrderId = orderIdCounter.get();
+        MenuCatalog catalog = menu;
+        List<User> everyone = new ArrayList<>(users.values());
+        List<List<String>> lines = snapshotLines();
+
+        snapshotLogOffset = logOffset;
+        snapshotMenu = catalog;
+
+        return () -> {
+            long start = System.nanoTime();
+            Iterable<Order> orders = () -> allOrders.stream(null, 0, Integer.MAX_VALUE).iterator();
+            boolean binary = SystemSnapshot.write(dataDir.resolve(SNAPSHOT_FILE),
+                    everyone, catalog, nextOrderId, logOffset, orders);
+            boolean ok = writeUserSnapshot(lines) && binary;
+            metrics.snapshotWritten(start, ok);
+            return ok;
+        };
+    }
 
-                if (d.isAvailable()) {
-                    availableDrivers.add(d);
-                }
+    /**
+     * Starts a snapshot in the background unless nothing has changed
+     * since the last one (or one is already being written).
+     */
+    private void snapshotIfChanged() {
+        try {
+            if (userJournal.isEmpty() && menu == snapshotMenu
+                    && orderLog.size() == snapshotLogOffset) {
+                return;
             }
-        } catch (IOException e) {
-            System.out.println("Error reading drivers file.");
+            userJournal.compactNow(this::snapshotWriter);
+        } catch (RuntimeException e) {
+            System.out.println("Error taking snapshot: " + e.getMessage());
         }
     }
 
-    private void saveUsersToFiles() {
-        try (BufferedWriter adminOut = Files.newBufferedWriter(Paths.get(ADMINS_FILE));
-             BufferedWriter custOut = Files.newBufferedWriter(Paths.get(CUSTOMERS_FILE));
-             BufferedWriter driverOut = Files.newBufferedWriter(Paths.get(DRIVERS_FILE))) {
+    /**
+     * Renders every user as a snapshot line, grouped as admins, customers, drivers.
+     * Runs on the caller's thread so the background writer only sees immutable strings.
+     */
+    private List<List<String>> snapshotLines() {
+        List<String> admins = new ArrayList<>();
+        List<String> customers = new ArrayList<>();
+        List<String> drivers = new ArrayList<>();
+        StringBuilder line = new StringBuilder(128);
 
-            for (User u : users.values()) {
+        for (User u : users.values()) {
 
-                if (u instanceof Admin a) {
-                    adminOut.write(String.join(",",
-                            a.getUserName(),
-                            a.getPassword(),
-                            a.getName(),
-                            a.getPhoneNumber(),
-                            a.getEmail()));
-                    adminOut.newLine();
-                }
+            line.setLength(0);
+            appendCsv(line, u.getUserName(), u.getPassword(), u.getName(),
+                    u.getPhoneNumber(), u.getEmail());
 
-                else if (u instanceof Customer c) {
-                    custOut.write(String.join(",",
-                            c.getUserName(),
-                            c.getPassword(),
-                            c.getName(),
-                            c.getPhoneNumber(),
-                            c.getEmail()));
-                    custOut.newLine();
-                }
+            if (u instanceof Admin) {
+                admins.add(line.toString());
+            }
 
-                else if (u instanceof Driver d) {
-                    driverOut.write(String.join(",",
-                            d.getUserName(),
-                            d.getPassword(),
-                            d.getName(),
-                            d.getPhoneNumber(),
-                            d.getEmail(),
-                            d.getRatingsData()));   // ratings: "5;4;3"
-                    driverOut.newLine();
-                }
+            else if (u instanceof Customer c) {
+                line.append(',').append(locationData(c.getAddress()));   // address: "x;y"
+                customers.add(line.toString());
+            }
+
+            else if (u instanceof Driver d) {
+                line.append(',');
+                d.appendRatingsData(line);   // ratings: "5;4;3"
+                line.append(',').append(locationData(d.getPosition()));
+                line.append(',').append(d.getCapacity());
+                drivers.add(line.toString());
             }
+        }
+
+        return List.of(admins, customers, drivers);
+    }
+
+    /**
+     * The "x;y" column for a location, empty when it is unknown.
+     */
+    private static String locationData(Location l) {
+        return l == null ? "" : l.toString();
+    }
+
+    /**
+     * Reads a capacity column; anything unreadable falls back to the default.
+     */
+    private static int parseCapacity(String text) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            return Driver.DEFAULT_CAPACITY;
+        }
+    }
 
+    /**
+     * Appends the fields as one CSV row, quoting any that need it.
+     */
+    private static void appendCsv(StringBuilder line, String... fields) {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) line.append(',');
+            CsvFields.append(line, fields[i]);
+        }
+    }
+
+    private boolean writeUserSnapshot(List<List<String>> lines) {
+        try {
+            writeAtomically(dataDir.resolve(ADMINS_FILE), lines.get(0));
+            writeAtomically(dataDir.resolve(CUSTOMERS_FILE), lines.get(1));
+            writeAtomically(dataDir.resolve(DRIVERS_FILE), lines.get(2));
+            return true;
         } catch (IOException e) {
             System.out.println("Error saving users.");
+            return false;
         }
     }
 
+    /**
+     * Writes to a temp file and renames it over the target, so readers
+     * only ever see the old or the new file.
+     */
+    private static void writeAtomically(Path target, List<String> lines) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(tmp, lines);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
     // ============================================================
     // ORDER PROCESSING + PERSISTENCE
     // ============================================================
 
     public Order placeOrder(Customer c, List<MenuItem> items) {
-        Order o = new Order(orderIdCounter++, c, items);
-        pendingOrders.offer(o);
-        allOrders.put(o.getOrderId(), o);
-
-        appendOrderToLog(o);
-        tryAssignDrivers();
+        long start = System.nanoTime();
+        Order o = new Order(orderIdCounter.getAndIncrement(), c, items);
+        allOrders.add(o);
+        ordersByCustomer.add(c, o);
+        analytics.orderPlaced(o);
+
+        orderLog.placed(o);
+        if (dispatcher.orderPlaced(o) != null) {
+            recordAssignment(o);
+            metrics.orderAccepted(o.getPlacedNanos());
+        }
+        metrics.orderPlaced(start);
         return o;
     }
 
-    private void appendOrderToLog(Order o) {
-        String driver = (o.getDriver() == null)
-                ? ""
-                : o.getDriver().getUserName();
+    /**
+     * Places a burst of orders at once: the IDs are taken as one block,
+     * the whole batch is dispatched in a single pass, and every PLACED and
+     * ASSIGNED event goes to the log in a single write. Returns the orders
+     * in request order.
+     */
+    public List<Order> placeOrders(List<OrderRequest> requests) {
+        if (requests.isEmpty()) return List.of();
+
+        int firstId = orderIdCounter.getAndAdd(requests.size());
+        List<Order> orders = new ArrayList<>(requests.size());
+        for (OrderRequest r : requests) {
+            Order o = new Order(firstId + orders.size(), r.customer(), r.items());
+            allOrders.add(o);
+            ordersByCustomer.add(r.customer(), o);
+            analytics.orderPlaced(o);
+            orders.add(o);
+        }
+
+        // Holding the log keeps other threads from logging an assignment of
+        // one of these orders before its PLACED line has been written
+        List<Order> assigned;
+        synchronized (orderLog) {
+            assigned = dispatcher.ordersPlaced(orders);
+            orderLog.placed(orders, assigned);
+        }
 
-        String line = o.getOrderId() + "," +
-                o.getCustomer().getUserName() + "," +
-                driver + "," +
-                o.getStatus() + "," +
-                o.totalPrice();
+        for (Order o : assigned) {
+            synchronized (o) {
+                indexAssignment(o);
+                armSla(o);
+            }
+            metrics.orderAccepted(o.getPlacedNanos());
+        }
+        metrics.ordersPlaced(orders.size());
+        return orders;
+    }
 
-        try (BufferedWriter bw = Files.newBufferedWriter(
-                Paths.get(ORDERS_FILE),
-                StandardOpenOption.CREATE,
-                StandardOpenOption.APPEND)) {
+    /**
+     * Rebuilds orders, the pending queue, driver availability and the
+     * ID counter from the snapshot (if any) and the order event log, then
+     * opens the log for appending. Only the events after the snapshot are
+     * replayed. Returns true if there were any.
+     */
+    private boolean replayOrderLog(SystemSnapshot snapshot) {
+        Map<Integer, Order> waiting = new LinkedHashMap<>();
+        Set<Order> untimed = new HashSet<>();
+        long from = 0;
+
+        if (snapshot != null && snapshot.getOrderLogOffset() <= orderLog.size()) {
+            restoreOrders(snapshot, waiting, untimed);
+            from = snapshot.getOrderLogOffset();
+        } else if (snapshot != null) {
+            System.out.println("Order log is shorter than the snapshot expects. Replaying all of it.");
+        }
 
-            bw.write(line);
-            bw.newLine();
+        orderLog.replay(new OrderEventLog.Handler() {
+            @Override
+            public void placed(int id, long time, String customer, List<MenuItem> items) {
+                orderIdCounter.accumulateAndGet(id + 1, Math::max);
+                // The snapshot may already hold orders placed just after its
+                // offset, and the archive orders from before it
+                if (allOrders.get(id) != null || archive.contains(id)) return;
+                if (!(users.get(customer.toLowerCase()) instanceof Customer c)) return;
+
+                Order o = new Order(id, c, items);
+                o.restoreStatusTime(OrderStatus.PLACED, time);
+                allOrders.add(o);
+                ordersByCustomer.add(c, o);
+                analytics.orderPlaced(o);
+                waiting.put(id, o);
+            }
 
+            @Override
+            public void assigned(int id, long time, String driver) {
+                Order o = allOrders.get(id);
+                if (o == null || !(users.get(driver.toLowerCase()) instanceof Driver d)) return;
+                if (!advances(o, OrderStatus.ACCEPTED, time, !untimed.contains(o))) return;
+
+                // Normally PLACED; ACCEPTED if the snapshot holds an earlier driver
+                OrderStatus previous = o.getStatus();
+                o.assignDriver(d);
+                o.restoreStatusTime(OrderStatus.ACCEPTED, time);
+                if (previous == OrderStatus.PLACED) {
+                    indexAssignment(o);
+                } else {
+                    indexStatusChange(o, previous);
+                }
+                waiting.remove(id);
+            }
+
+            @Override
+            public void status(int id, long time, OrderStatus status) {
+                Order o = allOrders.get(id);
+                if (o == null) return;
+
+                if (!advances(o, status, time, !untimed.contains(o))) return;
+
+                OrderStatus previous = o.getStatus();
+                if (status == OrderStatus.PLACED) {
+                    // Taken off its driver; an ASSIGNED line follows if it got another
+                    Driver old = o.getDriver();
+                    if (old == null) return;
+                    o.unassignDriver();
+                    indexRequeue(o, old, previous);
+                    old.setAvailable(true);
+                    waiting.put(id, o);
+                    return;
+                }
+
+                // An order is only ever delivered once, however often the log says so
+                boolean firstDelivery = o.getStatusTime(OrderStatus.DELIVERED) == 0;
+                // Its driver was lost on restore; it waits for a new one instead
+                if (status == OrderStatus.IN_PROGRESS && o.getDriver() == null) return;
+
+                o.updateStatus(status);
+                o.restoreStatusTime(status, time);
+                indexStatusChange(o, previous);
+                if (status == OrderStatus.DELIVERED && previous != OrderStatus.DELIVERED) {
+                    if (firstDelivery) analytics.orderDelivered(o);
+                    if (o.getDriver() != null) o.getDriver().setAvailable(true);
+                }
+            }
+
+            @Override
+            public void legacy(int id) {
+                orderIdCounter.accumulateAndGet(id + 1, Math::max);
+            }
+        }, from);
+        boolean replayed = orderLog.size() > from;
+
+        // Rebuild every driver's route from the orders still with them
+        Stream.concat(allOrders.stream(OrderStatus.ACCEPTED, 0, Integer.MAX_VALUE),
+                        allOrders.stream(OrderStatus.IN_PROGRESS, 0, Integer.MAX_VALUE))
+                .sorted(Comparator.comparingInt(Order::getOrderId))
+                .forEach(o -> {
+                    dispatcher.stopRestored(o);
+                    // Orders already overdue come due on the first tick
+                    synchronized (o) {
+                        armSla(o);
+                    }
+                });
+
+        try {
+            orderLog.open();
         } catch (IOException e) {
-            System.out.println("Error writing order log.");
+            System.out.println("Error opening order log.");
         }
-    }
 
-    private void tryAssignDrivers() {
-        Queue<Order> remaining = new LinkedList<>();
+        // Orders still waiting are matched against whoever is free now
+        for (Order o : waiting.values()) {
+            if (dispatcher.orderPlaced(o) != null) {
+                recordAssignment(o);
+            }
+        }
+        return replayed;
+    }
 
-        while (!pendingOrders.isEmpty()) {
-            Order o = pendingOrders.poll();
-            Driver best = availableDrivers.poll();
+    /**
+     * Whether a replayed event moves the order on from where it is. The
+     * snapshot is taken after its log offset is read, so it may already
+     * hold the first events after the offset; those must not be applied
+     * twice, or an order would go back to an earlier status. Events are
+     * compared by time, and by status at the same millisecond. A requeue
+     * counts if it is not older than the current assignment. Orders from
+     * snapshots without times can only be compared by status.
+     */
+    private static boolean advances(Order o, OrderStatus target, long time, boolean timed) {
+        long since = o.getStatusSince();
+        if (target == OrderStatus.PLACED) {
+            return !timed || time >= since;
+        }
+        if (timed && time != since) {
+            return time > since;
+        }
+        return target.ordinal() > o.getStatus().ordinal();
+    }
 
-            if (best != null) {
-                o.assignDriver(best);
-                appendOrderToLog(o);
-            } else {
-                remaining.offer(o);
+    /**
+     * Installs the orders held in a snapshot. A driver is busy exactly
+     * when one of their orders is still ACCEPTED or IN_PROGRESS. Orders
+     * stored without times are added to untimed.
+     */
+    private void restoreOrders(SystemSnapshot snapshot, Map<Integer, Order> waiting, Set<Order> untimed) {
+        orderIdCounter.accumulateAndGet(snapshot.getNextOrderId(), Math::max);
+        Set<Driver> seen = new HashSet<>();
+        Set<Driver> busy = new HashSet<>();
+
+        snapshot.readOrders((id, status, placedAt, statusAt, customer, driver, items) -> {
+            orderIdCounter.accumulateAndGet(id + 1, Math::max);
+            if (!(users.get(customer.toLowerCase()) instanceof Customer c)) return;
+            // Archived after the snapshot was taken
+            if (status == OrderStatus.DELIVERED && archive.contains(id)) return;
+
+            Order o = new Order(id, c, items);
+            Driver d = (driver != null && status != OrderStatus.PLACED
+                    && users.get(driver.toLowerCase()) instanceof Driver dd) ? dd : null;
+            // An open order whose driver is gone goes back in the queue
+            OrderStatus restored = (d == null && Driver.OPEN_STATUSES.contains(status)) ? OrderStatus.PLACED : status;
+            if (d != null) {
+                o.assignDriver(d);
+                seen.add(d);
+                if (Driver.OPEN_STATUSES.contains(status)) busy.add(d);
             }
+            o.updateStatus(restored);
+            if (placedAt > 0) o.restoreStatusTime(OrderStatus.PLACED, placedAt);
+            if (statusAt > 0 && restored == status) o.restoreStatusTime(status, statusAt);
+            if (statusAt == 0) untimed.add(o);
+
+            allOrders.add(o);
+            ordersByCustomer.add(c, o);
+            if (d != null) ordersByDriver.add(d, o);
+            analytics.orderRestored(o);
+            if (restored == OrderStatus.PLACED) waiting.put(id, o);
+        });
+
+        for (Driver d : seen) {
+            d.setAvailable(!busy.contains(d));
+        }
+    }
+
+    /**
+     * Hands a driver who just became free the oldest waiting order,
+     * or returns them to the pool of available drivers.
+     */
+    private void freeDriver(Driver d) {
+        Order next = dispatcher.driverFreed(d);
+        if (next != null) {
+            recordAssignment(next);
+            metrics.orderAccepted(next.getPlacedNanos());
         }
+    }
 
-        pendingOrders.addAll(remaining);
+    /**
+     * Frees the delivered (or released) order's slot on its driver. The
+     * driver may get a waiting order straight away, or go back to the pool
+     * once they have nothing left to deliver.
+     */
+    private void releaseSlot(Order delivered) {
+        Order next = dispatcher.orderDelivered(delivered);
+        if (next != null) {
+            recordAssignment(next);
+            metrics.orderAccepted(next.getPlacedNanos());
+        }
     }
 
-    public void updateOrderStatus(Order o, OrderStatus status) {
-        o.updateStatus(status);
-        appendOrderToLog(o);
+    /**
+     * Logs and indexes an order the dispatcher just gave to a driver.
+     * The driver only sees the order once it is in the driver index.
+     */
+    private void recordAssignment(Order o) {
+        synchronized (o) {
+            orderLog.assigned(o);
+            indexAssignment(o);
+            armSla(o);
+        }
+    }
+
+    private void indexAssignment(Order o) {
+        allOrders.statusChanged(o, OrderStatus.PLACED);
+        analytics.statusChanged(OrderStatus.PLACED, OrderStatus.ACCEPTED);
+        ordersByCustomer.move(o.getCustomer(), o, OrderStatus.PLACED);
+        ordersByDriver.add(o.getDriver(), o);
+    }
+
+    private void indexStatusChange(Order o, OrderStatus previous) {
+        allOrders.statusChanged(o, previous);
+        analytics.statusChanged(previous, o.getStatus());
+        ordersByCustomer.move(o.getCustomer(), o, previous);
+        if (o.getDriver() != null) {
+            ordersByDriver.move(o.getDriver(), o, previous);
+        }
+    }
+
+    /**
+     * Re-files an order taken off its driver. It may already be with a
+     * new driver, who indexes it when their assignment is recorded.
+     */
+    private void indexRequeue(Order o, Driver old, OrderStatus previous) {
+        allOrders.statusChanged(o, previous);
+        analytics.statusChanged(previous, OrderStatus.PLACED);
+        ordersByCustomer.move(o.getCustomer(), o, previous);
+        ordersByDriver.remove(old, o, previous);
+    }
+
+    /**
+     * Moves an order on: ACCEPTED to IN_PROGRESS, or ACCEPTED or
+     * IN_PROGRESS to DELIVERED. Returns false, changing nothing, for any
+     * other move, e.g. an order delivered twice or taken off its driver
+     * in the meantime.
+     */
+    public boolean updateOrderStatus(Order o, OrderStatus status) {
+        OrderStatus previous;
+        boolean firstDelivery;
+        synchronized (o) {
+            previous = o.getStatus();
+            if (!canMove(previous, status)) return false;
+            firstDelivery = o.getStatusTime(OrderStatus.DELIVERED) == 0;
+            o.updateStatus(status);
+            indexStatusChange(o, previous);
+            orderLog.status(o);
+            armSla(o);
+        }
 
         // When delivered, driver becomes available again
         if (status == OrderStatus.DELIVERED) {
+            if (firstDelivery) analytics.orderDelivered(o);
+            flaggedOrders.remove(o.getOrderId());
+            metrics.orderDelivered();
             Driver d = o.getDriver();
             if (d != null) {
-                d.setAvailable(true);
-                availableDrivers.add(d);
+                // The driver is now wherever the order was delivered
+                Location address = o.getCustomer().getAddress();
+                if (address != null) dispatcher.driverMoved(d, address);
+                releaseSlot(o);
             }
         }
+        return true;
     }
 
+    private static boolean canMove(OrderStatus from, OrderStatus to) {
+        return switch (to) {
+            case IN_PROGRESS -> from == OrderStatus.ACCEPTED;
+            case DELIVERED -> from == OrderStatus.ACCEPTED || from == OrderStatus.IN_PROGRESS;
+            default -> false;
+        };
+    }
+
+    /**
+     * Copies every order, archived ones included, into a new list. Prefer
+     * {@link #streamOrders}, which only touches the page being read.
+     */
     public List<Order> getAllOrders() {
-        return new ArrayList<>(allOrders.values());
+        return streamOrders(null, 0, Integer.MAX_VALUE).toList();
+    }
+
+    /**
+     * Pages through orders in ID order without materializing the full history.
+     * Archived orders are read back as the page reaches them.
+     *
+     * @param status only orders in this status, or every order if null
+     * @param fromId first order ID to include (pass the last ID seen + 1 to continue)
+     * @param limit  maximum number of orders returned
+     */
+    public Stream<Order> streamOrders(OrderStatus status, int fromId, int limit) {
+        if (archive.size() == 0 || (status != null && status != OrderStatus.DELIVERED)) {
+            return allOrders.stream(status, fromId, limit);
+        }
+
+        Iterator<Order> merged = archive.merge(allOrders.stream(status, fromId, Integer.MAX_VALUE).iterator(), fromId);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).limit(limit);
+    }
+
+    /**
+     * Number of orders in a status, or of all orders if status is null.
+     */
+    public int countOrders(OrderStatus status) {
+        int archived = (status == null || status == OrderStatus.DELIVERED) ? archive.size() : 0;
+        return archived + (status == null ? allOrders.size() : allOrders.count(status));
+    }
+
+    /**
+     * Looks up an order by ID, reading it back from the archive if it was
+     * moved there, or returns null if there is none.
+     */
+    public Order getOrder(int id) {
+        Order o = allOrders.get(id);
+        return o != null ? o : archive.get(id);
+    }
+
+    /**
+     * Counters and latency histograms, also published over JMX.
+     */
+    public DeliveryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Revenue, order and delivery totals, kept up to date as orders move.
+     */
+    public OrderAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    /**
+     * Reports that scan the full order history, for questions the running
+     * totals cannot answer. Each takes a while on a big log.
+     */
+    public OrderLogReports getLogReports() {
+        return logReports;
+    }
+
+    /**
+     * Orders waiting for a free driver.
+     */
+    public int getPendingOrderCount() {
+        return dispatcher.pendingCount();
+    }
+
+    /**
+     * Drivers free to take an order right now.
+     */
+    public int getAvailableDriverCount() {
+        return dispatcher.availableCount();
+    }
+
+    /**
+     * The orders a driver is carrying, in the order they should be
+     * delivered.
+     */
+    public List<Order> getDeliveryPlan(Driver d) {
+        return dispatcher.route(d);
+    }
+
+    /**
+     * Orders assigned to a driver whose status is in the filter
+     * (every status if the filter is null).
+     */
+    public List<Order> getOrdersForDriver(Driver d, Set<OrderStatus> statusFilter) {
+        return ordersByDriver.find(d, statusFilter);
+    }
+
+    /**
+     * Orders placed by a customer whose status is in the filter
+     * (every status if the filter is null).
+     */
+    public List<Order> getOrdersForCustomer(Customer c, Set<OrderStatus> statusFilter) {
+        return ordersByCustomer.find(c, statusFilter);
+    }
+
+    /**
+     * Looks up one of a driver's orders by ID, or null if the ID is unknown
+     * or belongs to a different driver.
+     */
+    public Order getOrderForDriver(Driver d, int id) {
+        return ordersByDriver.get(d, id);
     }
 
     // ============================================================
-    // DRIVER RATING
+    // DRIVER RATING + CAPACITY
     // ============================================================
 
     public void rateDriver(Driver d, int rating) {
-        d.addRating(rating);
+        dispatcher.rateDriver(d, rating);
+
+        persistUser(d);
+    }
 
-        if (d.isAvailable()) {
-            availableDrivers.remove(d);
-            availableDrivers.add(d);
+    /**
+     * Sets how many orders a driver can carry at once; nearby orders are
+     * stacked onto them up to that many.
+     */
+    public void setDriverCapacity(Driver d, int capacity) {
+        dispatcher.setCapacity(d, capacity);
+        persistUser(d);
+    }
+
+    // ============================================================
+    // LOCATIONS
+    // ============================================================
+
+    /**
+     * Records where a driver is now. A free driver is re-filed in the
+     * dispatcher's grid so the next nearby order finds them there.
+     */
+    public void updateDriverPosition(Driver d, Location position) {
+        dispatcher.driverMoved(d, position);
+        persistUser(d);
+    }
+
+    public void updateCustomerAddress(Customer c, Location address) {
+        c.setAddress(address);
+        persistUser(c);
+    }
+
+    /**
+     * Sets how many kilometres of extra distance one missing rating star
+     * is worth when choosing a driver for an order with an address. Zero
+     * makes the rating a tie-breaker only.
+     */
+    public void setRatingWeight(double kmPerStar) {
+        dispatcher.setRatingWeight(kmPerStar);
+    }
+
+    // ============================================================
+    // ARCHIVE
+    // ============================================================
+
+    /**
+     * Sets how long after delivery an order is moved out of memory into
+     * the archive. Archived orders can still be looked up by ID and show
+     * up in {@link #streamOrders}, but leave the per-customer and
+     * per-driver lists. Null stops archiving.
+     */
+    public void setArchiveAfter(Duration after) {
+        archiveAfter = after;
+    }
+
+    /**
+     * Moves every order delivered longer ago than the archive threshold
+     * to the archive now, and returns how many moved. Waits for a sweep
+     * already running, e.g. the timer's.
+     */
+    public int archiveDeliveredOrders() {
+        Duration after = archiveAfter;
+        if (after == null) return 0;
+
+        synchronized (archiveSweep) {
+            long cutoff = System.currentTimeMillis() - after.toMillis();
+            List<Order> old = allOrders.stream(OrderStatus.DELIVERED, 0, Integer.MAX_VALUE)
+                    .filter(o -> o.getStatusSince() < cutoff)
+                    .toList();
+            if (old.isEmpty() || !archive.append(old)) return 0;
+
+            // Only now that they are safely on disk
+            for (Order o : old) {
+                allOrders.remove(o);
+                ordersByCustomer.remove(o.getCustomer(), o, OrderStatus.DELIVERED);
+                if (o.getDriver() != null) ordersByDriver.remove(o.getDriver(), o, OrderStatus.DELIVERED);
+            }
+            return old.size();
+        }
+    }
+
+    private void archiveIfDue() {
+        try {
+            archiveDeliveredOrders();
+        } catch (RuntimeException e) {
+            System.out.println("Error archiving orders: " + e.getMessage());
         }
+    }
+
+    // ============================================================
+    // BATCH DISPATCH
+    // ============================================================
+
+    /**
+     * Switches to batch dispatch: orders wait, and every tick everything
+     * waiting is matched with the free drivers for the lowest total cost
+     * under the scorer (see {@link AssignmentScorer#distanceAndRating}).
+     * A null tick switches back to matching each order as it comes in,
+     * the default, and matches whatever is waiting straight away.
+     */
+    public void setBatchDispatch(Duration tick, AssignmentScorer scorer) {
+        synchronized (batchTimer) {
+            if (batchTick != null) {
+                batchTick.cancel(false);
+                batchTick = null;
+            }
 
-        saveUsersToFiles();
+            if (tick == null) {
+                recordAssignments(dispatcher.setBatchMode(false));
+                return;
+            }
+
+            dispatcher.setBatchMode(true);
+            long millis = Math.max(1, tick.toMillis());
+            batchTick = batchTimer.scheduleWithFixedDelay(() -> {
+                try {
+                    dispatchPendingOrders(scorer);
+                } catch (RuntimeException e) {
+                    System.out.println("Error in batch dispatch: " + e.getMessage());
+                }
+            }, millis, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs one batch now: matches the waiting orders with the free
+     * drivers for the lowest total cost under the scorer. Works whether
+     * or not batch dispatch is on. Returns the orders that got a driver.
+     */
+    public List<Order> dispatchPendingOrders(AssignmentScorer scorer) {
+        List<Order> assigned = dispatcher.dispatchBatch(scorer);
+        recordAssignments(assigned);
+        return assigned;
+    }
+
+    private void recordAssignments(List<Order> assigned) {
+        for (Order o : assigned) {
+            recordAssignment(o);
+            metrics.orderAccepted(o.getPlacedNanos());
+        }
+    }
+
+    // ============================================================
+    // SLA TIMERS
+    // ============================================================
+
+    /**
+     * Sets how long orders may stay accepted or in progress and what
+     * happens when they stay longer. Applies to orders already open too,
+     * counting from when they entered their status.
+     */
+    public void setSlaPolicy(SlaPolicy policy) {
+        slaPolicy = policy;
+        Stream.concat(allOrders.stream(OrderStatus.ACCEPTED, 0, Integer.MAX_VALUE),
+                        allOrders.stream(OrderStatus.IN_PROGRESS, 0, Integer.MAX_VALUE))
+                .forEach(o -> {
+                    synchronized (o) {
+                        armSla(o);
+                    }
+                });
+    }
+
+    public SlaPolicy getSlaPolicy() {
+        return slaPolicy;
+    }
+
+    /**
+     * Orders that ran over their SLA and were flagged, in ID order. They
+     * stay listed until delivered or re-queued.
+     */
+    public List<Order> getFlaggedOrders() {
+        return new ArrayList<>(flaggedOrders.values());
+    }
+
+    /**
+     * Takes an accepted or in-progress order off its driver and dispatches
+     * it again, e.g. after it was flagged. Returns false if the order is
+     * not with a driver.
+     */
+    public boolean requeueOrder(Order o) {
+        List<Order> assigned;
+        synchronized (o) {
+            if (o.getDriver() == null || !Driver.OPEN_STATUSES.contains(o.getStatus())) return false;
+            assigned = takeFromDriver(o);
+        }
+        recordRequeue(o, assigned);
+        return true;
+    }
+
+    /**
+     * Cancels the order's SLA timer and starts one for its current status,
+     * if the policy has a rule for it. Caller holds the order's monitor.
+     */
+    private void armSla(Order o) {
+        slaTimers.cancel(o.getSlaTimer());
+        SlaPolicy.Rule rule = slaPolicy.rule(o.getStatus());
+        o.setSlaTimer(rule == null ? null
+                : slaTimers.schedule(o, o.getStatusSince() + rule.limit().toMillis()));
+    }
+
+    /**
+     * Moves the SLA clock to now and handles every order that came due.
+     */
+    private void checkSlas() {
+        try {
+            long now = System.currentTimeMillis();
+            for (Order o : slaTimers.advance(now)) {
+                slaExpired(o, now);
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Error checking SLAs: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies the policy to an order whose timer fired. The order may have
+     * moved on, or the policy changed, since the timer was set, so the
+     * deadline is checked again against the current state.
+     */
+    private void slaExpired(Order o, long now) {
+        List<Order> assigned = null;
+        boolean release = false;
+
+        synchronized (o) {
+            SlaPolicy.Rule rule = slaPolicy.rule(o.getStatus());
+            if (rule == null || now < o.getStatusSince() + rule.limit().toMillis()) return;
+
+            metrics.slaBreached();
+            o.setSlaTimer(null);
+            switch (rule.action()) {
+                case FLAG -> flaggedOrders.put(o.getOrderId(), o);
+                case REASSIGN -> assigned = takeFromDriver(o);
+                case RELEASE_DRIVER -> {
+                    flaggedOrders.put(o.getOrderId(), o);
+                    release = true;
+                }
+            }
+        }
+
+        if (assigned != null) recordRequeue(o, assigned);
+        // The order stays with the driver for the record, but off their route
+        if (release) releaseSlot(o);
+    }
+
+    /**
+     * Takes an order off its driver and logs and indexes the move. Returns
+     * the orders assigned as a result, for {@link #recordRequeue}. Caller
+     * holds the order's monitor, so whoever picks it up from the queue
+     * logs its assignment only after the re-queue.
+     *
+     * Takes the log before the dispatcher, in the same order as
+     * placeOrders, so the two cannot deadlock.
+     */
+    private List<Order> takeFromDriver(Order o) {
+        Driver old = o.getDriver();
+        OrderStatus previous = o.getStatus();
+
+        List<Order> assigned;
+        synchronized (orderLog) {
+            assigned = dispatcher.reassign(o);
+            orderLog.requeued(o);
+        }
+        indexRequeue(o, old, previous);
+        flaggedOrders.remove(o.getOrderId());
+        armSla(o);
+        return assigned;
+    }
+
+    /**
+     * Logs and indexes what a re-queue assigned. Only orders that had been
+     * waiting count as newly accepted.
+     */
+    private void recordRequeue(Order requeued, List<Order> assigned) {
+        for (Order o : assigned) {
+            recordAssignment(o);
+            if (o != requeued) metrics.orderAccepted(o.getPlacedNanos());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,632 @@
+package deliveryApp.core;
+
+import deliveryApp.orders.Order;
+import deliveryApp.orders.OrderStatus;
+import deliveryApp.users.Driver;
+import deliveryApp.users.Location;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Matches pending orders with free drivers one event at a time.
+ *
+ * At rest there are never both waiting orders and free drivers, so each
+ * event only has to look at one side: a new order checks for the best
+ * free driver, and a freed driver takes the oldest waiting order.
+ *
+ * Free drivers are kept twice: in a heap by rating, and, if their
+ * position is known, in a grid by position. An order with a delivery
+ * address goes to the free driver with the lowest cost, which is the
+ * distance plus a penalty per star short of a top rating; otherwise it
+ * goes to the best-rated driver. Taking a driver removes them from both.
+ * Heap events are O(log n) and grid searches only look at the cells
+ * around the address; neither allocates.
+ *
+ * A driver who is out can carry more orders, up to their capacity. Each
+ * driver's orders form a {@link DeliveryRoute}, and drivers with room
+ * left are kept in a second grid by their last drop-off. An order whose
+ * address is within {@link #STACK_RADIUS_KM} of such a drop-off can be
+ * stacked onto that driver, costed like a free driver with the leg from
+ * that drop-off as the distance; it goes to whichever is cheaper. Each
+ * delivery frees one slot, and the driver only becomes free once the
+ * route is empty.
+ *
+ * An order can also be taken off its driver and dispatched again (see
+ * {@link #reassign}), e.g. when the driver has not picked it up in time.
+ *
+ * In batch mode new orders and freed drivers just wait, and
+ * {@link #dispatchBatch} matches everyone waiting at once for the lowest
+ * total cost, which under a surge beats taking orders one by one.
+ *
+ * One lock guards the queue, the heap and the grid. It is held only for
+ * the match itself; logging and indexing happen after it is released.
+ */
+class Dispatcher {
+
+    // Side of one grid cell, about a city block
+    private static final double GRID_CELL_KM = 0.1;
+
+    // The rating a driver is measured against for the penalty
+    private static final double TOP_RATING = 5.0;
+
+    /** How close a drop-off has to be to a driver's last one to be stacked onto them. */
+    static final double STACK_RADIUS_KM = 1.0;
+
+    /** Kilometres of extra distance one missing rating star is worth by default. */
+    static final double DEFAULT_RATING_WEIGHT_KM = 0.5;
+
+    // Up to this many order-driver pairs, a batch scores every pair
+    private static final int DENSE_PAIRS = 100_000;
+
+    // Above it, each order is offered this many of the nearest drivers
+    // and this many of the best-rated ones
+    private static final int CANDIDATES = 8;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Lets one batch at a time run its solve outside the main lock
+    private final ReentrantLock batchLock = new ReentrantLock();
+    private boolean batchMode;
+
+    private final ArrayDeque<Order> pendingOrders = new ArrayDeque<>();
+    private final DriverHeap availableDrivers = new DriverHeap();
+
+    private final DriverGrid nearbyDrivers = new DriverGrid(GRID_CELL_KM);
+    private volatile double ratingWeightKm = DEFAULT_RATING_WEIGHT_KM;
+
+    private final DriverGrid.Cost cost = (d, distanceKm) ->
+            distanceKm + ratingWeightKm * Math.max(0, TOP_RATING - d.getRatingScore());
+
+    // Routes of the drivers carrying orders, and those with room for more
+    // by their last drop-off
+    private final Map<Driver, DeliveryRoute> routes = new IdentityHashMap<>();
+    private final DriverGrid stackingDrivers = new DriverGrid(GRID_CELL_KM, this::lastDropOff);
+
+    private final DriverGrid.Cost stackCost = (d, distanceKm) ->
+            distanceKm <= STACK_RADIUS_KM ? cost.of(d, distanceKm) : Double.POSITIVE_INFINITY;
+
+    /**
+     * Assigns the order to the best free driver, or stacks it onto a driver
+     * already out nearby, or queues it. Returns the assigned driver, or
+     * null if the order is waiting.
+     */
+    Driver orderPlaced(Order o) {
+        lock.lock();
+        try {
+            Driver best = batchMode ? null : takeDriverFor(o);
+
+            if (best == null) {
+                pendingOrders.offer(o);
+                return null;
+            }
+
+            assign(o, best);
+            return best;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Dispatches a batch of new orders under one lock acquisition, oldest
+     * first. Returns the orders that were assigned; the rest are queued.
+     */
+    List<Order> ordersPlaced(List<Order> orders) {
+        List<Order> assigned = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Order o : orders) {
+                Driver best = batchMode ? null : takeDriverFor(o);
+
+                if (best == null) {
+                    pendingOrders.offer(o);
+                } else {
+                    assign(o, best);
+                    assigned.add(o);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return assigned;
+    }
+
+    /**
+     * Gives a newly free driver the oldest waiting order, or puts the
+     * driver back in the pool. Returns the assigned order, or null.
+     */
+    Order driverFreed(Driver d) {
+        lock.lock();
+        try {
+            return free(d);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the driver's slot for a delivered order, or one the driver
+     * is let off. A driver with nothing left is freed as by
+     * {@link #driverFreed}; one still out can take the oldest waiting
+     * order near their new last drop-off. Returns the order the driver was
+     * given, or null. Releasing the same order twice does nothing.
+     */
+    Order orderDelivered(Order o) {
+        Driver d = o.getDriver();
+        lock.lock();
+        try {
+            DeliveryRoute route = routes.get(d);
+            if (route == null) {
+                return availableDrivers.contains(d) ? null : free(d);
+            }
+            return dropStop(d, route, o) ? refill(d, route) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes an order off its driver and gives it to the best other driver,
+     * or queues it again ahead of everything else. If the order was still
+     * on the old driver's route, its slot is released as for a delivery
+     * and the old driver is passed over for it. Returns the orders that were assigned: this one unless it is waiting
+     * again, and any the old driver took instead.
+     *
+     * The caller holds the order's monitor and has checked that it is
+     * with a driver.
+     */
+    List<Order> reassign(Order o) {
+        List<Order> assigned = new ArrayList<>(2);
+        Driver old = o.getDriver();
+        lock.lock();
+        try {
+            DeliveryRoute route = routes.get(old);
+            boolean dropped = route != null && dropStop(old, route, o);
+            o.unassignDriver();
+
+            // The old driver is in neither pool while their stop is gone
+            Driver next = batchMode ? null : takeDriverFor(o);
+            if (next != null) {
+                assign(o, next);
+                assigned.add(o);
+            }
+
+            if (dropped) {
+                Order other = refill(old, route);
+                if (other != null) assigned.add(other);
+            }
+            if (next == null) pendingOrders.addFirst(o);
+        } finally {
+            lock.unlock();
+        }
+        return assigned;
+    }
+
+    /**
+     * Puts an order that is already with its driver back on the driver's
+     * route, e.g. when replaying the log, and takes the driver out of the pool.
+     */
+    void stopRestored(Order o) {
+        Driver d = o.getDriver();
+        lock.lock();
+        try {
+            availableDrivers.remove(d);
+            nearbyDrivers.remove(d);
+            d.setAvailable(false);
+            addStop(o, d);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The orders a driver is carrying, in delivery order.
+     */
+    List<Order> route(Driver d) {
+        lock.lock();
+        try {
+            DeliveryRoute route = routes.get(d);
+            return route == null ? List.of() : route.stops();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Changes how many orders the driver can carry. Orders already on the
+     * route stay there even if the new capacity is lower.
+     */
+    void setCapacity(Driver d, int capacity) {
+        lock.lock();
+        try {
+            stackingDrivers.remove(d);
+            d.setCapacity(capacity);
+            DeliveryRoute route = routes.get(d);
+            if (route != null && route.size() < d.getCapacity()) {
+                stackingDrivers.add(d);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a rating and re-orders the driver if free. The rating changes
+     * the heap key, so it has to be applied while holding the lock.
+     */
+    void rateDriver(Driver d, int rating) {
+        lock.lock();
+        try {
+            d.addRating(rating);
+            availableDrivers.update(d);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves a driver, re-filing them in the grid if they are free.
+     */
+    void driverMoved(Driver d, Location to) {
+        lock.lock();
+        try {
+            boolean filed = nearbyDrivers.remove(d);
+            d.setPosition(to);
+            if (filed || availableDrivers.contains(d)) {
+                nearbyDrivers.add(d);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets how many kilometres of extra distance one missing rating star
+     * is worth. Zero makes the rating a tie-breaker only.
+     */
+    void setRatingWeight(double kmPerStar) {
+        ratingWeightKm = kmPerStar;
+    }
+
+    /**
+     * Picks the driver best suited to the order: the cheapest free driver,
+     * or a driver already out whose stack it fits for less. A free driver
+     * is taken out of the pool. Returns null if nobody can take it.
+     * Caller holds the lock.
+     */
+    private Driver takeDriverFor(Order o) {
+        Location to = o.getCustomer().getAddress();
+        Driver free = (to != null) ? nearbyDrivers.best(to, cost) : null;
+        if (free == null) free = availableDrivers.peek();
+
+        if (to != null) {
+            // A stack has to beat the free driver; one whose position is
+            // unknown does not count as near
+            double limit = STACK_RADIUS_KM + ratingWeightKm * TOP_RATING;
+            if (free != null && free.getPosition() != null) {
+                limit = Math.min(limit, cost.of(free, to.distanceTo(free.getPosition())));
+            }
+            Driver stacked = stackingDrivers.best(to, stackCost, limit);
+            if (stacked != null) return stacked;
+        }
+        if (free == null) return null;
+
+        availableDrivers.remove(free);
+        nearbyDrivers.remove(free);
+        return free;
+    }
+
+    /**
+     * Gives the driver an order and plans its stop. Caller holds the lock
+     * and has already taken a free driver out of the pool.
+     */
+    private void assign(Order o, Driver d) {
+        o.assignDriver(d);
+        addStop(o, d);
+    }
+
+    private void addStop(Order o, Driver d) {
+        stackingDrivers.remove(d);
+        DeliveryRoute route = routes.computeIfAbsent(d, k -> new DeliveryRoute());
+        route.add(o, d.getPosition());
+        if (route.size() < d.getCapacity()) stackingDrivers.add(d);
+    }
+
+    /**
+     * Takes the order off the driver's route. Returns false, leaving the
+     * route as it was, if it was not on it. Caller holds the lock.
+     */
+    private boolean dropStop(Driver d, DeliveryRoute route, Order o) {
+        // The grid files the driver by their last drop-off, which may change
+        stackingDrivers.remove(d);
+        boolean removed = route.remove(o);
+        if (!removed && route.size() < d.getCapacity()) stackingDrivers.add(d);
+        return removed;
+    }
+
+    /**
+     * After a stop was dropped, frees a driver with nothing left, or gives
+     * one still out a waiting order near their last drop-off, or files
+     * them as having room. Returns the order they were given, or null.
+     * Caller holds the lock.
+     */
+    private Order refill(Driver d, DeliveryRoute route) {
+        if (route.isEmpty()) {
+            routes.remove(d);
+            return free(d);
+        }
+
+        Order next = batchMode ? null : takeWaitingOrderNear(route.lastDropOff());
+        if (next != null) {
+            assign(next, d);
+        } else if (route.size() < d.getCapacity()) {
+            stackingDrivers.add(d);
+        }
+        return next;
+    }
+
+    /**
+     * Returns a driver with an empty route to the pool, or gives them the
+     * oldest waiting order. Caller holds the lock.
+     */
+    private Order free(Driver d) {
+        Order next = batchMode ? null : pendingOrders.poll();
+
+        if (next == null) {
+            d.setAvailable(true);
+            availableDrivers.add(d);
+            nearbyDrivers.add(d);
+            return null;
+        }
+
+        assign(next, d);
+        return next;
+    }
+
+    /**
+     * Removes and returns the oldest waiting order to be delivered within
+     * the stacking radius of a drop-off, or null. Caller holds the lock.
+     */
+    private Order takeWaitingOrderNear(Location dropOff) {
+        if (dropOff == null) return null;
+
+        for (Iterator<Order> it = pendingOrders.iterator(); it.hasNext(); ) {
+            Order o = it.next();
+            Location to = o.getCustomer().getAddress();
+            if (to != null && to.distanceTo(dropOff) <= STACK_RADIUS_KM) {
+                it.remove();
+                return o;
+            }
+        }
+        return null;
+    }
+
+    private Location lastDropOff(Driver d) {
+        DeliveryRoute route = routes.get(d);
+        return route == null ? null : route.lastDropOff();
+    }
+
+    // ============================================================
+    // BATCH DISPATCH
+    // ============================================================
+
+    /**
+     * Switches between matching on every event and leaving it to
+     * {@link #dispatchBatch}. Switching batch mode off matches whatever is
+     * waiting straight away, oldest order first, and returns the orders
+     * that got a driver.
+     */
+    List<Order> setBatchMode(boolean on) {
+        List<Order> assigned = new ArrayList<>();
+        batchLock.lock();
+        lock.lock();
+        try {
+            batchMode = on;
+            while (!on && !pendingOrders.isEmpty()) {
+                Driver d = takeDriverFor(pendingOrders.peek());
+                if (d == null) break;
+
+                Order o = pendingOrders.poll();
+                assign(o, d);
+                assigned.add(o);
+            }
+        } finally {
+            lock.unlock();
+            batchLock.unlock();
+        }
+        return assigned;
+    }
+
+    /**
+     * Matches the waiting orders with the free drivers for the lowest
+     * total cost under the scorer and returns the orders it assigned,
+     * oldest first. Orders left without a driver stay queued in order;
+     * when drivers are short, older orders win.
+     *
+     * The batch is copied under the lock, solved without it and applied
+     * under it again, skipping orders and drivers taken in the meantime,
+     * so new orders and freed drivers are not held up by the solve. Small
+     * batches score every pair; larger ones offer each order only its
+     * nearest and the best-rated free drivers. Only free drivers take
+     * part; orders are not stacked in batch mode.
+     */
+    List<Order> dispatchBatch(AssignmentScorer scorer) {
+        batchLock.lock();
+        try {
+            Order[] orders;
+            Driver[] drivers;
+            int[][] candidates;
+
+            lock.lock();
+            try {
+                if (pendingOrders.isEmpty() || availableDrivers.isEmpty()) return new ArrayList<>();
+                orders = pendingOrders.toArray(new Order[0]);
+                drivers = availableDrivers.toArray();
+                candidates = candidatesFor(orders, drivers);
+            } finally {
+                lock.unlock();
+            }
+
+            int[] match = solve(orders, drivers, candidates, scorer);
+
+            List<Order> assigned = new ArrayList<>();
+            Set<Order> taken = Collections.newSetFromMap(new IdentityHashMap<>());
+            lock.lock();
+            try {
+                // Orders may have been handed out meanwhile, e.g. to a freed driver
+                Set<Order> waiting = Collections.newSetFromMap(new IdentityHashMap<>());
+                waiting.addAll(pendingOrders);
+
+                for (int i = 0; i < orders.length; i++) {
+                    if (match[i] < 0) continue;
+                    if (orders[i].getStatus() != OrderStatus.PLACED || !waiting.contains(orders[i])) continue;
+                    Driver d = drivers[match[i]];
+                    if (!availableDrivers.contains(d)) continue;
+
+                    availableDrivers.remove(d);
+                    nearbyDrivers.remove(d);
+                    assign(orders[i], d);
+                    assigned.add(orders[i]);
+                    taken.add(orders[i]);
+                }
+                pendingOrders.removeIf(taken::contains);
+            } finally {
+                lock.unlock();
+            }
+            return assigned;
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    /**
+     * Picks the drivers each order may get, as indexes into drivers, or
+     * returns null if the batch is small enough to try every pair. Caller
+     * holds the lock, so each driver's heap index is their index.
+     */
+    private int[][] candidatesFor(Order[] orders, Driver[] drivers) {
+        if ((long) orders.length * drivers.length <= DENSE_PAIRS) return null;
+
+        // The best-rated drivers, for orders without an address and as a
+        // fallback next to the nearest ones
+        int[] topRated = new int[Math.min(CANDIDATES, drivers.length)];
+        int top = 0;
+        for (int j = 0; j < drivers.length; j++) {
+            double score = drivers[j].getRatingScore();
+            if (top == topRated.length && score <= drivers[topRated[top - 1]].getRatingScore()) continue;
+
+            int i = (top < topRated.length) ? top++ : top - 1;
+            while (i > 0 && drivers[topRated[i - 1]].getRatingScore() < score) {
+                topRated[i] = topRated[i - 1];
+                i--;
+            }
+            topRated[i] = j;
+        }
+
+        int[][] candidates = new int[orders.length][];
+        Driver[] near = new Driver[CANDIDATES];
+        int[] row = new int[2 * CANDIDATES];
+        for (int i = 0; i < orders.length; i++) {
+            Location to = orders[i].getCustomer().getAddress();
+            int found = (to != null) ? nearbyDrivers.nearest(to, CANDIDATES, near) : 0;
+
+            int n = 0;
+            for (int k = 0; k < found; k++) {
+                row[n++] = near[k].getHeapIndex();
+            }
+            for (int j : topRated) {
+                if (!contains(row, n, j)) row[n++] = j;
+            }
+            candidates[i] = Arrays.copyOf(row, n);
+        }
+        return candidates;
+    }
+
+    private static boolean contains(int[] a, int n, int value) {
+        for (int i = 0; i < n; i++) {
+            if (a[i] == value) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Scores the candidate pairs (every pair if candidates is null) and
+     * solves the batch. Returns, per order, the index of its driver or -1.
+     */
+    private static int[] solve(Order[] orders, Driver[] drivers, int[][] candidates, AssignmentScorer scorer) {
+        int[][] pairs = new int[orders.length][];
+        double[][] costs = new double[orders.length][];
+        double worst = 0;
+
+        int[] row = new int[candidates == null ? drivers.length : 2 * CANDIDATES];
+        double[] rowCosts = new double[row.length];
+        for (int i = 0; i < orders.length; i++) {
+            int offered = (candidates == null) ? drivers.length : candidates[i].length;
+
+            // Keep only pairs the scorer allows
+            int n = 0;
+            for (int k = 0; k < offered; k++) {
+                int j = (candidates == null) ? k : candidates[i][k];
+                double c = scorer.cost(orders[i], drivers[j]);
+                if (!(c < Double.POSITIVE_INFINITY)) continue;
+
+                row[n] = j;
+                rowCosts[n++] = c;
+                worst = Math.max(worst, c);
+            }
+            pairs[i] = Arrays.copyOf(row, n);
+            costs[i] = Arrays.copyOf(rowCosts, n);
+        }
+
+        // Leaving an order waiting costs more than any pair, and more the
+        // older the order is, so the solve serves as many as it can and
+        // the oldest first
+        double[] leaveCost = new double[orders.length];
+        double base = worst + 1;
+        for (int i = 0; i < orders.length; i++) {
+            leaveCost[i] = base * (2 - (double) i / orders.length);
+        }
+
+        return AssignmentSolver.solve(drivers.length, pairs, costs, leaveCost);
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            pendingOrders.clear();
+            availableDrivers.clear();
+            nearbyDrivers.clear();
+            stackingDrivers.clear();
+            routes.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int pendingCount() {
+        lock.lock();
+        try {
+            return pendingOrders.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int availableCount() {
+        lock.lock();
+        try {
+            return availableDrivers.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package deliveryApp.core;
+
+import deliveryApp.users.Driver;
+import deliveryApp.users.Location;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Uniform grid of available drivers with a known position, for finding
+ * the best driver near a delivery address without looking at them all.
+ *
+ * The map is cut into square cells; a cell is created the first time a
+ * driver stands in it and found through a small open-addressing table
+ * keyed by its coordinates. A search walks square rings of cells outwards
+ * from the address and stops once no cell further out can beat the best
+ * driver found, so it touches only the drivers around the address. If
+ * the rings would cover more cells than exist, it scans every cell once
+ * instead, which bounds a search over a sparse map. The same walk finds
+ * the k nearest drivers, which batch dispatch uses as candidates.
+ *
+ * Each driver remembers its slot in its cell (see
+ * {@link Driver#getGridSlot()}), so adding and removing are O(1). The
+ * cell is derived from where the grid files the driver, normally their
+ * position, so a driver has to be removed before that changes and added
+ * again afterwards. There is only one slot per driver, so a driver may
+ * be in only one grid at a time.
+ */
+class DriverGrid {
+
+    /**
+     * Scores a candidate: lower is better. Must never be below the
+     * distance, since the search uses distance alone to stop early.
+     */
+    interface Cost {
+        double of(Driver d, double distanceKm);
+    }
+
+    private static final class Cell {
+        final int cx;
+        final int cy;
+        Driver[] drivers = new Driver[4];
+        int size;
+
+        Cell(int cx, int cy) {
+            this.cx = cx;
+            this.cy = cy;
+        }
+    }
+
+    private final double cellSize;
+
+    // Where a driver is filed; null means they cannot be
+    private final Function<Driver, Location> where;
+
+    // Open-addressing table of cells; capacity is a power of two
+    private Cell[] table = new Cell[64];
+    private int cellCount;
+
+    private int size;
+
+    // Reused by every search; callers serialize access to the grid
+    private final BestSearch bestSearch = new BestSearch();
+    private final NearestSearch nearestSearch = new NearestSearch();
+
+    // Cells that have held a driver so far, in cell coordinates
+    private int minX = Integer.MAX_VALUE;
+    private int maxX = Integer.MIN_VALUE;
+    private int minY = Integer.MAX_VALUE;
+    private int maxY = Integer.MIN_VALUE;
+
+    DriverGrid(double cellSizeKm) {
+        this(cellSizeKm, Driver::getPosition);
+    }
+
+    /**
+     * A grid that files drivers by some other point than their position,
+     * e.g. where they will be next.
+     */
+    DriverGrid(double cellSizeKm, Function<Driver, Location> where) {
+        this.cellSize = cellSizeKm;
+        this.where = where;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(Driver d) {
+        int slot = d.getGridSlot();
+        if (slot < 0) return false;
+        Location p = where.apply(d);
+        if (p == null) return false;
+
+        Cell c = find(cellOf(p.x()), cellOf(p.y()));
+        return c != null && slot < c.size && c.drivers[slot] == d;
+    }
+
+    /**
+     * Adds a driver where the grid files them. Returns false if that is
+     * unknown or the driver is already in the grid.
+     */
+    boolean add(Driver d) {
+        Location p = where.apply(d);
+        if (p == null || contains(d)) return false;
+
+        int cx = cellOf(p.x());
+        int cy = cellOf(p.y());
+        Cell c = findOrCreate(cx, cy);
+        if (c.size == c.drivers.length) {
+            c.drivers = Arrays.copyOf(c.drivers, c.size * 2);
+        }
+        c.drivers[c.size] = d;
+        d.setGridSlot(c.size++);
+        size++;
+
+        minX = Math.min(minX, cx);
+        maxX = Math.max(maxX, cx);
+        minY = Math.min(minY, cy);
+        maxY = Math.max(maxY, cy);
+        return true;
+    }
+
+    /**
+     * Removes a driver. Returns false if they were not in the grid.
+     */
+    boolean remove(Driver d) {
+        if (!contains(d)) return false;
+
+        Location p = where.apply(d);
+        Cell c = find(cellOf(p.x()), cellOf(p.y()));
+        int slot = d.getGridSlot();
+
+        // Fill the hole with the cell's last driver
+        Driver last = c.drivers[--c.size];
+        c.drivers[c.size] = null;
+        if (slot != c.size) {
+            c.drivers[slot] = last;
+            last.setGridSlot(slot);
+        }
+        d.setGridSlot(-1);
+        size--;
+        return true;
+    }
+
+    void clear() {
+        for (Cell c : table) {
+            if (c == null) continue;
+            for (int i = 0; i < c.size; i++) {
+                c.drivers[i].setGridSlot(-1);
+            }
+        }
+        table = new Cell[64];
+        cellCount = 0;
+        size = 0;
+        minX = minY = Integer.MAX_VALUE;
+        maxX = maxY = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Returns the driver with the lowest cost for the given address, or
+     * null if the grid is empty. The driver stays in the grid.
+     */
+    Driver best(Location to, Cost cost) {
+        return best(to, cost, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Like {@link #best(Location, Cost)}, but only considers drivers whose
+     * cost is below maxCost, so the search stays within that distance.
+     */
+    Driver best(Location to, Cost cost, double maxCost) {
+        if (size == 0) return null;
+        walk(to, bestSearch.reset(cost, maxCost));
+        return bestSearch.finish();
+    }
+
+    /**
+     * Fills out with up to k of the drivers closest to the address,
+     * nearest first, and returns how many it found.
+     */
+    int nearest(Location to, int k, Driver[] out) {
+        if (size == 0 || k == 0) return 0;
+        walk(to, nearestSearch.reset(k, out));
+        return nearestSearch.finish();
+    }
+
+    /**
+     * Offers the drivers around an address to a search, ring by ring,
+     * until no ring further out can hold anything the search still wants.
+     */
+    private void walk(Location to, Search s) {
+        int qx = cellOf(to.x());
+        int qy = cellOf(to.y());
+        int maxRing = Math.max(Math.max(qx - minX, maxX - qx), Math.max(qy - minY, maxY - qy));
+
+        // How far the address is from the nearest edge of its own cell
+        double edge = Math.min(
+                Math.min(to.x() - qx * cellSize, (qx + 1) * cellSize - to.x()),
+                Math.min(to.y() - qy * cellSize, (qy + 1) * cellSize - to.y()));
+
+        s.to = to;
+        long visited = 0;
+
+        for (int r = 0; r <= maxRing; r++) {
+            // Nothing in ring r is closer than this
+            if (r > 0 && (r - 1) * cellSize + edge >= s.bound()) return;
+
+            long ringCells = (r == 0) ? 1 : 8L * r;
+            if (visited + ringCells > cellCount) {
+                for (Cell c : table) {
+                    s.scan(c);
+                }
+                return;
+            }
+            visited += ringCells;
+
+            if (r == 0) {
+                s.scan(find(qx, qy));
+                continue;
+            }
+            for (int x = qx - r; x <= qx + r; x++) {
+                s.scan(find(x, qy - r));
+                s.scan(find(x, qy + r));
+            }
+            for (int y = qy - r + 1; y <= qy + r - 1; y++) {
+                s.scan(find(qx - r, y));
+                s.scan(find(qx + r, y));
+            }
+        }
+    }
+
+    /**
+     * Visits drivers during a walk. bound() is the distance beyond which
+     * nothing can interest the search any more.
+     */
+    private abstract class Search {
+        Location to;
+
+        abstract double bound();
+
+        abstract void visit(Driver d, double distanceKm);
+
+        final void scan(Cell c) {
+            if (c == null) return;
+            for (int i = 0; i < c.size; i++) {
+                Driver d = c.drivers[i];
+                visit(d, to.distanceTo(where.apply(d)));
+            }
+        }
+    }
+
+    /**
+     * Lowest cost so far. Ties on cost go to the better-rated driver.
+     */
+    private final class BestSearch extends Search {
+        Cost cost;
+        Driver best;
+        double bestCost;
+
+        BestSearch reset(Cost cost, double maxCost) {
+            this.cost = cost;
+            best = null;
+            bestCost = maxCost;
+            return this;
+        }
+
+        Driver finish() {
+            Driver d = best;
+            best = null;
+            return d;
+        }
+
+        @Override
+        double bound() {
+            return bestCost;
+        }
+
+        @Override
+        void visit(Driver d, double distanceKm) {
+            double v = cost.of(d, distanceKm);
+            if (v < bestCost || (v == bestCost && best != null && d.getRatingScore() > best.getRatingScore())) {
+                best = d;
+                bestCost = v;
+            }
+        }
+    }
+
+    /**
+     * The k closest so far, kept sorted by insertion (k is small).
+     */
+    private final class NearestSearch extends Search {
+        Driver[] out;
+        double[] distances = new double[8];
+        int k;
+        int count;
+
+        NearestSearch reset(int k, Driver[] out) {
+            this.k = k;
+            this.out = out;
+            if (distances.length < k) distances = new double[k];
+            count = 0;
+            return this;
+        }
+
+        int finish() {
+            out = null;
+            return count;
+        }
+
+        @Override
+        double bound() {
+            return count < k ? Double.POSITIVE_INFINITY : distances[k - 1];
+        }
+
+        @Override
+        void visit(Driver d, double distanceKm) {
+            if (count == k && distanceKm >= distances[k - 1]) return;
+
+            int i = (count < k) ? count++ : k - 1;
+            while (i > 0 && distances[i - 1] > distanceKm) {
+                distances[i] = distances[i - 1];
+                out[i] = out[i - 1];
+                i--;
+            }
+            distances[i] = distanceKm;
+            out[i] = d;
+        }
+    }
+
+    // ============================================================
+    // CELL TABLE
+    // ============================================================
+
+    private int cellOf(double km) {
+        return (int) Math.floor(km / cellSize);
+    }
+
+    private int slotOf(int cx, int cy) {
+        long key = ((long) cx << 32) ^ (cy & 0xFFFFFFFFL);
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (table.length - 1);
+    }
+
+    private Cell find(int cx, int cy) {
+        for (int i = slotOf(cx, cy); ; i = (i + 1) & (table.length - 1)) {
+            Cell c = table[i];
+            if (c == null || (c.cx == cx && c.cy == cy)) return c;
+        }
+    }
+
+    private Cell findOrCreate(int cx, int cy) {
+        Cell c = find(cx, cy);
+        if (c != null) return c;
+
+        // Keep the table at most half full
+        if (2 * (cellCount + 1) > table.length) grow();
+
+        c = new Cell(cx, cy);
+        int i = slotOf(cx, cy);
+        while (table[i] != null) i = (i + 1) & (table.length - 1);
+        table[i] = c;
+        cellCount++;
+        return c;
+    }
+
+    private void grow() {
+        Cell[] old = table;
+        table = new Cell[old.length * 2];
+        for (Cell c : old) {
+            if (c == null) continue;
+            int i = slotOf(c.cx, c.cy);
+            while (table[i] != null) i = (i + 1) & (table.length - 1);
+            table[i] = c;
+        }
+    }
+}
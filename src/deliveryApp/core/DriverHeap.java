@@ -0,0 +1,150 @@
+package deliveryApp.core;
+
+import deliveryApp.users.Driver;
+
+import java.util.Arrays;
+
+/**
+ * Binary max-heap of available drivers ordered by rating score.
+ *
+ * Each driver remembers its own slot in the heap (see
+ * {@link Driver#getHeapIndex()}), so membership checks are O(1) and
+ * removal or re-ordering after a rating change is O(log n). A driver
+ * can never be in the heap twice.
+ */
+class DriverHeap {
+
+    private Driver[] heap = new Driver[16];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(Driver d) {
+        int i = d.getHeapIndex();
+        return i >= 0 && i < size && heap[i] == d;
+    }
+
+    /**
+     * Copies the drivers out in heap order, so each driver sits at their
+     * own {@link Driver#getHeapIndex()} until the heap next changes.
+     */
+    public Driver[] toArray() {
+        return Arrays.copyOf(heap, size);
+    }
+
+    /**
+     * Adds a driver. Returns false if the driver is already in the heap.
+     */
+    public boolean add(Driver d) {
+        if (contains(d)) return false;
+
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        heap[size] = d;
+        d.setHeapIndex(size);
+        siftUp(size++);
+        return true;
+    }
+
+    /**
+     * Returns the best-rated driver without removing it, or null if empty.
+     */
+    public Driver peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    /**
+     * Removes and returns the best-rated driver, or null if empty.
+     */
+    public Driver poll() {
+        if (size == 0) return null;
+        Driver top = heap[0];
+        removeAt(0);
+        return top;
+    }
+
+    /**
+     * Removes a driver wherever it sits. Returns false if it was not present.
+     */
+    public boolean remove(Driver d) {
+        if (!contains(d)) return false;
+        removeAt(d.getHeapIndex());
+        return true;
+    }
+
+    /**
+     * Restores heap order after a driver's rating changed.
+     * Does nothing if the driver is not in the heap.
+     */
+    public void update(Driver d) {
+        if (!contains(d)) return;
+        int i = d.getHeapIndex();
+        if (siftUp(i) == i) siftDown(i);
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            heap[i].setHeapIndex(-1);
+            heap[i] = null;
+        }
+        size = 0;
+    }
+
+    private void removeAt(int i) {
+        Driver removed = heap[i];
+        Driver last = heap[--size];
+        heap[size] = null;
+        removed.setHeapIndex(-1);
+
+        if (i == size) return;
+
+        heap[i] = last;
+        last.setHeapIndex(i);
+        if (siftUp(i) == i) siftDown(i);
+    }
+
+    /**
+     * Moves the driver at slot i towards the root. Returns its final slot.
+     */
+    private int siftUp(int i) {
+        Driver d = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(d, heap[parent])) break;
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(d, i);
+        return i;
+    }
+
+    private void siftDown(int i) {
+        Driver d = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && better(heap[right], heap[child])) child = right;
+            if (!better(heap[child], d)) break;
+            place(heap[child], i);
+            i = child;
+        }
+        place(d, i);
+    }
+
+    private void place(Driver d, int i) {
+        heap[i] = d;
+        d.setHeapIndex(i);
+    }
+
+    private static boolean better(Driver a, Driver b) {
+        return a.getRatingScore() > b.getRatingScore();
+    }
+}
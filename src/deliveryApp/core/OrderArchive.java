@@ -0,0 +1,611 @@
+package deliveryApp.core;
+
+import deliveryApp.menu.MenuItem;
+import deliveryApp.menu.Money;
+import deliveryApp.metrics.OrderAnalytics;
+import deliveryApp.orders.Order;
+import deliveryApp.orders.OrderStatus;
+import deliveryApp.users.Customer;
+import deliveryApp.users.Driver;
+import deliveryApp.users.User;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Cold tier for delivered orders that nobody is likely to touch again.
+ * They are written out to segment files and dropped from the heap; what
+ * stays in memory is a sparse index per segment and a bounded cache of
+ * the orders read back lately.
+ *
+ * <pre>
+ *   header   magic, format version
+ *   records  in ID order: id, placed at, delivered at, customer, driver,
+ *            item count, then per item: name, cents, id
+ *   index    ID and offset of every 64th record
+ *   summary  the segment's {@link OrderAnalytics} totals
+ *   footer   record count, first ID, last ID, index offset, index entries,
+ *            summary offset, magic
+ * </pre>
+ *
+ * Strings and numbers are encoded as in {@link SystemSnapshot}; the ID
+ * is a plain int so a reader can skip to the record it wants. A lookup
+ * picks the segments whose ID range holds the ID, reads the one block of
+ * up to 64 records the index points at, and walks it. Each segment is
+ * written to a temp file, synced and renamed into place, so it is either
+ * whole or absent. The summary lets the totals for archived orders be
+ * added up on startup without reading them; version 1 segments, which
+ * have none, are read through once instead.
+ *
+ * Files are opened per read, so any number of segments can exist without
+ * holding descriptors. Readers never block each other; writes are
+ * serialized.
+ */
+final class OrderArchive {
+
+    private static final int MAGIC = 0x44415243;   // "DARC"
+    private static final int FORMAT_VERSION = 2;
+
+    // Last version without a summary section
+    private static final int NO_SUMMARY_VERSION = 1;
+
+    private static final int HEADER_BYTES = 4 + 4;
+    private static final int FOOTER_BYTES = 4 + 4 + 4 + 8 + 4 + 8 + 4;
+    private static final int NO_SUMMARY_FOOTER_BYTES = FOOTER_BYTES - 8;
+    private static final int INDEX_ENTRY_BYTES = 4 + 8;
+
+    // Records per index entry, i.e. per block read on a lookup
+    private static final int INDEX_EVERY = 64;
+
+    // Keeps segments well under 2 GB and their writes short
+    private static final int MAX_SEGMENT_ORDERS = 1_000_000;
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".ord";
+
+    /** Archived orders kept on the heap once read back, by default. */
+    static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    /**
+     * One segment file: its ID range and sparse index.
+     */
+    private static final class Segment {
+        final Path path;
+        final int count;
+        final int firstId;
+        final int lastId;
+        final long indexAt;
+        final int[] blockIds;
+        final long[] blockOffsets;
+        final boolean summarized;       // false for version 1 segments
+
+        Segment(Path path, int count, int firstId, int lastId, long indexAt, int[] blockIds, long[] blockOffsets,
+                boolean summarized) {
+            this.path = path;
+            this.count = count;
+            this.firstId = firstId;
+            this.lastId = lastId;
+            this.indexAt = indexAt;
+            this.blockIds = blockIds;
+            this.blockOffsets = blockOffsets;
+            this.summarized = summarized;
+        }
+
+        boolean covers(int id) {
+            return id >= firstId && id <= lastId;
+        }
+
+        /**
+         * The block that would hold the ID: the last one starting at or before it.
+         */
+        int blockOf(int id) {
+            int i = Arrays.binarySearch(blockIds, id);
+            return i >= 0 ? i : Math.max(0, -i - 2);
+        }
+
+        long blockEnd(int block) {
+            return block + 1 < blockOffsets.length ? blockOffsets[block + 1] : indexAt;
+        }
+    }
+
+    /**
+     * A block read from disk, kept so that lookups in ID order, like a
+     * replay, read each block once.
+     */
+    private record Block(Segment segment, int index, ByteBuffer data) {
+    }
+
+    private final Path dir;
+    private final Function<String, User> users;
+
+    // Sorted by first ID; replaced, never changed, when a segment is added
+    private volatile List<Segment> segments = List.of();
+    private volatile int size;
+    private int nextSegment = 1;
+
+    private final Map<Integer, Order> cache;
+    private volatile Block lastBlock;
+
+    /**
+     * An archive in the given directory. Users are looked up by name when
+     * an order is read back.
+     */
+    OrderArchive(Path dir, Function<String, User> users, int cacheSize) {
+        this.dir = dir;
+        this.users = users;
+        this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Order> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    // ============================================================
+    // OPENING
+    // ============================================================
+
+    /**
+     * Reads the index of every segment in the directory and adds the
+     * totals of the orders in them to the analytics. A damaged segment is
+     * reported and left out. Users have to be loaded by now.
+     */
+    synchronized void open(OrderAnalytics analytics) {
+        if (!Files.isDirectory(dir)) return;
+
+        List<Segment> found = new ArrayList<>();
+        int total = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path p : files) {
+                try {
+                    Segment s = readIndex(p, analytics);
+                    found.add(s);
+                    total += s.count;
+                    nextSegment = Math.max(nextSegment, segmentNumber(p) + 1);
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("Error reading archive segment " + p.getFileName() + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading order archive.");
+        }
+
+        found.sort(Comparator.comparingInt(s -> s.firstId));
+        segments = List.copyOf(found);
+        size = total;
+
+        for (Segment s : found) {
+            if (s.summarized) continue;
+            for (Cursor c = new Cursor(s, s.firstId); c.hasRecord(); ) {
+                Order o = c.take();
+                if (o != null) analytics.orderRestored(o);
+            }
+        }
+    }
+
+    private static int segmentNumber(Path p) {
+        String name = p.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Reads a segment's footer and index, and adds its summary, if it has
+     * one, to the analytics once the rest has been read.
+     */
+    private static Segment readIndex(Path p, OrderAnalytics analytics) throws IOException {
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+            long fileSize = ch.size();
+            if (fileSize < HEADER_BYTES + FOOTER_BYTES) throw new IOException("too short");
+
+            ByteBuffer header = readFully(ch, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) throw new IOException("not an archive segment");
+            int version = header.getInt();
+            if (version != FORMAT_VERSION && version != NO_SUMMARY_VERSION) {
+                throw new IOException("unsupported version " + version);
+            }
+
+            int footerBytes = version == NO_SUMMARY_VERSION ? NO_SUMMARY_FOOTER_BYTES : FOOTER_BYTES;
+            ByteBuffer footer = readFully(ch, fileSize - footerBytes, footerBytes);
+            int count = footer.getInt();
+            int firstId = footer.getInt();
+            int lastId = footer.getInt();
+            long indexAt = footer.getLong();
+            int blocks = footer.getInt();
+            long summaryAt = version == NO_SUMMARY_VERSION ? -1 : footer.getLong();
+            if (footer.getInt() != MAGIC) throw new IOException("incomplete segment");
+
+            ByteBuffer index = readFully(ch, indexAt, blocks * INDEX_ENTRY_BYTES);
+            int[] ids = new int[blocks];
+            long[] offsets = new long[blocks];
+            for (int i = 0; i < blocks; i++) {
+                ids[i] = index.getInt();
+                offsets[i] = index.getLong();
+            }
+
+            if (summaryAt >= 0) {
+                ByteBuffer b = readFully(ch, summaryAt, (int) (fileSize - footerBytes - summaryAt));
+                analytics.addAll(OrderAnalytics.readFrom(new DataInputStream(
+                        new ByteArrayInputStream(b.array(), b.arrayOffset(), b.remaining()))));
+            }
+            return new Segment(p, count, firstId, lastId, indexAt, ids, offsets, summaryAt >= 0);
+        }
+    }
+
+    // ============================================================
+    // WRITING
+    // ============================================================
+
+    /**
+     * Writes delivered orders, in ID order, to new segments. Returns false
+     * (after saying why) if they could not all be written; those written
+     * before the failure stay archived, and the caller should keep every
+     * order in the heap, which is harmless.
+     */
+    synchronized boolean append(List<Order> orders) {
+        for (int from = 0; from < orders.size(); from += MAX_SEGMENT_ORDERS) {
+            List<Order> part = orders.subList(from, Math.min(orders.size(), from + MAX_SEGMENT_ORDERS));
+            try {
+                Files.createDirectories(dir);
+                Segment s = writeSegment(dir.resolve(String.format("%s%06d%s", PREFIX, nextSegment, SUFFIX)), part);
+                nextSegment++;
+
+                List<Segment> next = new ArrayList<>(segments);
+                next.add(s);
+                next.sort(Comparator.comparingInt(seg -> seg.firstId));
+                segments = List.copyOf(next);
+                size += s.count;
+            } catch (IOException e) {
+                System.out.println("Error writing order archive: " + e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Segment writeSegment(Path target, List<Order> orders) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        int blocks = (orders.size() + INDEX_EVERY - 1) / INDEX_EVERY;
+        int[] ids = new int[blocks];
+        long[] offsets = new long[blocks];
+        long indexAt;
+        OrderAnalytics summary = new OrderAnalytics();
+
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+
+            for (int i = 0; i < orders.size(); i++) {
+                Order o = orders.get(i);
+                if (i % INDEX_EVERY == 0) {
+                    ids[i / INDEX_EVERY] = o.getOrderId();
+                    offsets[i / INDEX_EVERY] = out.size();
+                }
+                Driver d = o.getDriver();
+                summary.orderRestored(o);
+
+                out.writeInt(o.getOrderId());
+                SystemSnapshot.writeVarLong(out, o.getStatusTime(OrderStatus.PLACED));
+                SystemSnapshot.writeVarLong(out, o.getStatusTime(OrderStatus.DELIVERED));
+                SystemSnapshot.writeString(out, o.getCustomer().getUserName());
+                SystemSnapshot.writeString(out, d == null ? "" : d.getUserName());
+                SystemSnapshot.writeVarLong(out, o.getItems().size());
+                for (MenuItem item : o.getItems()) {
+                    SystemSnapshot.writeString(out, item.getName());
+                    SystemSnapshot.writeVarLong(out, item.getPrice().getCents());
+                    SystemSnapshot.writeVarLong(out, item.getId());
+                }
+            }
+
+            indexAt = out.size();
+            for (int i = 0; i < blocks; i++) {
+                out.writeInt(ids[i]);
+                out.writeLong(offsets[i]);
+            }
+
+            long summaryAt = out.size();
+            summary.writeTo(out);
+
+            out.writeInt(orders.size());
+            out.writeInt(orders.get(0).getOrderId());
+            out.writeInt(orders.get(orders.size() - 1).getOrderId());
+            out.writeLong(indexAt);
+            out.writeInt(blocks);
+            out.writeLong(summaryAt);
+            out.writeInt(MAGIC);
+            out.flush();
+            file.getFD().sync();
+        }
+
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Segment(target, orders.size(), orders.get(0).getOrderId(),
+                orders.get(orders.size() - 1).getOrderId(), indexAt, ids, offsets, true);
+    }
+
+    // ============================================================
+    // READING
+    // ============================================================
+
+    /**
+     * Number of archived orders.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the archived order with this ID, reading it back into the
+     * cache if it is not there, or null if it is not archived.
+     */
+    Order get(int id) {
+        synchronized (cache) {
+            Order o = cache.get(id);
+            if (o != null) return o;
+        }
+
+        ByteBuffer in = find(id);
+        Order o = (in == null) ? null : decode(in);
+        if (o == null) return null;
+
+        synchronized (cache) {
+            // Keep whichever copy got there first, so callers share one
+            Order raced = cache.putIfAbsent(id, o);
+            return raced != null ? raced : o;
+        }
+    }
+
+    /**
+     * Whether an order with this ID is archived. Cheap for IDs past the
+     * archive and for runs of IDs in order.
+     */
+    boolean contains(int id) {
+        return find(id) != null;
+    }
+
+    /**
+     * Positions a buffer at the record for the ID, or returns null.
+     */
+    private ByteBuffer find(int id) {
+        for (Segment s : segments) {
+            if (s.firstId > id) break;
+            if (!s.covers(id)) continue;
+
+            ByteBuffer in = block(s, s.blockOf(id));
+            while (in.hasRemaining()) {
+                int at = in.getInt(in.position());
+                if (at == id) return in;
+                if (at > id) break;
+                skip(in);
+            }
+        }
+        return null;
+    }
+
+    private ByteBuffer block(Segment s, int index) {
+        Block b = lastBlock;
+        if (b == null || b.segment != s || b.index != index) {
+            long start = s.blockOffsets[index];
+            try (FileChannel ch = FileChannel.open(s.path, StandardOpenOption.READ)) {
+                b = new Block(s, index, readFully(ch, start, (int) (s.blockEnd(index) - start)));
+            } catch (IOException e) {
+                System.out.println("Error reading archive segment " + s.path.getFileName() + ".");
+                return ByteBuffer.allocate(0);
+            }
+            lastBlock = b;
+        }
+        return b.data.duplicate();
+    }
+
+    private static ByteBuffer readFully(FileChannel ch, long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, position + buf.position()) < 0) throw new IOException("unexpected end of file");
+        }
+        return buf.flip();
+    }
+
+    /**
+     * Decodes the record at the buffer's position. Returns null if its
+     * customer no longer exists; the record is consumed either way.
+     */
+    private Order decode(ByteBuffer in) {
+        int id = in.getInt();
+        long placedAt = SystemSnapshot.readVarLong(in);
+        long deliveredAt = SystemSnapshot.readVarLong(in);
+        String customer = readString(in);
+        String driver = readString(in);
+
+        int n = SystemSnapshot.readVarInt(in);
+        List<MenuItem> items = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String name = readString(in);
+            long cents = SystemSnapshot.readVarLong(in);
+            items.add(new MenuItem(SystemSnapshot.readVarInt(in), name, Money.ofCents(cents)));
+        }
+
+        if (!(users.apply(customer) instanceof Customer c)) return null;
+        Driver d = (!driver.isEmpty() && users.apply(driver) instanceof Driver dd) ? dd : null;
+
+        Order o = new Order(id, c, d, OrderStatus.DELIVERED, items);
+        o.restoreStatusTime(OrderStatus.PLACED, placedAt);
+        o.restoreStatusTime(OrderStatus.DELIVERED, deliveredAt);
+        return o;
+    }
+
+    private static void skip(ByteBuffer in) {
+        in.getInt();
+        SystemSnapshot.readVarLong(in);
+        SystemSnapshot.readVarLong(in);
+        skipString(in);
+        skipString(in);
+        int n = SystemSnapshot.readVarInt(in);
+        for (int i = 0; i < n; i++) {
+            skipString(in);
+            SystemSnapshot.readVarLong(in);
+            SystemSnapshot.readVarLong(in);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int len = SystemSnapshot.readVarInt(in);
+        String s = new String(in.array(), in.arrayOffset() + in.position(), len, StandardCharsets.UTF_8);
+        in.position(in.position() + len);
+        return s;
+    }
+
+    private static void skipString(ByteBuffer in) {
+        int len = SystemSnapshot.readVarInt(in);
+        in.position(in.position() + len);
+    }
+
+    // ============================================================
+    // SCANNING
+    // ============================================================
+
+    /**
+     * Walks the live orders and the archived ones with ID >= fromId
+     * together, in ID order. The live iterator has to be in ID order too.
+     * An order in both, as while it is being archived, comes from the live
+     * side. Archived orders are decoded block by block as the walk reaches
+     * them and are not cached.
+     */
+    Iterator<Order> merge(Iterator<Order> live, int fromId) {
+        Iterator<Order> archived = new Scan(fromId);
+        return new Iterator<>() {
+            Order nextLive = live.hasNext() ? live.next() : null;
+            Order nextArchived = archived.hasNext() ? archived.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextLive != null || nextArchived != null;
+            }
+
+            @Override
+            public Order next() {
+                if (!hasNext()) throw new NoSuchElementException();
+
+                Order o;
+                if (nextArchived == null || (nextLive != null && nextLive.getOrderId() <= nextArchived.getOrderId())) {
+                    o = nextLive;
+                    if (nextArchived != null && nextArchived.getOrderId() == o.getOrderId()) {
+                        nextArchived = archived.hasNext() ? archived.next() : null;
+                    }
+                    nextLive = live.hasNext() ? live.next() : null;
+                } else {
+                    o = nextArchived;
+                    nextArchived = archived.hasNext() ? archived.next() : null;
+                }
+                return o;
+            }
+        };
+    }
+
+    /**
+     * Archived orders with ID >= fromId in ID order. Segment ranges mostly
+     * follow one another, so a segment is only opened once the walk gets
+     * to its first ID, and few are open at a time.
+     */
+    private final class Scan implements Iterator<Order> {
+        private final List<Segment> pending;
+        private final int fromId;
+        private int nextPending;
+        private final PriorityQueue<Cursor> open =
+                new PriorityQueue<>(Comparator.comparingInt(Cursor::id));
+        private Order next;
+
+        Scan(int fromId) {
+            this.pending = segments;
+            this.fromId = fromId;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Order next() {
+            if (next == null) throw new NoSuchElementException();
+            Order o = next;
+            advance();
+            return o;
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null) {
+                while (nextPending < pending.size()
+                        && (open.isEmpty() || pending.get(nextPending).firstId <= open.peek().id())) {
+                    Segment s = pending.get(nextPending++);
+                    if (s.lastId < fromId) continue;
+                    Cursor c = new Cursor(s, fromId);
+                    if (c.hasRecord()) open.add(c);
+                }
+                if (open.isEmpty()) return;
+
+                Cursor c = open.poll();
+                next = c.take();
+                if (c.hasRecord()) open.add(c);
+            }
+        }
+    }
+
+    /**
+     * Reads one segment forward a block at a time.
+     */
+    private final class Cursor {
+        private final Segment segment;
+        private int blockIndex;
+        private ByteBuffer in;
+
+        Cursor(Segment segment, int fromId) {
+            this.segment = segment;
+            blockIndex = segment.blockOf(fromId);
+            in = block(segment, blockIndex);
+            while (hasRecord() && id() < fromId) skip(in);
+        }
+
+        boolean hasRecord() {
+            while (!in.hasRemaining()) {
+                if (++blockIndex >= segment.blockIds.length) return false;
+                in = block(segment, blockIndex);
+            }
+            return true;
+        }
+
+        int id() {
+            return in.getInt(in.position());
+        }
+
+        /**
+         * Decodes the current record and moves past it; null if its
+         * customer is gone.
+         */
+        Order take() {
+            return decode(in);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package deliveryApp.core;
+
+import deliveryApp.menu.MenuItem;
+import deliveryApp.menu.Money;
+import deliveryApp.metrics.LatencyHistogram;
+import deliveryApp.orders.Order;
+import deliveryApp.orders.OrderStatus;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of order events, one CSV line per event:
+ *
+ * <pre>
+ *   PLACED,id,time,customer,item,price,item,price,...
+ *   ASSIGNED,id,time,driver
+ *   STATUS,id,time,status,driver
+ * </pre>
+ *
+ * The time is when the order entered the state the line records, in
+ * epoch millis. A STATUS line back to PLACED, with no driver, means the
+ * order was taken off its driver to be dispatched again.
+ *
+ * Fields containing a comma or quote are quoted CSV-style. The file is
+ * kept open on a single channel for the lifetime of the system and is
+ * replayed on startup to rebuild the in-memory order state. Appends are
+ * synchronized so concurrent events never interleave within a line.
+ *
+ * With a {@link PersistencePipeline}, events are handed to its writer
+ * thread in the order they were logged and the caller goes on without
+ * waiting for the disk; without one they are written straight away.
+ */
+class OrderEventLog implements AutoCloseable, PersistencePipeline.Sink {
+
+    static final String PLACED = "PLACED";
+    static final String ASSIGNED = "ASSIGNED";
+    static final String STATUS = "STATUS";
+
+    /**
+     * Receives events while the log is replayed.
+     */
+    interface Handler {
+        void placed(int id, long time, String customer, List<MenuItem> items);
+
+        void assigned(int id, long time, String driver);
+
+        void status(int id, long time, OrderStatus status);
+
+        /**
+         * Lines written by the old "id,customer,driver,status,total" format.
+         * Only the id is still useful, so the counter never reuses it.
+         */
+        void legacy(int id);
+    }
+
+    private final Path path;
+    private volatile FileChannel channel;
+    private static final int MAX_RETAINED = 64 * 1024;
+
+    // Null to write on the caller's thread
+    private final PersistencePipeline pipeline;
+
+    // Bytes on disk (or at least handed to the OS); complete lines only
+    private volatile long written;
+
+    private final StringBuilder line = new StringBuilder(128);
+
+    // Time taken by each write, recorded for the metrics
+    private final LatencyHistogram writeTimes;
+
+    OrderEventLog(Path path, LatencyHistogram writeTimes, PersistencePipeline pipeline) {
+        this.path = path;
+        this.writeTimes = writeTimes;
+        this.pipeline = pipeline;
+    }
+
+    // ============================================================
+    // REPLAY
+    // ============================================================
+
+    /**
+     * Reads every event in the log and hands it to the handler.
+     * Must be called before the log is opened for appending.
+     */
+    void replay(Handler h) {
+        replay(h, 0);
+    }
+
+    /**
+     * Replays only the events that start at or after the given byte offset,
+     * e.g. those written after a snapshot was taken.
+     */
+    void replay(Handler h, long fromOffset) {
+        if (!Files.exists(path)) return;
+
+        List<String> f = new ArrayList<>();
+
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+             BufferedReader br = new BufferedReader(
+                     Channels.newReader(ch.position(fromOffset), StandardCharsets.UTF_8), 1 << 16)) {
+            String l;
+            while ((l = br.readLine()) != null) {
+                CsvFields.split(l, f);
+                if (f.size() < 2) continue;
+
+                try {
+                    switch (f.get(0)) {
+                        case PLACED -> {
+                            List<MenuItem> items = new ArrayList<>((f.size() - 4) / 2);
+                            for (int i = 4; i + 1 < f.size(); i += 2) {
+                                items.add(new MenuItem(f.get(i), Money.parse(f.get(i + 1))));
+                            }
+                            h.placed(Integer.parseInt(f.get(1)), Long.parseLong(f.get(2)), f.get(3), items);
+                        }
+                        case ASSIGNED -> h.assigned(Integer.parseInt(f.get(1)),
+                                Long.parseLong(f.get(2)), f.get(3));
+                        case STATUS -> h.status(Integer.parseInt(f.get(1)),
+                                Long.parseLong(f.get(2)), OrderStatus.valueOf(f.get(3)));
+                        default -> h.legacy(Integer.parseInt(f.get(0)));
+                    }
+                } catch (RuntimeException ignored) {
+                    // skip malformed or truncated lines
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading order log.");
+        }
+    }
+
+    // ============================================================
+    // APPENDING
+    // ============================================================
+
+    /**
+     * Length of the log written so far; it ends with a complete event.
+     * Events still queued in the pipeline are not counted.
+     */
+    long size() {
+        if (channel != null) return written;
+        try {
+            return Files.exists(path) ? Files.size(path) : 0;
+        } catch (IOException e) {
+            System.out.println("Error reading order log size.");
+            return 0;
+        }
+    }
+
+    void open() throws IOException {
+        FileChannel ch = FileChannel.open(path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        written = ch.size();
+        channel = ch;
+    }
+
+    synchronized void placed(Order o) {
+        appendPlaced(o);
+        flush();
+    }
+
+    /**
+     * Writes the PLACED events for a batch of orders, followed by the
+     * ASSIGNED events for those that were matched straight away, in a
+     * single write.
+     */
+    synchronized void placed(List<Order> orders, List<Order> assigned) {
+        for (Order o : orders) {
+            appendPlaced(o);
+        }
+        for (Order o : assigned) {
+            appendAssigned(o);
+        }
+        flush();
+    }
+
+    synchronized void assigned(Order o) {
+        appendAssigned(o);
+        flush();
+    }
+
+    synchronized void status(Order o) {
+        begin(STATUS, o, o.getStatusSince());
+        field(o.getStatus().name());
+        field(o.getDriver() == null ? "" : o.getDriver().getUserName());
+        line.append('\n');
+        flush();
+    }
+
+    /**
+     * Records that the order was taken off its driver and is waiting for
+     * another. It may already have one again by the time this is written,
+     * so the line is built from the current time, not from its current
+     * state.
+     */
+    synchronized void requeued(Order o) {
+        begin(STATUS, o, System.currentTimeMillis());
+        field(OrderStatus.PLACED.name());
+        field("");
+        line.append('\n');
+        flush();
+    }
+
+    private void appendPlaced(Order o) {
+        begin(PLACED, o, o.getStatusTime(OrderStatus.PLACED));
+        field(o.getCustomer().getUserName());
+        for (MenuItem item : o.getItems()) {
+            field(item.getName());
+            field(item.getPrice().toString());
+        }
+        line.append('\n');
+    }
+
+    private void appendAssigned(Order o) {
+        begin(ASSIGNED, o, o.getStatusTime(OrderStatus.ACCEPTED));
+        field(o.getDriver().getUserName());
+        line.append('\n');
+    }
+
+    private void begin(String type, Order o, long time) {
+        line.append(type).append(',')
+                .append(o.getOrderId()).append(',')
+                .append(time);
+    }
+
+    private void field(String value) {
+        line.append(',');
+        CsvFields.append(line, value);
+    }
+
+    /**
+     * Writes out every line buffered since the last flush, or queues them
+     * with the pipeline.
+     */
+    private void flush() {
+        if (channel != null) {
+            ByteBuffer buf = ByteBuffer.wrap(line.toString().getBytes(StandardCharsets.UTF_8));
+            if (pipeline != null) {
+                pipeline.append(this, buf);
+            } else {
+                write(new ByteBuffer[]{buf}, 1);
+            }
+        }
+
+        line.setLength(0);
+        // Don't hang on to the buffer of a large batch
+        if (line.capacity() > MAX_RETAINED) line.trimToSize();
+    }
+
+    /**
+     * Appends whole lines; on the pipeline's writer thread if there is one.
+     */
+    @Override
+    public void write(ByteBuffer[] data, int count) {
+        long start = System.nanoTime();
+        long bytes = 0;
+        try {
+            while (data[count - 1].hasRemaining()) {
+                bytes += channel.write(data, 0, count);
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing order log.");
+        }
+        written += bytes;
+        writeTimes.recordSince(start);
+    }
+
+    @Override
+    public void sync() {
+        try {
+            FileChannel ch = channel;
+            if (ch != null) ch.force(false);
+        } catch (IOException e) {
+            System.out.println("Error syncing order log.");
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("Error closing order log.");
+        }
+        channel = null;
+    }
+}
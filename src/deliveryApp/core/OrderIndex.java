@@ -0,0 +1,106 @@
+package deliveryApp.core;
+
+import deliveryApp.orders.Order;
+import deliveryApp.orders.OrderStatus;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary index from a key (a driver or a customer) to that key's
+ * orders, bucketed by status. Lookups touch only the buckets asked for,
+ * so a query costs time proportional to the number of orders returned.
+ *
+ * Each key's buckets are guarded by their own monitor, so threads working
+ * on different drivers or customers never contend.
+ */
+class OrderIndex<K> {
+
+    private final Map<K, EnumMap<OrderStatus, Map<Integer, Order>>> byKey = new ConcurrentHashMap<>();
+
+    /**
+     * Files the order under its current status.
+     */
+    void add(K key, Order o) {
+        EnumMap<OrderStatus, Map<Integer, Order>> buckets =
+                byKey.computeIfAbsent(key, k -> new EnumMap<>(OrderStatus.class));
+
+        synchronized (buckets) {
+            file(buckets, o);
+        }
+    }
+
+    /**
+     * Moves the order from the bucket for its previous status to its current one.
+     */
+    void move(K key, Order o, OrderStatus previous) {
+        if (previous == o.getStatus()) return;
+
+        EnumMap<OrderStatus, Map<Integer, Order>> buckets =
+                byKey.computeIfAbsent(key, k -> new EnumMap<>(OrderStatus.class));
+
+        synchronized (buckets) {
+            Map<Integer, Order> old = buckets.get(previous);
+            if (old != null) old.remove(o.getOrderId());
+            file(buckets, o);
+        }
+    }
+
+    /**
+     * Drops the order from the key's bucket for the given status, e.g.
+     * when it is taken off a driver.
+     */
+    void remove(K key, Order o, OrderStatus status) {
+        EnumMap<OrderStatus, Map<Integer, Order>> buckets = byKey.get(key);
+        if (buckets == null) return;
+
+        synchronized (buckets) {
+            Map<Integer, Order> bucket = buckets.get(status);
+            if (bucket != null) bucket.remove(o.getOrderId());
+        }
+    }
+
+    /**
+     * Returns the key's order with this ID, or null if it is not indexed under the key.
+     */
+    Order get(K key, int id) {
+        EnumMap<OrderStatus, Map<Integer, Order>> buckets = byKey.get(key);
+        if (buckets == null) return null;
+
+        synchronized (buckets) {
+            for (Map<Integer, Order> bucket : buckets.values()) {
+                Order o = bucket.get(id);
+                if (o != null) return o;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the key's orders in the given statuses (all statuses if null),
+     * grouped by status in enum order.
+     */
+    List<Order> find(K key, Set<OrderStatus> statuses) {
+        EnumMap<OrderStatus, Map<Integer, Order>> buckets = byKey.get(key);
+        if (buckets == null) return List.of();
+
+        List<Order> result = new ArrayList<>();
+        synchronized (buckets) {
+            for (Map.Entry<OrderStatus, Map<Integer, Order>> e : buckets.entrySet()) {
+                if (statuses == null || statuses.contains(e.getKey())) {
+                    result.addAll(e.getValue().values());
+                }
+            }
+        }
+        return result;
+    }
+
+    void clear() {
+        byKey.clear();
+    }
+
+    private static void file(EnumMap<OrderStatus, Map<Integer, Order>> buckets, Order o) {
+        buckets.computeIfAbsent(o.getStatus(), s -> new LinkedHashMap<>())
+                .put(o.getOrderId(), o);
+    }
+}
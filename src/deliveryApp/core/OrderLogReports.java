@@ -0,0 +1,492 @@
+package deliveryApp.core;
+
+import deliveryApp.menu.Money;
+import deliveryApp.orders.OrderStatus;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Ad-hoc reports over the whole order log, for questions the running
+ * totals cannot answer: revenue in a date range, who delivered most in
+ * it, or who has not ordered lately.
+ *
+ * The log is cut into chunks of whole lines, which are scanned on a
+ * fork/join pool and their partial totals merged pairwise. Each chunk is
+ * memory-mapped and parsed in place: fields are found byte by byte and
+ * names are counted under their raw bytes, so the only strings made are
+ * the ones in the result. A report reads the log as it stood when the
+ * report started; events appended meanwhile are left out.
+ */
+public final class OrderLogReports {
+
+    /**
+     * How often an item was ordered and what it brought in.
+     */
+    public record ItemRevenue(String item, long sold, Money revenue) {
+    }
+
+    /**
+     * How many orders a driver delivered.
+     */
+    public record DriverDeliveries(String driver, long deliveries) {
+    }
+
+    /**
+     * A customer's order count and their latest order (epoch millis, 0
+     * if they never ordered).
+     */
+    public record CustomerActivity(String customer, long orders, long lastOrderMillis) {
+    }
+
+    // Far more chunks than cores on a big log, so the pool can balance them
+    private static final int CHUNK_BYTES = 32 << 20;
+
+    // Read at a time while looking for the line a chunk boundary falls in
+    private static final int PROBE_BYTES = 4096;
+
+    private static final byte[] DELIVERED = OrderStatus.DELIVERED.name().getBytes(StandardCharsets.US_ASCII);
+
+    private final Path path;
+    private final LongSupplier end;
+    private final Supplier<Collection<String>> customers;
+    private final ForkJoinPool pool;
+
+    /**
+     * Reports over the log at the given path, up to the offset the
+     * supplier gives when a report starts, on the common pool. Inactive
+     * customers are looked for among the names the other supplier gives.
+     */
+    OrderLogReports(Path path, LongSupplier end, Supplier<Collection<String>> customers) {
+        this(path, end, customers, ForkJoinPool.commonPool());
+    }
+
+    OrderLogReports(Path path, LongSupplier end, Supplier<Collection<String>> customers, ForkJoinPool pool) {
+        this.path = path;
+        this.end = end;
+        this.customers = customers;
+        this.pool = pool;
+    }
+
+    // ============================================================
+    // REPORTS
+    // ============================================================
+
+    /**
+     * The items with the most revenue from orders placed in [from, to),
+     * best first; a limit of 0 means all.
+     */
+    public List<ItemRevenue> topItems(long fromMillis, long toMillis, int limit) {
+        KeyTable items = scan(fromMillis, toMillis).items;
+        List<ItemRevenue> result = new ArrayList<>(items.size);
+        for (int i = 0; i < items.keys.length; i++) {
+            if (items.keys[i] == null) continue;
+            result.add(new ItemRevenue(items.key(i), items.count[i], Money.ofCents(items.sum[i])));
+        }
+        result.sort(Comparator.comparing(ItemRevenue::revenue).reversed().thenComparing(ItemRevenue::item));
+        return limit(result, limit);
+    }
+
+    /**
+     * The drivers with the most orders delivered in [from, to), most
+     * first; a limit of 0 means all.
+     */
+    public List<DriverDeliveries> driverLeaderboard(long fromMillis, long toMillis, int limit) {
+        KeyTable drivers = scan(fromMillis, toMillis).drivers;
+        List<DriverDeliveries> result = new ArrayList<>(drivers.size);
+        for (int i = 0; i < drivers.keys.length; i++) {
+            if (drivers.keys[i] == null) continue;
+            result.add(new DriverDeliveries(drivers.key(i), drivers.count[i]));
+        }
+        result.sort(Comparator.comparingLong(DriverDeliveries::deliveries).reversed()
+                .thenComparing(DriverDeliveries::driver));
+        return limit(result, limit);
+    }
+
+    /**
+     * Registered customers with no order placed at or after the given
+     * time, longest idle first; those who never ordered come first.
+     */
+    public List<CustomerActivity> inactiveCustomers(long sinceMillis) {
+        // An empty range: only the last order per customer is collected
+        KeyTable seen = scan(0, 0).customers;
+        Map<String, Integer> slots = new HashMap<>(seen.size * 2);
+        for (int i = 0; i < seen.keys.length; i++) {
+            if (seen.keys[i] != null) slots.put(seen.key(i), i);
+        }
+
+        List<CustomerActivity> result = new ArrayList<>();
+        for (String name : customers.get()) {
+            Integer i = slots.get(name);
+            long last = (i == null) ? 0 : seen.latest[i];
+            if (last < sinceMillis) {
+                result.add(new CustomerActivity(name, i == null ? 0 : seen.count[i], last));
+            }
+        }
+        result.sort(Comparator.comparingLong(CustomerActivity::lastOrderMillis)
+                .thenComparing(CustomerActivity::customer));
+        return result;
+    }
+
+    private static <T> List<T> limit(List<T> all, int limit) {
+        return (limit > 0 && all.size() > limit) ? new ArrayList<>(all.subList(0, limit)) : all;
+    }
+
+    // ============================================================
+    // SCANNING
+    // ============================================================
+
+    /**
+     * Per-chunk totals, merged into one as the chunks finish.
+     */
+    private static final class Totals {
+        final KeyTable items = new KeyTable();      // count = sold, sum = cents
+        final KeyTable drivers = new KeyTable();    // count = deliveries
+        final KeyTable customers = new KeyTable();  // count = orders, latest = last order
+
+        Totals merge(Totals other) {
+            items.addAll(other.items);
+            drivers.addAll(other.drivers);
+            customers.addAll(other.customers);
+            return this;
+        }
+    }
+
+    /**
+     * Scans the log up to its current end. Items and deliveries are only
+     * counted for events in [from, to); every order counts towards its
+     * customer's activity.
+     */
+    private Totals scan(long fromMillis, long toMillis) {
+        long limit = end.getAsLong();
+        if (limit <= 0 || !Files.exists(path)) return new Totals();
+
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = chunks(ch, Math.min(limit, ch.size()));
+            return pool.invoke(new ScanTask(ch, bounds, 0, bounds.length - 1, fromMillis, toMillis));
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Error reading order log.");
+            return new Totals();
+        }
+    }
+
+    /**
+     * Chunk boundaries: 0, the start of the first line at or after every
+     * CHUNK_BYTES, and the end.
+     */
+    private static long[] chunks(FileChannel ch, long end) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long at = 0;
+        while (end - at > CHUNK_BYTES) {
+            at = nextLine(ch, at + CHUNK_BYTES, end);
+            if (at >= end) break;
+            bounds.add(at);
+        }
+        bounds.add(end);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * The start of the first line that starts at or after the position.
+     */
+    private static long nextLine(FileChannel ch, long position, long end) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_BYTES);
+        long at = position - 1;
+        while (at < end) {
+            probe.clear().limit((int) Math.min(PROBE_BYTES, end - at));
+            int n = ch.read(probe, at);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') return at + i + 1;
+            }
+            at += n;
+        }
+        return end;
+    }
+
+    /**
+     * Scans chunks [lo, hi), splitting the range until one chunk is left.
+     */
+    private static final class ScanTask extends RecursiveTask<Totals> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel ch;
+        private final long[] bounds;
+        private final int lo;
+        private final int hi;
+        private final long fromMillis;
+        private final long toMillis;
+
+        ScanTask(FileChannel ch, long[] bounds, int lo, int hi, long fromMillis, long toMillis) {
+            this.ch = ch;
+            this.bounds = bounds;
+            this.lo = lo;
+            this.hi = hi;
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                ScanTask left = new ScanTask(ch, bounds, lo, mid, fromMillis, toMillis);
+                left.fork();
+                Totals right = new ScanTask(ch, bounds, mid, hi, fromMillis, toMillis).compute();
+                return left.join().merge(right);
+            }
+
+            Totals t = new Totals();
+            ByteBuffer buf;
+            try {
+                buf = ch.map(FileChannel.MapMode.READ_ONLY, bounds[lo], bounds[hi] - bounds[lo]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            int n = buf.limit();
+            int p = 0;
+            while (p < n) {
+                int eol = p;
+                while (eol < n && buf.get(eol) != '\n') eol++;
+                parseLine(buf, p, eol, fromMillis, toMillis, t);
+                p = eol + 1;
+            }
+            return t;
+        }
+    }
+
+    // ============================================================
+    // PARSING
+    // ============================================================
+
+    /**
+     * Counts one log line, [p, eol) in the buffer. Lines that are not
+     * PLACED or STATUS, or are malformed, are skipped.
+     */
+    private static void parseLine(ByteBuffer buf, int p, int eol, long fromMillis, long toMillis, Totals t) {
+        if (p >= eol) return;
+        byte type = buf.get(p);
+        if (type != 'P' && type != 'S') return;
+
+        int typeEnd = next(buf, p, eol);
+        if (typeEnd >= eol) return;
+        int idEnd = next(buf, typeEnd + 1, eol);
+        if (idEnd >= eol) return;
+        int timeEnd = next(buf, idEnd + 1, eol);
+        long time = parseLong(buf, idEnd + 1, timeEnd);
+        if (time < 0 || timeEnd >= eol) return;
+        boolean inRange = time >= fromMillis && time < toMillis;
+
+        if (type == 'P') {
+            int customerEnd = next(buf, timeEnd + 1, eol);
+            t.customers.add(buf, timeEnd + 1, customerEnd, 1, 0, time);
+            if (!inRange) return;
+
+            int at = customerEnd;
+            while (at < eol) {
+                int nameEnd = next(buf, at + 1, eol);
+                if (nameEnd >= eol) return;
+                int priceEnd = next(buf, nameEnd + 1, eol);
+                long cents = parseCents(buf, nameEnd + 1, priceEnd);
+                if (cents != Long.MIN_VALUE) t.items.add(buf, at + 1, nameEnd, 1, cents, time);
+                at = priceEnd;
+            }
+        } else if (inRange) {
+            int statusEnd = next(buf, timeEnd + 1, eol);
+            if (statusEnd >= eol || !matches(buf, timeEnd + 1, statusEnd, DELIVERED)) return;
+            int driverEnd = next(buf, statusEnd + 1, eol);
+            if (driverEnd > statusEnd + 1) t.drivers.add(buf, statusEnd + 1, driverEnd, 1, 0, time);
+        }
+    }
+
+    /**
+     * The end of the field starting at p: the comma after it, or eol.
+     * A quoted field runs to its closing quote.
+     */
+    private static int next(ByteBuffer buf, int p, int eol) {
+        if (p < eol && buf.get(p) == '"') {
+            p++;
+            while (p < eol) {
+                if (buf.get(p++) == '"') {
+                    if (p < eol && buf.get(p) == '"') {
+                        p++;
+                    } else {
+                        break;
+                    }
+                }
+            }
+        }
+        while (p < eol && buf.get(p) != ',') p++;
+        return p;
+    }
+
+    /**
+     * A non-negative decimal number, or -1 if the field is not one.
+     */
+    private static long parseLong(ByteBuffer buf, int from, int to) {
+        if (from >= to) return -1;
+        long v = 0;
+        for (int i = from; i < to; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) return -1;
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    /**
+     * A price as written by {@link Money#toString}, in cents, or
+     * Long.MIN_VALUE if the field is not one.
+     */
+    private static long parseCents(ByteBuffer buf, int from, int to) {
+        boolean negative = from < to && buf.get(from) == '-';
+        if (negative) from++;
+
+        long cents = 0;
+        int decimals = -1;
+        for (int i = from; i < to; i++) {
+            byte b = buf.get(i);
+            if (b == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (b >= '0' && b <= '9' && decimals < 2) {
+                cents = cents * 10 + (b - '0');
+                if (decimals >= 0) decimals++;
+            } else {
+                return Long.MIN_VALUE;
+            }
+        }
+        if (from >= to) return Long.MIN_VALUE;
+        for (int i = Math.max(decimals, 0); i < 2; i++) {
+            cents *= 10;
+        }
+        return negative ? -cents : cents;
+    }
+
+    private static boolean matches(ByteBuffer buf, int from, int to, byte[] expected) {
+        if (to - from != expected.length) return false;
+        for (int i = 0; i < expected.length; i++) {
+            if (buf.get(from + i) != expected[i]) return false;
+        }
+        return true;
+    }
+
+    // ============================================================
+    // KEY TABLE
+    // ============================================================
+
+    /**
+     * Open-addressing table from a name, as raw field bytes, to a count,
+     * a sum and the latest time. Looked up straight from the mapped log,
+     * so a name is only copied the first time a chunk sees it.
+     */
+    private static final class KeyTable {
+        byte[][] keys = new byte[64][];
+        int[] hashes = new int[64];
+        long[] count = new long[64];
+        long[] sum = new long[64];
+        long[] latest = new long[64];
+        int size;
+
+        void add(ByteBuffer buf, int from, int to, long n, long amount, long time) {
+            int h = 1;
+            for (int p = from; p < to; p++) {
+                h = 31 * h + buf.get(p);
+            }
+
+            int mask = keys.length - 1;
+            int i = (h ^ (h >>> 16)) & mask;
+            while (keys[i] != null && !(hashes[i] == h && equal(keys[i], buf, from, to))) {
+                i = (i + 1) & mask;
+            }
+
+            boolean added = keys[i] == null;
+            if (added) {
+                byte[] key = new byte[to - from];
+                buf.get(from, key);
+                keys[i] = key;
+                hashes[i] = h;
+                size++;
+            }
+            count[i] += n;
+            sum[i] += amount;
+            latest[i] = Math.max(latest[i], time);
+            if (added && size * 2 > keys.length) grow();
+        }
+
+        void addAll(KeyTable other) {
+            for (int i = 0; i < other.keys.length; i++) {
+                byte[] k = other.keys[i];
+                if (k != null) add(ByteBuffer.wrap(k), 0, k.length, other.count[i], other.sum[i], other.latest[i]);
+            }
+        }
+
+        private static boolean equal(byte[] key, ByteBuffer buf, int from, int to) {
+            if (key.length != to - from) return false;
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buf.get(from + i)) return false;
+            }
+            return true;
+        }
+
+        private void grow() {
+            byte[][] oldKeys = keys;
+            int[] oldHashes = hashes;
+            long[] oldCount = count;
+            long[] oldSum = sum;
+            long[] oldLatest = latest;
+
+            int capacity = oldKeys.length * 2;
+            keys = new byte[capacity][];
+            hashes = new int[capacity];
+            count = new long[capacity];
+            sum = new long[capacity];
+            latest = new long[capacity];
+
+            int mask = capacity - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] == null) continue;
+                int h = oldHashes[j];
+                int i = (h ^ (h >>> 16)) & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                hashes[i] = h;
+                count[i] = oldCount[j];
+                sum[i] = oldSum[j];
+                latest[i] = oldLatest[j];
+            }
+        }
+
+        /**
+         * The name in slot i, unquoted if it was written quoted.
+         */
+        String key(int i) {
+            String s = new String(keys[i], StandardCharsets.UTF_8);
+            if (s.length() >= 2 && s.charAt(0) == '"') {
+                s = s.substring(1, s.length() - 1).replace("\"\"", "\"");
+            }
+            return s;
+        }
+    }
+}
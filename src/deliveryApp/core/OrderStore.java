@@ -0,0 +1,89 @@
+package deliveryApp.core;
+
+import deliveryApp.orders.Order;
+import deliveryApp.orders.OrderStatus;
+
+import java.util.EnumMap;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Stream;
+
+/**
+ * All orders, kept both by ID and partitioned by status, so the handful
+ * of active orders never has to be picked out of the ever-growing
+ * DELIVERED history. Both views are sorted by ID, which lets callers
+ * page through them with a cursor instead of copying everything.
+ *
+ * Backed by skip lists, so reads and writes from many threads never
+ * block each other and streams are weakly consistent.
+ */
+class OrderStore {
+
+    private final NavigableMap<Integer, Order> byId = new ConcurrentSkipListMap<>();
+    private final EnumMap<OrderStatus, NavigableMap<Integer, Order>> byStatus =
+            new EnumMap<>(OrderStatus.class);
+
+    // Skip-list size() is a full walk, so counts are kept on the side
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicIntegerArray perStatus = new AtomicIntegerArray(OrderStatus.values().length);
+
+    OrderStore() {
+        for (OrderStatus s : OrderStatus.values()) {
+            byStatus.put(s, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    void add(Order o) {
+        byId.put(o.getOrderId(), o);
+        byStatus.get(o.getStatus()).put(o.getOrderId(), o);
+        total.incrementAndGet();
+        perStatus.incrementAndGet(o.getStatus().ordinal());
+    }
+
+    /**
+     * Moves the order to the partition for its current status.
+     */
+    void statusChanged(Order o, OrderStatus previous) {
+        if (previous == o.getStatus()) return;
+        if (byStatus.get(previous).remove(o.getOrderId()) != null) {
+            perStatus.decrementAndGet(previous.ordinal());
+        }
+        if (byStatus.get(o.getStatus()).put(o.getOrderId(), o) == null) {
+            perStatus.incrementAndGet(o.getStatus().ordinal());
+        }
+    }
+
+    /**
+     * Drops the order, e.g. once it has been archived.
+     */
+    void remove(Order o) {
+        if (byId.remove(o.getOrderId()) == null) return;
+        total.decrementAndGet();
+        if (byStatus.get(o.getStatus()).remove(o.getOrderId()) != null) {
+            perStatus.decrementAndGet(o.getStatus().ordinal());
+        }
+    }
+
+    Order get(int id) {
+        return byId.get(id);
+    }
+
+    int size() {
+        return total.get();
+    }
+
+    int count(OrderStatus status) {
+        return perStatus.get(status.ordinal());
+    }
+
+    /**
+     * Lazily walks orders with ID >= fromId in ID order, restricted to one
+     * status (or all orders if status is null), stopping after limit orders.
+     */
+    Stream<Order> stream(OrderStatus status, int fromId, int limit) {
+        NavigableMap<Integer, Order> source = (status == null) ? byId : byStatus.get(status);
+        return source.tailMap(fromId, true).values().stream().limit(limit);
+    }
+}
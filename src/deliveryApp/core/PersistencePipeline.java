@@ -0,0 +1,322 @@
+package deliveryApp.core;
+
+import deliveryApp.metrics.LatencyHistogram;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Takes file writes off the threads that make changes. Changes are
+ * published into a fixed ring of slots and a single writer thread drains
+ * them: whatever has piled up is written with one gathering write per
+ * file, then each file is synced once (group commit), so a burst of
+ * changes costs a few syscalls however many threads made it.
+ *
+ * Publishing does not wake the writer: it lingers up to a millisecond
+ * between batches, so changes pile up without a context switch each.
+ * Someone waiting for durability, or a ring filling up, wakes it early.
+ *
+ * Records for one file are written in the order they were published;
+ * publishers that need an order across threads, like the order log,
+ * publish while holding their own lock. When the ring is full,
+ * publishers wait for the writer. {@link #append} returns a sequence
+ * number that {@link #awaitDurable} can wait on; callers that do not
+ * need to know skip the wait.
+ */
+final class PersistencePipeline implements AutoCloseable {
+
+    /**
+     * A file the pipeline appends to. Both methods are only called on the
+     * writer thread (or the caller's, once the pipeline is closed).
+     */
+    interface Sink {
+        /**
+         * Appends the buffers, in order.
+         */
+        void write(ByteBuffer[] data, int count);
+
+        /**
+         * Forces everything written so far to the device.
+         */
+        void sync();
+    }
+
+    /** Slots in the ring, by default. */
+    static final int DEFAULT_CAPACITY = 8192;
+
+    // Records taken per batch; bounds how long a batch holds up the next
+    private static final int MAX_BATCH = 1024;
+
+    // How long the writer waits for more records before a batch
+    private static final long LINGER_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // How long a waiter sleeps between checks, in case the writer died
+    private static final long AWAIT_MILLIS = 50;
+
+    // How long a publisher waits between checks while the ring is full
+    private static final long FULL_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    // Set in the claimed sequence once the pipeline is closed
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    /**
+     * One record: a buffer to append to a sink, or a job to run in turn.
+     * Published once seq holds its sequence number.
+     */
+    private static final class Slot {
+        volatile long seq = -1;
+        Sink sink;
+        ByteBuffer data;
+        Runnable job;
+    }
+
+    private final Slot[] ring;
+    private final int mask;
+    private final boolean sync;
+    private final LatencyHistogram commitTimes;
+
+    // Next sequence to hand out; everything below it has been claimed. The
+    // CLOSED bit is set in the same word, so no slot can be claimed after
+    // close() has read how many there are to drain
+    private final AtomicLong claimed = new AtomicLong();
+
+    // Everything below these has been taken off the ring / written and synced
+    private volatile long consumed;
+    private volatile long durable;
+
+    private final Object durableLock = new Object();
+
+    private final Thread writer;
+
+    /**
+     * Starts the writer thread. With sync off, batches are written but
+     * not forced to the device.
+     */
+    PersistencePipeline(int capacity, boolean sync, LatencyHistogram commitTimes) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.ring = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.sync = sync;
+        this.commitTimes = commitTimes;
+
+        writer = new Thread(this::run, "persistence-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // ============================================================
+    // PUBLISHING
+    // ============================================================
+
+    /**
+     * Queues the buffer to be appended to the sink. Returns its sequence
+     * number. Once the pipeline is closed the write happens right here,
+     * after the writer has drained everything claimed before.
+     */
+    long append(Sink sink, ByteBuffer data) {
+        return publish(sink, data, null);
+    }
+
+    /**
+     * Queues a job, e.g. rewriting a small file, to run on the writer
+     * thread after everything published before it has been taken.
+     */
+    long run(Runnable job) {
+        return publish(null, null, job);
+    }
+
+    private long publish(Sink sink, ByteBuffer data, Runnable job) {
+        long seq;
+        do {
+            seq = claimed.get();
+            if ((seq & CLOSED) != 0) return publishClosed(sink, data, job);
+        } while (!claimed.compareAndSet(seq, seq + 1));
+
+        while (seq - consumed >= ring.length) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(FULL_WAIT_NANOS);
+        }
+
+        Slot s = ring[(int) seq & mask];
+        s.sink = sink;
+        s.data = data;
+        s.job = job;
+        s.seq = seq;
+
+        if (seq - consumed >= ring.length / 2) LockSupport.unpark(writer);
+        return seq;
+    }
+
+    /**
+     * Writes on the caller's thread once the writer is gone, so nothing
+     * overtakes a record still on the ring.
+     */
+    private long publishClosed(Sink sink, ByteBuffer data, Runnable job) {
+        joinWriter();
+        synchronized (this) {
+            if (job != null) {
+                job.run();
+            } else {
+                sink.write(new ByteBuffer[]{data}, 1);
+                if (sync) sink.sync();
+            }
+        }
+        return lastClaimed();
+    }
+
+    private long lastClaimed() {
+        return (claimed.get() & ~CLOSED) - 1;
+    }
+
+    // ============================================================
+    // WAITING
+    // ============================================================
+
+    /**
+     * Waits until the record with this sequence number, and every one
+     * before it, has been written and synced.
+     */
+    void awaitDurable(long seq) {
+        if (durable > seq) return;
+        LockSupport.unpark(writer);
+        synchronized (durableLock) {
+            try {
+                while (durable <= seq && writer.isAlive()) {
+                    durableLock.wait(AWAIT_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Waits until everything published so far is written and synced.
+     */
+    void awaitDurable() {
+        awaitDurable(lastClaimed());
+    }
+
+    // ============================================================
+    // WRITER
+    // ============================================================
+
+    /**
+     * A batch's appends to one sink.
+     */
+    private static final class Pending {
+        final Sink sink;
+        final ByteBuffer[] data;
+        int count;
+
+        Pending(Sink sink, int capacity) {
+            this.sink = sink;
+            this.data = new ByteBuffer[capacity];
+        }
+    }
+
+    private void run() {
+        Slot[] batch = new Slot[MAX_BATCH];
+        long next = 0;
+
+        while (true) {
+            int n = 0;
+            while (n < MAX_BATCH && ring[(int) (next + n) & mask].seq == next + n) {
+                batch[n] = ring[(int) (next + n) & mask];
+                n++;
+            }
+
+            if (n == 0) {
+                long c = claimed.get();
+                if ((c & CLOSED) != 0 && next == (c & ~CLOSED)) return;
+                LockSupport.parkNanos(LINGER_NANOS);
+                continue;
+            }
+
+            long start = System.nanoTime();
+            try {
+                commit(batch, n);
+            } catch (RuntimeException e) {
+                System.out.println("Error writing to disk: " + e.getMessage());
+            }
+            commitTimes.recordSince(start);
+
+            for (int i = 0; i < n; i++) {
+                batch[i].sink = null;
+                batch[i].data = null;
+                batch[i].job = null;
+                batch[i] = null;
+            }
+            next += n;
+            consumed = next;
+            synchronized (durableLock) {
+                durable = next;
+                durableLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes one batch: the appends grouped per sink, each sink synced
+     * once, then the jobs in the order they were published.
+     */
+    private void commit(Slot[] batch, int n) {
+        // Only a handful of sinks exist, so a list beats a map
+        List<Pending> pending = new ArrayList<>(2);
+        for (int i = 0; i < n; i++) {
+            Slot s = batch[i];
+            if (s.sink == null) continue;
+
+            Pending p = null;
+            for (Pending q : pending) {
+                if (q.sink == s.sink) p = q;
+            }
+            if (p == null) {
+                p = new Pending(s.sink, n);
+                pending.add(p);
+            }
+            p.data[p.count++] = s.data;
+        }
+
+        for (Pending p : pending) {
+            p.sink.write(p.data, p.count);
+        }
+        if (sync) {
+            for (Pending p : pending) {
+                p.sink.sync();
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (batch[i].job != null) batch[i].job.run();
+        }
+    }
+
+    /**
+     * Stops new claims, writes out every record already claimed and stops
+     * the writer. Later changes are written on the caller's thread.
+     */
+    @Override
+    public void close() {
+        claimed.getAndUpdate(c -> c | CLOSED);
+        joinWriter();
+    }
+
+    private void joinWriter() {
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package deliveryApp.core;
+
+import deliveryApp.orders.OrderStatus;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * How long an order may stay accepted or in progress, and what happens
+ * when it stays longer. Immutable; {@link #with} returns a changed copy.
+ *
+ * Only ACCEPTED and IN_PROGRESS have limits. An order that has not been
+ * picked up in time can be handed to another driver; one already on its
+ * way cannot, but its driver can be released for new orders.
+ */
+public final class SlaPolicy {
+
+    public enum Action {
+        /** List the order for admins. */
+        FLAG,
+        /** Take the order off its driver and dispatch it again (ACCEPTED only). */
+        REASSIGN,
+        /** Free the driver's slot for other orders and flag the order. */
+        RELEASE_DRIVER
+    }
+
+    public record Rule(Duration limit, Action action) {
+    }
+
+    private static final SlaPolicy NONE = new SlaPolicy(new EnumMap<>(OrderStatus.class));
+
+    private final Map<OrderStatus, Rule> rules;
+
+    private SlaPolicy(EnumMap<OrderStatus, Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * No limits at all.
+     */
+    public static SlaPolicy none() {
+        return NONE;
+    }
+
+    /**
+     * Flags orders still ACCEPTED after 30 minutes or IN_PROGRESS after 90.
+     */
+    public static SlaPolicy defaults() {
+        return NONE.with(OrderStatus.ACCEPTED, Duration.ofMinutes(30), Action.FLAG)
+                .with(OrderStatus.IN_PROGRESS, Duration.ofMinutes(90), Action.FLAG);
+    }
+
+    /**
+     * Returns a copy with the rule for one status replaced; a null limit
+     * removes it.
+     */
+    public SlaPolicy with(OrderStatus status, Duration limit, Action action) {
+        if (status != OrderStatus.ACCEPTED && status != OrderStatus.IN_PROGRESS) {
+            throw new IllegalArgumentException("No SLA for " + status);
+        }
+        if (action == Action.REASSIGN && status != OrderStatus.ACCEPTED) {
+            throw new IllegalArgumentException("Only accepted orders can be reassigned");
+        }
+
+        EnumMap<OrderStatus, Rule> next = new EnumMap<>(OrderStatus.class);
+        next.putAll(rules);
+        if (limit == null) {
+            next.remove(status);
+        } else {
+            next.put(status, new Rule(limit, action));
+        }
+        return new SlaPolicy(next);
+    }
+
+    /**
+     * The rule for orders in this status, or null if there is none.
+     */
+    public Rule rule(OrderStatus status) {
+        return rules.get(status);
+    }
+
+    @Override
+    public String toString() {
+        return rules.toString();
+    }
+}
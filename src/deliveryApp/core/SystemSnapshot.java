@@ -0,0 +1,404 @@
+package deliveryApp.core;
+
+import deliveryApp.menu.MenuCatalog;
+import deliveryApp.menu.MenuItem;
+import deliveryApp.menu.Money;
+import deliveryApp.orders.Order;
+import deliveryApp.orders.OrderStatus;
+import deliveryApp.users.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Versioned binary image of the whole system: users (drivers with their
+ * rating windows), the menu and the orders, plus the order ID counter and
+ * how far into the order log the image reaches. Startup maps the file and
+ * decodes it straight out of the page cache, which is far quicker than
+ * splitting CSV lines, and names may contain any character.
+ *
+ * <pre>
+ *   header   magic, format version, written-at millis, next order ID, order log offset
+ *   users    count, then per user: type, username, password, name, phone, email,
+ *            then a customer's address, or a driver's ratings, position and capacity
+ *   menu     version, next item ID, count, then per item: id, name, cents
+ *   orders   count, then per order: id, status, when it was placed and when it
+ *            entered its status, customer, driver, items (name, cents, id)
+ *   footer   offsets of the three sections
+ *   crc      CRC-32C of everything before it
+ * </pre>
+ *
+ * Strings are a varint byte length followed by UTF-8. A location is a
+ * presence byte, then x and y as doubles if present. Older files, from
+ * before locations (1), capacities (2), order times (3) or the next item
+ * ID (4), are still read. The file is written
+ * to a temp file and renamed into place, so a reader sees a whole image or
+ * the previous one.
+ */
+final class SystemSnapshot {
+
+    private static final int MAGIC = 0x44534E50;   // "DSNP"
+    private static final int FORMAT_VERSION = 5;
+
+    // First version with customer addresses and driver positions
+    private static final int LOCATIONS_VERSION = 2;
+
+    // First version with driver capacities
+    private static final int CAPACITY_VERSION = 3;
+
+    // First version with order timestamps
+    private static final int TIMES_VERSION = 4;
+
+    // First version with the menu's next item ID
+    private static final int NEXT_ITEM_ID_VERSION = 5;
+
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 8;
+    private static final int FOOTER_BYTES = 3 * 4 + 4;
+
+    private static final byte ADMIN = 0;
+    private static final byte CUSTOMER = 1;
+    private static final byte DRIVER = 2;
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    /**
+     * Receives orders as they are decoded. The times are epoch millis, or
+     * 0 if the file is too old to have them.
+     */
+    interface OrderSink {
+        void order(int id, OrderStatus status, long placedAt, long statusAt,
+                   String customer, String driver, List<MenuItem> items);
+    }
+
+    private final ByteBuffer buf;
+    private final int version;
+    private final long writtenAt;
+    private final int nextOrderId;
+    private final long orderLogOffset;
+    private final int usersAt;
+    private final int menuAt;
+    private final int ordersAt;
+
+    // Reused for decoding strings
+    private byte[] scratch = new byte[256];
+
+    private SystemSnapshot(ByteBuffer buf) throws IOException {
+        this.buf = buf;
+
+        if (buf.getInt(0) != MAGIC) throw new IOException("not a snapshot file");
+        version = buf.getInt(4);
+        if (version < 1 || version > FORMAT_VERSION) throw new IOException("unsupported snapshot version " + version);
+
+        writtenAt = buf.getLong(8);
+        nextOrderId = buf.getInt(16);
+        orderLogOffset = buf.getLong(20);
+
+        int footer = buf.limit() - FOOTER_BYTES;
+        usersAt = buf.getInt(footer);
+        menuAt = buf.getInt(footer + 4);
+        ordersAt = buf.getInt(footer + 8);
+    }
+
+    // ============================================================
+    // READING
+    // ============================================================
+
+    /**
+     * Maps and checks a snapshot file. Returns null if there is none, or
+     * if it is damaged (after saying so), in which case the caller falls
+     * back to the CSV files.
+     */
+    static SystemSnapshot open(Path file) {
+        if (!Files.exists(file)) return null;
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES + FOOTER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("bad snapshot size " + size);
+            }
+
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            CRC32C crc = new CRC32C();
+            crc.update(map.duplicate().limit((int) size - 4));
+            if ((int) crc.getValue() != map.getInt((int) size - 4)) {
+                throw new IOException("snapshot checksum mismatch");
+            }
+
+            return new SystemSnapshot(map);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error reading snapshot (" + e.getMessage() + "). Loading from CSV files.");
+            return null;
+        }
+    }
+
+    long getWrittenAt() {
+        return writtenAt;
+    }
+
+    int getNextOrderId() {
+        return nextOrderId;
+    }
+
+    /**
+     * Length of the order log covered by this image; only events after it need replaying.
+     */
+    long getOrderLogOffset() {
+        return orderLogOffset;
+    }
+
+    /**
+     * Decodes the users one at a time, so no list of a million users is
+     * built only to be copied into the caller's map.
+     */
+    void readUsers(Consumer<User> sink) {
+        ByteBuffer in = buf.duplicate().position(usersAt);
+        int count = in.getInt();
+
+        for (int i = 0; i < count; i++) {
+            byte type = in.get();
+            String userName = readString(in);
+            String password = readString(in);
+            String name = readString(in);
+            String phone = readString(in);
+            String email = readString(in);
+
+            switch (type) {
+                case ADMIN -> sink.accept(new Admin(userName, password, name, phone, email));
+                case CUSTOMER -> {
+                    Customer c = new Customer(userName, password, name, phone, email);
+                    if (version >= LOCATIONS_VERSION) c.setAddress(readLocation(in));
+                    sink.accept(c);
+                }
+                case DRIVER -> {
+                    Driver d = new Driver(userName, password, name, phone, email,
+                            RatingWindow.readFrom(in));
+                    if (version >= LOCATIONS_VERSION) d.setPosition(readLocation(in));
+                    if (version >= CAPACITY_VERSION) d.setCapacity(readVarInt(in));
+                    sink.accept(d);
+                }
+                default -> throw new IllegalStateException("bad user type " + type);
+            }
+        }
+    }
+
+    MenuCatalog readMenu() {
+        ByteBuffer in = buf.duplicate().position(menuAt);
+        in.getLong();   // catalog version; a reloaded catalog starts over
+        int nextId = version >= NEXT_ITEM_ID_VERSION ? in.getInt() : 1;
+        int count = in.getInt();
+
+        List<MenuItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = readVarInt(in);
+            String name = readString(in);
+            items.add(new MenuItem(id, name, Money.ofCents(readVarLong(in))));
+        }
+        return MenuCatalog.of(items, nextId);
+    }
+
+    void readOrders(OrderSink sink) {
+        ByteBuffer in = buf.duplicate().position(ordersAt);
+        int count = in.getInt();
+
+        for (int i = 0; i < count; i++) {
+            int id = in.getInt();
+            OrderStatus status = STATUSES[in.get()];
+            long placedAt = 0;
+            long statusAt = 0;
+            if (version >= TIMES_VERSION) {
+                placedAt = readVarLong(in);
+                statusAt = readVarLong(in);
+            }
+            String customer = readString(in);
+            String driver = readString(in);
+
+            int n = readVarInt(in);
+            List<MenuItem> items = new ArrayList<>(n);
+            for (int j = 0; j < n; j++) {
+                String name = readString(in);
+                long cents = readVarLong(in);
+                items.add(new MenuItem(readVarInt(in), name, Money.ofCents(cents)));
+            }
+            sink.order(id, status, placedAt, statusAt, customer, driver.isEmpty() ? null : driver, items);
+        }
+    }
+
+    private static Location readLocation(ByteBuffer in) {
+        if (in.get() == 0) return null;
+        return new Location(in.getDouble(), in.getDouble());
+    }
+
+    private String readString(ByteBuffer in) {
+        int len = readVarInt(in);
+        if (len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+        in.get(scratch, 0, len);
+        return new String(scratch, 0, len, StandardCharsets.UTF_8);
+    }
+
+    static int readVarInt(ByteBuffer in) {
+        return (int) readVarLong(in);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    // ============================================================
+    // WRITING
+    // ============================================================
+
+    /**
+     * Writes a snapshot of the given state. Orders are read as the stream
+     * walks them; they may be newer than orderLogOffset, never older, so
+     * replaying the log from the offset brings them up to date.
+     *
+     * Returns false (after saying why) if the file could not be written.
+     */
+    static boolean write(Path target, Iterable<User> users, MenuCatalog menu,
+                         int nextOrderId, long orderLogOffset, Iterable<Order> orders) {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        CRC32C crc = new CRC32C();
+
+        try (OutputStream file = Files.newOutputStream(tmp)) {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16));
+
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(nextOrderId);
+            out.writeLong(orderLogOffset);
+
+            int usersAt = out.size();
+            List<User> list = new ArrayList<>();
+            users.forEach(list::add);
+            out.writeInt(list.size());
+            for (User u : list) {
+                out.writeByte(u instanceof Admin ? ADMIN : u instanceof Driver ? DRIVER : CUSTOMER);
+                writeString(out, u.getUserName());
+                writeString(out, u.getPassword());
+                writeString(out, u.getName());
+                writeString(out, u.getPhoneNumber());
+                writeString(out, u.getEmail());
+                if (u instanceof Customer c) {
+                    writeLocation(out, c.getAddress());
+                } else if (u instanceof Driver d) {
+                    d.writeRatings(out);
+                    writeLocation(out, d.getPosition());
+                    writeVarLong(out, d.getCapacity());
+                }
+            }
+
+            int menuAt = out.size();
+            out.writeLong(menu.getVersion());
+            out.writeInt(menu.getNextId());
+            out.writeInt(menu.size());
+            for (MenuItem item : menu.getItems()) {
+                writeVarLong(out, item.getId());
+                writeString(out, item.getName());
+                writeVarLong(out, item.getPrice().getCents());
+            }
+
+            // The count goes first, but orders can be added while we walk
+            // them, so buffer this section to learn the count
+            ByteArrayOutputStream orderBytes = new ByteArrayOutputStream(1 << 16);
+            DataOutputStream ob = new DataOutputStream(orderBytes);
+            int orderCount = 0;
+            for (Order o : orders) {
+                // Read together, so a requeue or reassignment cannot land in between
+                OrderStatus status;
+                Driver d;
+                long placedAt;
+                long statusAt;
+                synchronized (o) {
+                    status = o.getStatus();
+                    d = o.getDriver();
+                    placedAt = o.getStatusTime(OrderStatus.PLACED);
+                    statusAt = o.getStatusTime(status);
+                }
+
+                ob.writeInt(o.getOrderId());
+                ob.writeByte(status.ordinal());
+                writeVarLong(ob, placedAt);
+                writeVarLong(ob, statusAt);
+                writeString(ob, o.getCustomer().getUserName());
+                writeString(ob, d == null ? "" : d.getUserName());
+                writeVarLong(ob, o.getItems().size());
+                for (MenuItem item : o.getItems()) {
+                    writeString(ob, item.getName());
+                    writeVarLong(ob, item.getPrice().getCents());
+                    writeVarLong(ob, item.getId());
+                }
+                orderCount++;
+            }
+
+            int ordersAt = out.size();
+            out.writeInt(orderCount);
+            orderBytes.writeTo(out);
+
+            out.writeInt(usersAt);
+            out.writeInt(menuAt);
+            out.writeInt(ordersAt);
+            // size() sticks at Integer.MAX_VALUE once it overflows
+            if (out.size() == Integer.MAX_VALUE) throw new IOException("snapshot larger than 2 GB");
+            out.flush();
+
+            // The checksum covers everything written so far
+            file.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+        } catch (IOException e) {
+            System.out.println("Error writing snapshot: " + e.getMessage());
+            return false;
+        }
+
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error saving snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void writeLocation(DataOutput out, Location l) throws IOException {
+        if (l == null) {
+            out.writeByte(0);
+            return;
+        }
+        out.writeByte(1);
+        out.writeDouble(l.x());
+        out.writeDouble(l.y());
+    }
+
+    static void writeString(DataOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
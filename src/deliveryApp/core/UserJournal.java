@@ -0,0 +1,289 @@
+package deliveryApp.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Append-only journal of user upserts. Each change to a user appends one
+ * CSV record holding that user's full state, so the cost of a change does
+ * not depend on how many users exist.
+ *
+ * Once the journal holds about as many records as there are users it is
+ * rotated aside and a background thread rewrites the snapshot files; the
+ * rotated journal is deleted only after the new snapshot is in place, so
+ * a crash during compaction never loses a record. Appends and rotation
+ * are synchronized on the journal.
+ *
+ * With a {@link PersistencePipeline}, records are written by its writer
+ * thread; rotation waits for those already queued, so each lands in the
+ * file it was meant for.
+ */
+class UserJournal implements AutoCloseable, PersistencePipeline.Sink {
+
+    /** Never compact before this many records, however few users exist. */
+    private static final int MIN_COMPACT_RECORDS = 1024;
+
+    private final Path journal;
+    private final Path rotated;
+
+    private volatile FileChannel channel;
+    private int records;
+
+    // Null to write on the caller's thread
+    private final PersistencePipeline pipeline;
+    private long lastSeq = -1;
+
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "user-journal-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> compaction;
+
+    private final StringBuilder line = new StringBuilder(128);
+
+    UserJournal(Path journal, PersistencePipeline pipeline) {
+        this.journal = journal;
+        this.pipeline = pipeline;
+        this.rotated = journal.resolveSibling(journal.getFileName() + ".compacting");
+    }
+
+    /**
+     * Replays the rotated journal left by an interrupted compaction (if any)
+     * and then the live journal. Returns the number of records replayed.
+     */
+    int replay(Consumer<List<String>> upsert) {
+        return replayFile(rotated, upsert) + replayFile(journal, upsert);
+    }
+
+    private int replayFile(Path path, Consumer<List<String>> upsert) {
+        if (!Files.exists(path)) return 0;
+
+        int count = 0;
+        List<String> fields = new ArrayList<>();
+
+        try (BufferedReader br = Files.newBufferedReader(path)) {
+            String l;
+            while ((l = br.readLine()) != null) {
+                CsvFields.split(l, fields);
+                upsert.accept(fields);
+                count++;
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading user journal.");
+        }
+        return count;
+    }
+
+    void open() throws IOException {
+        if (channel != null) return;
+        channel = FileChannel.open(journal,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Appends one upsert record made of the given fields.
+     */
+    synchronized void append(String... fields) {
+        if (channel == null) return;
+
+        line.setLength(0);
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) line.append(',');
+            CsvFields.append(line, fields[i]);
+        }
+        line.append('\n');
+
+        ByteBuffer buf = ByteBuffer.wrap(line.toString().getBytes(StandardCharsets.UTF_8));
+        if (pipeline != null) {
+            lastSeq = pipeline.append(this, buf);
+        } else {
+            write(new ByteBuffer[]{buf}, 1);
+        }
+        records++;
+    }
+
+    /**
+     * Writes records; on the pipeline's writer thread if there is one.
+     */
+    @Override
+    public void write(ByteBuffer[] data, int count) {
+        try {
+            while (data[count - 1].hasRemaining()) {
+                channel.write(data, 0, count);
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing user journal.");
+        }
+    }
+
+    @Override
+    public void sync() {
+        try {
+            FileChannel ch = channel;
+            if (ch != null) ch.force(false);
+        } catch (IOException e) {
+            System.out.println("Error syncing user journal.");
+        }
+    }
+
+    /**
+     * Waits until the records queued with the pipeline are in the file,
+     * before the file is moved or closed. Caller holds the journal.
+     */
+    private void drain() {
+        if (pipeline != null) pipeline.awaitDurable(lastSeq);
+    }
+
+    /**
+     * Compacts once the journal has grown to the size of the user base and
+     * no compaction is already running. The snapshot is rendered while the
+     * journal is locked, so no record can slip between rotation and snapshot.
+     */
+    synchronized void compactIfNeeded(int userCount, Supplier<BooleanSupplier> snapshot) {
+        if (records < Math.max(MIN_COMPACT_RECORDS, userCount)) return;
+        if (compaction != null && !compaction.isDone()) return;
+
+        compact(snapshot.get());
+    }
+
+    /**
+     * Compacts straight away, e.g. on a timer or at shutdown, unless a
+     * compaction is already running. Returns true if one was started.
+     */
+    synchronized boolean compactNow(Supplier<BooleanSupplier> snapshot) {
+        if (channel == null) return false;
+        if (compaction != null && !compaction.isDone()) return false;
+
+        compact(snapshot.get());
+        return true;
+    }
+
+    /**
+     * Waits for a running compaction, if any, to finish.
+     */
+    void awaitCompaction() {
+        Future<?> running;
+        synchronized (this) {
+            running = compaction;
+        }
+        if (running == null) return;
+        try {
+            running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.out.println("Error compacting user journal.");
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        return records == 0;
+    }
+
+    /**
+     * Moves the live journal aside, starts a fresh one and runs the
+     * snapshot writer on the background thread. The rotated journal is
+     * removed once the writer reports that the snapshot is on disk. If the
+     * move fails, appends carry on into the live journal and the next
+     * compaction tries again.
+     */
+    private void compact(BooleanSupplier writeSnapshot) {
+        drain();
+        boolean moved = rotate();
+        try {
+            open();
+        } catch (IOException e) {
+            System.out.println("Error opening user journal.");
+            return;
+        }
+        if (!moved) return;
+        records = 0;
+
+        compaction = compactor.submit(() -> {
+            if (!writeSnapshot.getAsBoolean()) return;
+            try {
+                Files.deleteIfExists(rotated);
+            } catch (IOException e) {
+                System.out.println("Error removing compacted user journal.");
+            }
+        });
+    }
+
+    /**
+     * Closes the live journal and moves its records to the rotated file.
+     * Returns false, leaving them where they are, if that fails.
+     */
+    private boolean rotate() {
+        FileChannel live = channel;
+        channel = null;
+        try {
+            live.close();
+            if (Files.exists(rotated)) {
+                // An earlier snapshot failed; keep its records ahead of ours
+                Files.write(rotated, Files.readAllBytes(journal), StandardOpenOption.APPEND);
+                Files.delete(journal);
+            } else {
+                Files.move(journal, rotated, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error rotating user journal.");
+            return false;
+        }
+    }
+
+    /**
+     * Empties both journal files after the caller has written a snapshot
+     * that already contains every record (used once at startup).
+     */
+    synchronized void truncate() throws IOException {
+        drain();
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        Files.deleteIfExists(rotated);
+        Files.deleteIfExists(journal);
+        open();
+        records = 0;
+    }
+
+    @Override
+    public synchronized void close() {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (channel == null) return;
+        drain();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("Error closing user journal.");
+        }
+        channel = null;
+    }
+}
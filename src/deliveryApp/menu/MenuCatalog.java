@@ -0,0 +1,192 @@
+package deliveryApp.menu;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * An immutable snapshot of the menu. Every edit builds a new catalog with
+ * a higher version, so a reader holding a snapshot can browse it for as
+ * long as it likes without locking and without seeing a half-applied change.
+ *
+ * Items keep their ID for life, and a removed item's ID is not handed
+ * out again by later edits. The next free ID is stored alongside the
+ * items, so this holds across restarts too.
+ * Lookups by ID and by name (ignoring case) are single hash probes.
+ */
+public final class MenuCatalog {
+
+    private static final MenuCatalog EMPTY =
+            new MenuCatalog(0, List.of(), new MenuItem[1], new NameIndex(0));
+
+    private final long version;
+    private final List<MenuItem> items;
+    // Indexed by item ID; slots of removed items are null. Its length is the next free ID.
+    private final MenuItem[] byId;
+    private final NameIndex byName;
+
+    private MenuCatalog(long version, List<MenuItem> items, MenuItem[] byId, NameIndex byName) {
+        this.version = version;
+        this.items = Collections.unmodifiableList(items);
+        this.byId = byId;
+        this.byName = byName;
+    }
+
+    public static MenuCatalog empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds a catalog from items that already have IDs (e.g. loaded from disk).
+     * Items with ID 0 are given fresh IDs after the highest existing one.
+     */
+    public static MenuCatalog of(List<MenuItem> loaded) {
+        return of(loaded, 1);
+    }
+
+    /**
+     * Like {@link #of(List)}, but never hands out an ID below nextId, so
+     * IDs of items removed before the catalog was saved stay retired.
+     */
+    public static MenuCatalog of(List<MenuItem> loaded, int nextId) {
+        int next = Math.max(1, nextId);
+        for (MenuItem item : loaded) {
+            next = Math.max(next, item.getId() + 1);
+        }
+
+        int fresh = next;
+        for (MenuItem item : loaded) {
+            if (item.getId() <= 0) fresh++;
+        }
+
+        List<MenuItem> items = new ArrayList<>(loaded.size());
+        MenuItem[] byId = new MenuItem[fresh];
+        NameIndex byName = new NameIndex(loaded.size());
+
+        for (MenuItem item : loaded) {
+            if (item.getId() <= 0 || byId[item.getId()] != null) {
+                if (next == byId.length) byId = Arrays.copyOf(byId, next + 1);
+                item = new MenuItem(next++, item.getName(), item.getPrice());
+            }
+            items.add(item);
+            byId[item.getId()] = item;
+            // With duplicate names, the oldest item wins
+            byName.putIfAbsent(key(item.getName()), item);
+        }
+        return new MenuCatalog(1, items, byId, byName);
+    }
+
+    // ============================================================
+    // READS
+    // ============================================================
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * The ID the next added item will get; no item has had it or any above it.
+     */
+    public int getNextId() {
+        return byId.length;
+    }
+
+    /**
+     * All items in the order they were added.
+     */
+    public List<MenuItem> getItems() {
+        return items;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public MenuItem findById(int id) {
+        return (id > 0 && id < byId.length) ? byId[id] : null;
+    }
+
+    public MenuItem findByName(String name) {
+        return byName.get(key(name));
+    }
+
+    // ============================================================
+    // EDITS (each returns a new catalog)
+    // ============================================================
+
+    /*
+     * Edits copy the item list, the ID array and the name table (all plain
+     * array copies), then apply the change to the copies. Nothing the old
+     * snapshot can see is touched.
+     */
+
+    public MenuCatalog withItem(String name, Money price) {
+        MenuItem item = new MenuItem(byId.length, name, price);
+
+        List<MenuItem> copy = new ArrayList<>(items.size() + 1);
+        copy.addAll(items);
+        copy.add(item);
+
+        MenuItem[] ids = Arrays.copyOf(byId, byId.length + 1);
+        ids[item.getId()] = item;
+
+        NameIndex names = byName.copy();
+        names.putIfAbsent(key(name), item);
+
+        return new MenuCatalog(version + 1, copy, ids, names);
+    }
+
+    /**
+     * Returns a catalog without the item with this ID, or this catalog if there is none.
+     */
+    public MenuCatalog withoutId(int id) {
+        MenuItem gone = findById(id);
+        if (gone == null) return this;
+        return without(item -> item == gone);
+    }
+
+    /**
+     * Returns a catalog without any item of this name (ignoring case),
+     * or this catalog if there is none.
+     */
+    public MenuCatalog withoutName(String name) {
+        if (findByName(name) == null) return this;
+        return without(item -> item.getName().equalsIgnoreCase(name));
+    }
+
+    private MenuCatalog without(Predicate<MenuItem> drop) {
+        List<MenuItem> copy = new ArrayList<>(items.size());
+        MenuItem[] ids = byId.clone();
+        NameIndex names = byName.copy();
+        List<MenuItem> orphaned = new ArrayList<>();
+
+        for (MenuItem item : items) {
+            if (!drop.test(item)) {
+                copy.add(item);
+                continue;
+            }
+            ids[item.getId()] = null;
+            String k = key(item.getName());
+            if (names.get(k) == item) {
+                names.remove(k);
+                orphaned.add(item);
+            }
+        }
+
+        // A name whose first item went may still belong to a later one
+        for (MenuItem gone : orphaned) {
+            String k = key(gone.getName());
+            for (MenuItem item : copy) {
+                // equalsIgnoreCase is a cheap pre-check before building the key
+                if (item.getName().equalsIgnoreCase(gone.getName()) && key(item.getName()).equals(k)) {
+                    names.putIfAbsent(k, item);
+                    break;
+                }
+            }
+        }
+        return new MenuCatalog(version + 1, copy, ids, names);
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
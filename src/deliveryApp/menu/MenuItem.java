@@ -2,22 +2,31 @@ package deliveryApp.menu;
 
 /**
  * Represents a single menu item with a name and price.
+ * Items on the menu carry a stable ID from the MenuCatalog; items
+ * rebuilt from old order records have ID 0.
  */
 public class MenuItem {
 
+    private final int id;
     private final String name;
-    private final double price;
+    private final Money price;
 
-    public MenuItem(String n, double p) {
+    public MenuItem(int id, String n, Money p) {
+        this.id = id;
         name = n;
         price = p;
     }
 
+    public MenuItem(String n, Money p) {
+        this(0, n, p);
+    }
+
+    public int getId() { return id; }
     public String getName() { return name; }
-    public double getPrice() { return price; }
+    public Money getPrice() { return price; }
 
     @Override
     public String toString() {
-        return name + " - $" + String.format("%.2f", price);
+        return name + " - $" + price;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package deliveryApp.menu;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An exact amount of money, held as a whole number of cents. Sums of any
+ * number of prices come out to the cent, where doubles would drift.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    // Digits before the point of the largest amount a long holds in cents
+    private static final int MAX_WHOLE_DIGITS = 17;
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Parses a decimal amount such as "5.99", "3" or "3.0" (an optional
+     * leading "$" is ignored). Fractions of a cent are rounded half up.
+     *
+     * @throws NumberFormatException if the text is not a number, or too
+     *         large to hold in cents (e.g. "1e30")
+     */
+    public static Money parse(String text) {
+        String s = text.trim();
+        if (s.startsWith("$")) s = s.substring(1).trim();
+
+        BigDecimal amount = new BigDecimal(s);
+        // Checked before rescaling, which for "1e999999999" would build a huge number
+        if (amount.precision() - amount.scale() > MAX_WHOLE_DIGITS) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+        try {
+            return ofCents(amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money times(long n) {
+        return ofCents(Math.multiplyExact(cents, n));
+    }
+
+    public boolean isNegative() {
+        return cents < 0;
+    }
+
+    /**
+     * Plain decimal form with two places, e.g. "5.99" or "-0.50".
+     * This is the form written to files and read back by {@link #parse}.
+     */
+    @Override
+    public String toString() {
+        long abs = Math.abs(cents);
+        long frac = abs % 100;
+        return (cents < 0 ? "-" : "") + (abs / 100) + (frac < 10 ? ".0" : ".") + frac;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money m && m.cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+}
@@ -0,0 +1,102 @@
+package deliveryApp.menu;
+
+/**
+ * Open-addressing hash table from a lower-cased item name to an item,
+ * laid out in two flat arrays so a catalog edit can copy it with two
+ * array copies instead of re-inserting every entry.
+ *
+ * A table is only mutated right after {@link #copy()}, before the new
+ * catalog holding it is published; published tables are read-only.
+ */
+final class NameIndex {
+
+    private String[] keys;
+    private MenuItem[] values;
+    private int size;
+
+    NameIndex(int expected) {
+        int capacity = 16;
+        while (capacity < expected * 2) capacity <<= 1;
+        keys = new String[capacity];
+        values = new MenuItem[capacity];
+    }
+
+    private NameIndex(String[] keys, MenuItem[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    NameIndex copy() {
+        return new NameIndex(keys.clone(), values.clone(), size);
+    }
+
+    MenuItem get(String key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i].equals(key)) return values[i];
+        }
+        return null;
+    }
+
+    void putIfAbsent(String key, MenuItem item) {
+        if (size * 2 >= keys.length) grow();
+
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        for (; keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i].equals(key)) return;
+        }
+        keys[i] = key;
+        values[i] = item;
+        size++;
+    }
+
+    /**
+     * Removes the key, shifting later entries of its probe run back so
+     * lookups never stop early at the hole.
+     */
+    void remove(String key) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != null && !keys[i].equals(key)) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == null) return;
+
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == null) break;
+
+            int home = slot(keys[j], mask);
+            // Leave the entry where it is if its home lies in (i, j]
+            boolean stays = (i <= j) ? (i < home && home <= j) : (i < home || home <= j);
+            if (stays) continue;
+
+            keys[i] = keys[j];
+            values[i] = values[j];
+            i = j;
+        }
+        keys[i] = null;
+        values[i] = null;
+        size--;
+    }
+
+    private void grow() {
+        String[] oldKeys = keys;
+        MenuItem[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        values = new MenuItem[oldKeys.length * 2];
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) putIfAbsent(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private static int slot(String key, int mask) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
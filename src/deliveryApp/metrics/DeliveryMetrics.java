@@ -0,0 +1,210 @@
+package deliveryApp.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters and latency histograms for one DeliverySystem.
+ *
+ * The recording methods are called on the order path, so they only bump
+ * preallocated counters and never allocate. The queue gauges are read
+ * from the dispatcher when someone asks for them.
+ */
+public final class DeliveryMetrics implements DeliveryMetricsMXBean {
+
+    private final LongAdder ordersPlaced = new LongAdder();
+    private final LongAdder ordersAccepted = new LongAdder();
+    private final LongAdder ordersDelivered = new LongAdder();
+    private final LongAdder slaBreaches = new LongAdder();
+    private final LongAdder snapshotsWritten = new LongAdder();
+    private final LongAdder snapshotFailures = new LongAdder();
+
+    private final LatencyHistogram placeOrder = new LatencyHistogram();
+    private final LatencyHistogram placedToAccepted = new LatencyHistogram();
+    private final LatencyHistogram orderLogWrites = new LatencyHistogram();
+    private final LatencyHistogram snapshotWrites = new LatencyHistogram();
+    private final LatencyHistogram groupCommits = new LatencyHistogram();
+
+    private final IntSupplier pendingOrders;
+    private final IntSupplier availableDrivers;
+
+    private ObjectName registeredAs;
+
+    public DeliveryMetrics(IntSupplier pendingOrders, IntSupplier availableDrivers) {
+        this.pendingOrders = pendingOrders;
+        this.availableDrivers = availableDrivers;
+    }
+
+    // ============================================================
+    // RECORDING
+    // ============================================================
+
+    /**
+     * A single order was placed; startNanos is when placeOrder was entered.
+     */
+    public void orderPlaced(long startNanos) {
+        ordersPlaced.increment();
+        placeOrder.recordSince(startNanos);
+    }
+
+    /**
+     * Orders were placed as one batch.
+     */
+    public void ordersPlaced(int count) {
+        ordersPlaced.add(count);
+    }
+
+    /**
+     * An order got a driver; placedNanos is when the order was created.
+     */
+    public void orderAccepted(long placedNanos) {
+        ordersAccepted.increment();
+        placedToAccepted.recordSince(placedNanos);
+    }
+
+    public void orderDelivered() {
+        ordersDelivered.increment();
+    }
+
+    /**
+     * An order stayed in a status longer than its SLA allows.
+     */
+    public void slaBreached() {
+        slaBreaches.increment();
+    }
+
+    public void snapshotWritten(long startNanos, boolean ok) {
+        (ok ? snapshotsWritten : snapshotFailures).increment();
+        snapshotWrites.recordSince(startNanos);
+    }
+
+    /**
+     * Time taken by each write to the order event log.
+     */
+    public LatencyHistogram orderLogWrites() {
+        return orderLogWrites;
+    }
+
+    /**
+     * Time taken by each batch the persistence writer writes and syncs.
+     */
+    public LatencyHistogram groupCommits() {
+        return groupCommits;
+    }
+
+    // ============================================================
+    // JMX
+    // ============================================================
+
+    /**
+     * Registers with the platform MBean server. The data directory goes in
+     * the name, since several systems can live in one JVM.
+     */
+    public void register(String dataDir) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("deliveryApp:type=DeliveryMetrics,dir="
+                    + ObjectName.quote(dataDir));
+            server.registerMBean(this, name);
+            registeredAs = name;
+        } catch (JMException e) {
+            System.out.println("Error registering metrics: " + e.getMessage());
+        }
+    }
+
+    public void unregister() {
+        if (registeredAs == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredAs);
+        } catch (JMException e) {
+            System.out.println("Error unregistering metrics: " + e.getMessage());
+        }
+        registeredAs = null;
+    }
+
+    @Override
+    public long getOrdersPlaced() {
+        return ordersPlaced.sum();
+    }
+
+    @Override
+    public long getOrdersAccepted() {
+        return ordersAccepted.sum();
+    }
+
+    @Override
+    public long getOrdersDelivered() {
+        return ordersDelivered.sum();
+    }
+
+    @Override
+    public long getSlaBreaches() {
+        return slaBreaches.sum();
+    }
+
+    @Override
+    public int getPendingOrders() {
+        return pendingOrders.getAsInt();
+    }
+
+    @Override
+    public int getAvailableDrivers() {
+        return availableDrivers.getAsInt();
+    }
+
+    @Override
+    public long getSnapshotsWritten() {
+        return snapshotsWritten.sum();
+    }
+
+    @Override
+    public long getSnapshotFailures() {
+        return snapshotFailures.sum();
+    }
+
+    @Override
+    public LatencySummary getPlaceOrderLatency() {
+        return placeOrder.summary();
+    }
+
+    @Override
+    public LatencySummary getPlacedToAccepted() {
+        return placedToAccepted.summary();
+    }
+
+    @Override
+    public LatencySummary getOrderLogWrites() {
+        return orderLogWrites.summary();
+    }
+
+    @Override
+    public LatencySummary getSnapshotWrites() {
+        return snapshotWrites.summary();
+    }
+
+    @Override
+    public LatencySummary getGroupCommits() {
+        return groupCommits.summary();
+    }
+
+    @Override
+    public String dump() {
+        return "Orders placed:      " + getOrdersPlaced() + "\n"
+                + "Orders accepted:    " + getOrdersAccepted() + "\n"
+                + "Orders delivered:   " + getOrdersDelivered() + "\n"
+                + "SLA breaches:       " + getSlaBreaches() + "\n"
+                + "Pending orders:     " + getPendingOrders() + "\n"
+                + "Available drivers:  " + getAvailableDrivers() + "\n"
+                + "Snapshots written:  " + getSnapshotsWritten()
+                + " (" + getSnapshotFailures() + " failed)\n"
+                + "placeOrder:         " + getPlaceOrderLatency() + "\n"
+                + "Placed to accepted: " + getPlacedToAccepted() + "\n"
+                + "Order log writes:   " + getOrderLogWrites() + "\n"
+                + "Snapshot writes:    " + getSnapshotWrites() + "\n"
+                + "Group commits:      " + getGroupCommits();
+    }
+}
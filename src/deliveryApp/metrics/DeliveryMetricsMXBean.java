@@ -0,0 +1,39 @@
+package deliveryApp.metrics;
+
+/**
+ * Management interface of {@link DeliveryMetrics}, shown in JConsole and
+ * other JMX clients under "deliveryApp:type=DeliveryMetrics".
+ */
+public interface DeliveryMetricsMXBean {
+
+    long getOrdersPlaced();
+
+    long getOrdersAccepted();
+
+    long getOrdersDelivered();
+
+    long getSlaBreaches();
+
+    int getPendingOrders();
+
+    int getAvailableDrivers();
+
+    long getSnapshotsWritten();
+
+    long getSnapshotFailures();
+
+    LatencySummary getPlaceOrderLatency();
+
+    LatencySummary getPlacedToAccepted();
+
+    LatencySummary getOrderLogWrites();
+
+    LatencySummary getSnapshotWrites();
+
+    LatencySummary getGroupCommits();
+
+    /**
+     * All of the above as readable text.
+     */
+    String dump();
+}
@@ -0,0 +1,114 @@
+package deliveryApp.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of
+ * HdrHistogram: every power of two is split into 32 equal buckets, so any
+ * recorded value is reported within about 3% of its true value, from
+ * nanoseconds up to minutes, in a fixed array of counters.
+ *
+ * Recording is a few atomic adds on preallocated counters and never
+ * allocates. Reads walk the counters without stopping writers, so a
+ * summary taken under load may be off by the few values recorded while it
+ * was being read.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    /** Values are clamped to 2^40 ns, about 18 minutes. */
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private static final int BUCKETS = bucketOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one latency in nanoseconds. Negative values count as zero.
+     */
+    public void record(long nanos) {
+        long v = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts.incrementAndGet(bucketOf(v));
+        total.add(v);
+
+        long m = max.get();
+        while (v > m && !max.compareAndSet(m, v)) {
+            m = max.get();
+        }
+    }
+
+    /**
+     * Records the time elapsed since startNanos (a System.nanoTime() reading).
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Copies the counters and reduces them to the usual percentiles.
+     */
+    public LatencySummary summary() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+
+        if (count == 0) return LatencySummary.EMPTY;
+
+        // A bucket's upper bound can be above anything actually recorded
+        long m = max.get();
+        return new LatencySummary(count,
+                micros(total.sum() / count),
+                micros(Math.min(valueAt(copy, count, 0.50), m)),
+                micros(Math.min(valueAt(copy, count, 0.90), m)),
+                micros(Math.min(valueAt(copy, count, 0.99), m)),
+                micros(Math.min(valueAt(copy, count, 0.999), m)),
+                micros(m));
+    }
+
+    /**
+     * Upper bound of the bucket holding the value at the given quantile.
+     */
+    private static long valueAt(long[] copy, long count, double quantile) {
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < copy.length; i++) {
+            seen += copy[i];
+            if (seen >= rank) return highestIn(i);
+        }
+        return MAX_VALUE;
+    }
+
+    /**
+     * Values below 64 get a bucket each. Above that, a value with its top
+     * bit at position e lands in bucket (e - 5) * 32 + (v >>> (e - 5)),
+     * where the shifted value is always in [32, 64).
+     */
+    static int bucketOf(long v) {
+        if (v < 2 * SUB_COUNT) return (int) v;
+        int e = 63 - Long.numberOfLeadingZeros(v);
+        int shift = e - SUB_BITS;
+        return shift * SUB_COUNT + (int) (v >>> shift);
+    }
+
+    static long highestIn(int bucket) {
+        if (bucket < 2 * SUB_COUNT) return bucket;
+        int shift = bucket / SUB_COUNT - 1;
+        long mantissa = bucket % SUB_COUNT + SUB_COUNT;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,67 @@
+package deliveryApp.metrics;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Point-in-time percentiles of a {@link LatencyHistogram}, in microseconds.
+ * Shown through JMX as composite data, hence the bean-style getters.
+ */
+public final class LatencySummary {
+
+    static final LatencySummary EMPTY = new LatencySummary(0, 0, 0, 0, 0, 0, 0);
+
+    private final long count;
+    private final long meanMicros;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+    private final long p999Micros;
+    private final long maxMicros;
+
+    @ConstructorParameters({"count", "meanMicros", "p50Micros", "p90Micros",
+            "p99Micros", "p999Micros", "maxMicros"})
+    public LatencySummary(long count, long meanMicros, long p50Micros, long p90Micros,
+                          long p99Micros, long p999Micros, long maxMicros) {
+        this.count = count;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%dus p50=%dus p90=%dus p99=%dus p99.9=%dus max=%dus",
+                count, meanMicros, p50Micros, p90Micros, p99Micros, p999Micros, maxMicros);
+    }
+}
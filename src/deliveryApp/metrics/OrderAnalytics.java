@@ -0,0 +1,340 @@
+package deliveryApp.metrics;
+
+import deliveryApp.menu.MenuItem;
+import deliveryApp.menu.Money;
+import deliveryApp.orders.Order;
+import deliveryApp.orders.OrderStatus;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running business totals: revenue per menu item, per customer and per
+ * hour, orders per status, and deliveries and delivery times per driver.
+ *
+ * Fed one order event at a time, each costing the same however much
+ * history there is (an order touches one tally per item it holds), so
+ * reading a report never scans orders. Revenue counts when an order is
+ * placed, by the hour it was placed in; delivery time runs from placement
+ * to delivery.
+ *
+ * Tallies are LongAdders in concurrent maps, so events from many threads
+ * never block each other and a report taken meanwhile is at most a few
+ * events behind.
+ */
+public final class OrderAnalytics {
+
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final DateTimeFormatter HOUR_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:00").withZone(ZoneId.systemDefault());
+
+    /**
+     * Orders and revenue for one item, customer or hour.
+     */
+    public record Tally(String key, long orders, Money revenue) {
+    }
+
+    /**
+     * One driver's deliveries and their average time from placement.
+     */
+    public record DriverTally(String driver, long deliveries, long averageMillis) {
+    }
+
+    private static final class Counter {
+        final LongAdder orders = new LongAdder();
+        final LongAdder cents = new LongAdder();
+
+        void add(long n, long c) {
+            orders.add(n);
+            cents.add(c);
+        }
+    }
+
+    private final Map<String, Counter> byItem = new ConcurrentHashMap<>();
+    private final Map<String, Counter> byCustomer = new ConcurrentHashMap<>();
+    private final NavigableMap<Long, Counter> byHour = new ConcurrentSkipListMap<>();
+
+    // Per driver: orders = deliveries, cents = total delivery millis
+    private final Map<String, Counter> byDriver = new ConcurrentHashMap<>();
+
+    private final LongAdder[] perStatus = new LongAdder[OrderStatus.values().length];
+    private final Counter revenue = new Counter();
+    private final Counter deliveries = new Counter();
+
+    public OrderAnalytics() {
+        for (int i = 0; i < perStatus.length; i++) {
+            perStatus[i] = new LongAdder();
+        }
+    }
+
+    // ============================================================
+    // EVENTS
+    // ============================================================
+
+    /**
+     * A new order: counts it as PLACED and books its revenue.
+     */
+    public void orderPlaced(Order o) {
+        perStatus[OrderStatus.PLACED.ordinal()].increment();
+
+        long cents = o.totalPrice().getCents();
+        revenue.add(1, cents);
+        byCustomer.computeIfAbsent(o.getCustomer().getUserName(), k -> new Counter()).add(1, cents);
+        long hour = Math.floorDiv(o.getStatusTime(OrderStatus.PLACED), HOUR_MILLIS);
+        byHour.computeIfAbsent(hour, k -> new Counter()).add(1, cents);
+
+        for (MenuItem item : o.getItems()) {
+            byItem.computeIfAbsent(item.getName(), k -> new Counter()).add(1, item.getPrice().getCents());
+        }
+    }
+
+    /**
+     * An order moved between statuses.
+     */
+    public void statusChanged(OrderStatus from, OrderStatus to) {
+        if (from == to) return;
+        perStatus[from.ordinal()].decrement();
+        perStatus[to.ordinal()].increment();
+    }
+
+    /**
+     * An order was delivered; call after {@link #statusChanged}, and only
+     * the first time the order is delivered.
+     */
+    public void orderDelivered(Order o) {
+        long millis = Math.max(0, o.getStatusTime(OrderStatus.DELIVERED) - o.getStatusTime(OrderStatus.PLACED));
+        deliveries.add(1, millis);
+        if (o.getDriver() != null) {
+            byDriver.computeIfAbsent(o.getDriver().getUserName(), k -> new Counter()).add(1, millis);
+        }
+    }
+
+    /**
+     * Counts an order read back from storage as it stands now, as if its
+     * events had been seen.
+     */
+    public void orderRestored(Order o) {
+        OrderStatus status = o.getStatus();
+        orderPlaced(o);
+        statusChanged(OrderStatus.PLACED, status);
+        if (status == OrderStatus.DELIVERED) orderDelivered(o);
+    }
+
+    /**
+     * Adds every tally of another set of totals to these, e.g. those
+     * stored with a batch of archived orders.
+     */
+    public void addAll(OrderAnalytics other) {
+        merge(byItem, other.byItem);
+        merge(byCustomer, other.byCustomer);
+        merge(byHour, other.byHour);
+        merge(byDriver, other.byDriver);
+        for (int i = 0; i < perStatus.length; i++) {
+            perStatus[i].add(other.perStatus[i].sum());
+        }
+        revenue.add(other.revenue.orders.sum(), other.revenue.cents.sum());
+        deliveries.add(other.deliveries.orders.sum(), other.deliveries.cents.sum());
+    }
+
+    private static <K> void merge(Map<K, Counter> into, Map<K, Counter> from) {
+        for (Map.Entry<K, Counter> e : from.entrySet()) {
+            into.computeIfAbsent(e.getKey(), k -> new Counter())
+                    .add(e.getValue().orders.sum(), e.getValue().cents.sum());
+        }
+    }
+
+    // ============================================================
+    // REPORTS
+    // ============================================================
+
+    public long getOrderCount(OrderStatus status) {
+        return perStatus[status.ordinal()].sum();
+    }
+
+    public Money getRevenue() {
+        return Money.ofCents(revenue.cents.sum());
+    }
+
+    /**
+     * Average time from placement to delivery, or 0 before any delivery.
+     */
+    public long getAverageDeliveryMillis() {
+        long n = deliveries.orders.sum();
+        return n == 0 ? 0 : deliveries.cents.sum() / n;
+    }
+
+    /**
+     * The items with the most revenue, best first; a limit of 0 means all.
+     */
+    public List<Tally> topItems(int limit) {
+        return top(byItem, limit);
+    }
+
+    /**
+     * The customers who spent the most, best first; a limit of 0 means all.
+     */
+    public List<Tally> topCustomers(int limit) {
+        return top(byCustomer, limit);
+    }
+
+    /**
+     * Revenue for each of the last few clock hours that had any, oldest
+     * first, keyed by the start of the hour.
+     */
+    public List<Tally> recentHours(int hours, long nowMillis) {
+        long current = Math.floorDiv(nowMillis, HOUR_MILLIS);
+        List<Tally> result = new ArrayList<>();
+        for (Map.Entry<Long, Counter> e : byHour.subMap(current - hours + 1, true, current, true).entrySet()) {
+            result.add(tally(HOUR_FORMAT.format(Instant.ofEpochMilli(e.getKey() * HOUR_MILLIS)), e.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Every driver with a delivery, most deliveries first.
+     */
+    public List<DriverTally> drivers() {
+        List<DriverTally> result = new ArrayList<>(byDriver.size());
+        for (Map.Entry<String, Counter> e : byDriver.entrySet()) {
+            long n = e.getValue().orders.sum();
+            if (n > 0) result.add(new DriverTally(e.getKey(), n, e.getValue().cents.sum() / n));
+        }
+        result.sort(Comparator.comparingLong(DriverTally::deliveries).reversed()
+                .thenComparing(DriverTally::driver));
+        return result;
+    }
+
+    private static List<Tally> top(Map<String, Counter> counters, int limit) {
+        List<Tally> all = new ArrayList<>(counters.size());
+        for (Map.Entry<String, Counter> e : counters.entrySet()) {
+            all.add(tally(e.getKey(), e.getValue()));
+        }
+        all.sort(Comparator.comparing(Tally::revenue).reversed().thenComparing(Tally::key));
+        return (limit > 0 && all.size() > limit) ? new ArrayList<>(all.subList(0, limit)) : all;
+    }
+
+    private static Tally tally(String key, Counter c) {
+        return new Tally(key, c.orders.sum(), Money.ofCents(c.cents.sum()));
+    }
+
+    /**
+     * A readable summary for the admin menu.
+     */
+    public String report(long nowMillis) {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("Orders by status:");
+        for (OrderStatus s : OrderStatus.values()) {
+            sb.append(' ').append(s).append('=').append(getOrderCount(s));
+        }
+        sb.append("\nRevenue:            $").append(getRevenue());
+        sb.append("\nAvg time to deliver: ").append(TimeUnit.MILLISECONDS.toMinutes(getAverageDeliveryMillis()))
+                .append(" min");
+
+        sb.append("\n\nTop items:");
+        for (Tally t : topItems(10)) {
+            sb.append("\n  ").append(t.key()).append(": $").append(t.revenue()).append(" (").append(t.orders()).append(" sold)");
+        }
+
+        sb.append("\n\nTop customers:");
+        for (Tally t : topCustomers(10)) {
+            sb.append("\n  ").append(t.key()).append(": $").append(t.revenue()).append(" (").append(t.orders()).append(" orders)");
+        }
+
+        sb.append("\n\nLast 24 hours:");
+        for (Tally t : recentHours(24, nowMillis)) {
+            sb.append("\n  ").append(t.key()).append(": $").append(t.revenue()).append(" (").append(t.orders()).append(" orders)");
+        }
+
+        sb.append("\n\nDrivers:");
+        for (DriverTally d : drivers()) {
+            sb.append("\n  ").append(d.driver()).append(": ").append(d.deliveries()).append(" delivered, avg ")
+                    .append(TimeUnit.MILLISECONDS.toMinutes(d.averageMillis())).append(" min");
+        }
+        return sb.toString();
+    }
+
+    // ============================================================
+    // STORAGE
+    // ============================================================
+
+    /**
+     * Writes every tally, e.g. next to the archived orders they came from.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        for (LongAdder a : perStatus) {
+            out.writeLong(a.sum());
+        }
+        writeCounter(out, revenue);
+        writeCounter(out, deliveries);
+        writeCounters(out, byItem);
+        writeCounters(out, byCustomer);
+        writeCounters(out, byDriver);
+
+        out.writeInt(byHour.size());
+        for (Map.Entry<Long, Counter> e : byHour.entrySet()) {
+            out.writeLong(e.getKey());
+            writeCounter(out, e.getValue());
+        }
+    }
+
+    /**
+     * Reads tallies written by {@link #writeTo}.
+     */
+    public static OrderAnalytics readFrom(DataInput in) throws IOException {
+        OrderAnalytics a = new OrderAnalytics();
+        for (LongAdder s : a.perStatus) {
+            s.add(in.readLong());
+        }
+        readCounter(in, a.revenue);
+        readCounter(in, a.deliveries);
+        readCounters(in, a.byItem);
+        readCounters(in, a.byCustomer);
+        readCounters(in, a.byDriver);
+
+        int hours = in.readInt();
+        for (int i = 0; i < hours; i++) {
+            long hour = in.readLong();
+            readCounter(in, a.byHour.computeIfAbsent(hour, k -> new Counter()));
+        }
+        return a;
+    }
+
+    private static void writeCounters(DataOutput out, Map<String, Counter> counters) throws IOException {
+        // Sized by what is written, since the map may grow meanwhile
+        List<Map.Entry<String, Counter>> entries = new ArrayList<>(counters.entrySet());
+        out.writeInt(entries.size());
+        for (Map.Entry<String, Counter> e : entries) {
+            out.writeUTF(e.getKey());
+            writeCounter(out, e.getValue());
+        }
+    }
+
+    private static void readCounters(DataInput in, Map<String, Counter> into) throws IOException {
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            readCounter(in, into.computeIfAbsent(in.readUTF(), k -> new Counter()));
+        }
+    }
+
+    private static void writeCounter(DataOutput out, Counter c) throws IOException {
+        out.writeLong(c.orders.sum());
+        out.writeLong(c.cents.sum());
+    }
+
+    private static void readCounter(DataInput in, Counter c) throws IOException {
+        c.add(in.readLong(), in.readLong());
+    }
+}
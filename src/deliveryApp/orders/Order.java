@@ -1,8 +1,10 @@
 package deliveryApp.orders;
 
 import deliveryApp.menu.MenuItem;
+import deliveryApp.menu.Money;
 import deliveryApp.users.Customer;
 import deliveryApp.users.Driver;
+import deliveryApp.utils.TimingWheel;
 
 import java.util.List;
 
@@ -14,15 +16,38 @@ public class Order {
 
     private final int orderId;
     private final Customer customer;
-    private Driver driver;
+    private volatile Driver driver;
     private final List<MenuItem> items;
-    private OrderStatus status;
+    private final Money total;
+    private volatile OrderStatus status;
+
+    // System.nanoTime() at creation, for measuring time to acceptance
+    private final long placedNanos = System.nanoTime();
+
+    // When the order last entered each status, in epoch millis; 0 if never
+    private final long[] statusMillis = new long[OrderStatus.values().length];
+
+    // Pending SLA timer, if any; maintained by DeliverySystem
+    private TimingWheel.Timer<Order> slaTimer;
 
     public Order(int id, Customer c, List<MenuItem> items) {
         this.orderId = id;
         this.customer = c;
-        this.items = items;
+        this.items = List.copyOf(items);
+        this.total = sum(this.items);
         this.status = OrderStatus.PLACED;
+        statusMillis[OrderStatus.PLACED.ordinal()] = System.currentTimeMillis();
+    }
+
+    /**
+     * Rebuilds an order read back from storage with the driver and status
+     * it was saved with. Unlike assignDriver, this leaves the driver's
+     * availability alone.
+     */
+    public Order(int id, Customer c, Driver d, OrderStatus status, List<MenuItem> items) {
+        this(id, c, items);
+        this.driver = d;
+        this.status = status;
     }
 
     public int getOrderId() {
@@ -37,19 +62,43 @@ public class Order {
         return driver;
     }
 
+    public List<MenuItem> getItems() {
+        return items;
+    }
+
+    /**
+     * When this object was created, as a System.nanoTime() reading. For
+     * orders restored at startup that is the restart, not the placement.
+     */
+    public long getPlacedNanos() {
+        return placedNanos;
+    }
+
     /**
      * Assigns a driver to the order and marks it accepted.
      */
-    public void assignDriver(Driver d) {
+    public synchronized void assignDriver(Driver d) {
         this.driver = d;
         this.status = OrderStatus.ACCEPTED;
+        statusMillis[OrderStatus.ACCEPTED.ordinal()] = System.currentTimeMillis();
         d.setAvailable(false);
     }
 
+    /**
+     * Takes the order off its driver and marks it placed again, so it can
+     * go to someone else. It keeps the time it was first placed.
+     */
+    public synchronized void unassignDriver() {
+        // Status first, so an unlocked reader never sees ACCEPTED without a driver
+        this.status = OrderStatus.PLACED;
+        this.driver = null;
+    }
+
     /**
      * Updates the order status (e.g. delivered, in-progress).
      */
-    public void updateStatus(OrderStatus st) {
+    public synchronized void updateStatus(OrderStatus st) {
+        if (st != status) statusMillis[st.ordinal()] = System.currentTimeMillis();
         this.status = st;
     }
 
@@ -58,10 +107,53 @@ public class Order {
     }
 
     /**
-     * Returns total price of the order.
+     * When the order last entered the status (epoch millis), or 0 if it
+     * never has.
      */
-    public double totalPrice() {
-        return items.stream().mapToDouble(MenuItem::getPrice).sum();
+    public synchronized long getStatusTime(OrderStatus st) {
+        return statusMillis[st.ordinal()];
+    }
+
+    /**
+     * When the order entered its current status (epoch millis).
+     */
+    public synchronized long getStatusSince() {
+        return statusMillis[status.ordinal()];
+    }
+
+    /**
+     * Sets when the order entered a status, e.g. from the log on startup.
+     */
+    public synchronized void restoreStatusTime(OrderStatus st, long millis) {
+        statusMillis[st.ordinal()] = millis;
+    }
+
+    /**
+     * The SLA timer pending for this order, or null. Read and written
+     * while holding the order's monitor.
+     */
+    public TimingWheel.Timer<Order> getSlaTimer() {
+        return slaTimer;
+    }
+
+    public void setSlaTimer(TimingWheel.Timer<Order> t) {
+        slaTimer = t;
+    }
+
+    /**
+     * Returns total price of the order. The items never change,
+     * so it is added up once when the order is created.
+     */
+    public Money totalPrice() {
+        return total;
+    }
+
+    private static Money sum(List<MenuItem> items) {
+        long cents = 0;
+        for (MenuItem item : items) {
+            cents = Math.addExact(cents, item.getPrice().getCents());
+        }
+        return Money.ofCents(cents);
     }
 
     @Override
@@ -70,6 +162,6 @@ public class Order {
                 "\nCustomer: " + customer.getName() +
                 "\nDriver: " + (driver == null ? "Unassigned" : driver.getName()) +
                 "\nStatus: " + status +
-                "\nTotal: $" + String.format("%.2f", totalPrice());
+                "\nTotal: $" + total;
     }
 }
\ No newline at end of file
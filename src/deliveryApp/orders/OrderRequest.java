@@ -0,0 +1,12 @@
+package deliveryApp.orders;
+
+import deliveryApp.menu.MenuItem;
+import deliveryApp.users.Customer;
+
+import java.util.List;
+
+/**
+ * One order to be placed as part of a batch: who it is for and what they chose.
+ */
+public record OrderRequest(Customer customer, List<MenuItem> items) {
+}
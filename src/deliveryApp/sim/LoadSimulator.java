@@ -0,0 +1,413 @@
+package deliveryApp.sim;
+
+import deliveryApp.core.DeliverySystem;
+import deliveryApp.menu.MenuItem;
+import deliveryApp.orders.Order;
+import deliveryApp.orders.OrderStatus;
+import deliveryApp.users.Customer;
+import deliveryApp.users.Driver;
+import deliveryApp.users.Location;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Discrete-event load simulation for capacity planning: how many drivers
+ * does a given order rate need?
+ *
+ * Drives a real {@link DeliverySystem}, in a temporary directory, with
+ * synthetic customers and drivers. Orders arrive as a Poisson process
+ * (thinned to follow the lunch and dinner peaks), drivers work through
+ * their delivery plans one stop at a time, each stop taking the drive
+ * there plus a log-normal handling time, and customers rate some
+ * deliveries by how long they took. Time is a virtual clock that jumps
+ * from event to event, so a week runs in seconds, and every random draw
+ * comes from one seeded generator, so a run can be repeated exactly.
+ *
+ * Run with:
+ *   java deliveryApp.utils.Main --simulate drivers=60 rate=200 days=7 [csv=queue.csv]
+ * See {@link SimulationConfig#parse} for the settings.
+ */
+public final class LoadSimulator {
+
+    private static final long HOUR_MILLIS = 3_600_000;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    private static final int ARRIVAL = 0;
+    private static final int STOP_DONE = 1;
+    private static final int SAMPLE = 2;
+
+    /**
+     * Something due to happen; ties run in the order they were scheduled.
+     */
+    private record Event(long at, long seq, int type, Courier courier) {
+    }
+
+    /**
+     * A driver as the simulation sees them: the stop they are driving to.
+     */
+    private static final class Courier {
+        final Driver driver;
+        Order current;
+
+        Courier(Driver driver) {
+            this.driver = driver;
+        }
+    }
+
+    private final SimulationConfig config;
+    private final SplittableRandom rnd;
+    private final long end;
+
+    private final PriorityQueue<Event> events = new PriorityQueue<>(
+            Comparator.comparingLong(Event::at).thenComparingLong(Event::seq));
+    private long seq;
+    private long now;
+
+    private DeliverySystem system;
+    private List<MenuItem> menu;
+    private Customer[] customers;
+    private final Map<Driver, Courier> couriers = new IdentityHashMap<>();
+    private int busyCouriers;
+    private long busyMillis;
+
+    // Per order ID: when it was placed and when a driver took it (-1 until then)
+    private long[] placedAt = new long[1024];
+    private long[] acceptedAt = new long[1024];
+
+    private final LongList acceptWaits = new LongList();
+    private final LongList deliveryTimes = new LongList();
+    private final LongList sampleAt = new LongList();
+    private final LongList pendingSamples = new LongList();
+    private final LongList busySamples = new LongList();
+    private final int[] placedByDay;
+    private final int[] deliveredByDay;
+    private int placed;
+    private int delivered;
+
+    private LoadSimulator(SimulationConfig config) {
+        this.config = config;
+        this.rnd = new SplittableRandom(config.seed());
+        this.end = config.length().toMillis();
+
+        int days = (int) ((end + DAY_MILLIS - 1) / DAY_MILLIS);
+        placedByDay = new int[days];
+        deliveredByDay = new int[days];
+        Arrays.fill(acceptedAt, -1);
+    }
+
+    /**
+     * Runs one simulation from start to finish.
+     */
+    public static SimulationReport run(SimulationConfig config) {
+        return new LoadSimulator(config).run();
+    }
+
+    private SimulationReport run() {
+        long wallStart = System.nanoTime();
+        Path dir;
+        try {
+            dir = Files.createTempDirectory("delivery-sim");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        system = new DeliverySystem(dir);
+        try {
+            setUp();
+            while (!events.isEmpty()) {
+                Event e = events.poll();
+                if (e.at() >= end) break;
+                now = e.at();
+
+                switch (e.type()) {
+                    case ARRIVAL -> orderArrives();
+                    case STOP_DONE -> stopDone(e.courier());
+                    case SAMPLE -> sample();
+                    default -> throw new IllegalStateException("bad event " + e.type());
+                }
+            }
+            return report(Duration.ofNanos(System.nanoTime() - wallStart));
+        } finally {
+            system.close();
+            deleteTree(dir);
+        }
+    }
+
+    // ============================================================
+    // SET-UP
+    // ============================================================
+
+    private void setUp() {
+        menu = system.getMenu();
+
+        customers = new Customer[config.customers()];
+        for (int i = 0; i < customers.length; i++) {
+            Customer c = new Customer("sim-customer" + i, "pw", "Customer " + i, "555-0100", "c" + i + "@sim.test");
+            system.registerUser(c);
+            system.updateCustomerAddress(c, randomPoint());
+            customers[i] = c;
+        }
+
+        for (int i = 0; i < config.drivers(); i++) {
+            Driver d = new Driver("sim-driver" + i, "pw", "Driver " + i, "555-0200", "d" + i + "@sim.test");
+            system.registerUser(d);
+            system.setDriverCapacity(d, config.capacity());
+            system.updateDriverPosition(d, randomPoint());
+            couriers.put(d, new Courier(d));
+        }
+
+        scheduleArrival();
+        schedule(0, SAMPLE, null);
+    }
+
+    /**
+     * Half the points in a dense centre, the rest anywhere in the city.
+     */
+    private Location randomPoint() {
+        double size = config.cityKm();
+        if (rnd.nextBoolean()) {
+            double x = size / 2 + rnd.nextGaussian() * size / 10;
+            double y = size / 2 + rnd.nextGaussian() * size / 10;
+            return new Location(Math.min(Math.max(x, 0), size), Math.min(Math.max(y, 0), size));
+        }
+        return new Location(rnd.nextDouble() * size, rnd.nextDouble() * size);
+    }
+
+    // ============================================================
+    // EVENTS
+    // ============================================================
+
+    private void schedule(long at, int type, Courier courier) {
+        events.add(new Event(at, seq++, type, courier));
+    }
+
+    /**
+     * Draws the next arrival. Candidates come at the peak rate and are
+     * kept in proportion to the rate at their hour of the day.
+     */
+    private void scheduleArrival() {
+        double max = config.maxOrdersPerHour();
+        long t = now;
+        while (true) {
+            t += Math.max(1, Math.round(-Math.log(1 - rnd.nextDouble()) / max * HOUR_MILLIS));
+            if (t >= end) return;
+
+            int hour = (int) (t / HOUR_MILLIS % 24);
+            if (rnd.nextDouble() * max < config.ordersPerHourAt(hour)) {
+                schedule(t, ARRIVAL, null);
+                return;
+            }
+        }
+    }
+
+    private void orderArrives() {
+        Customer c = customers[rnd.nextInt(customers.length)];
+        List<MenuItem> items = new ArrayList<>(3);
+        for (int n = 1 + rnd.nextInt(3); n > 0; n--) {
+            items.add(menu.get(rnd.nextInt(menu.size())));
+        }
+
+        Order o = system.placeOrder(c, items);
+        track(o.getOrderId());
+        placedAt[o.getOrderId()] = now;
+        placed++;
+        placedByDay[day()]++;
+
+        if (o.getDriver() != null) {
+            accepted(o);
+            startNextStop(couriers.get(o.getDriver()));
+        }
+        scheduleArrival();
+    }
+
+    private void stopDone(Courier courier) {
+        Order o = courier.current;
+        courier.current = null;
+        busyCouriers--;
+
+        system.updateOrderStatus(o, OrderStatus.DELIVERED);
+        long took = now - placedAt[o.getOrderId()];
+        deliveryTimes.add(took);
+        delivered++;
+        deliveredByDay[day()]++;
+
+        if (rnd.nextDouble() < config.ratingChance()) {
+            system.rateDriver(courier.driver, stars(took));
+        }
+
+        // Freeing the slot may have handed the driver waiting orders
+        for (Order next : system.getDeliveryPlan(courier.driver)) {
+            if (acceptedAt[next.getOrderId()] < 0) accepted(next);
+        }
+        startNextStop(courier);
+    }
+
+    /**
+     * Sends an idle driver to the first stop of their plan.
+     */
+    private void startNextStop(Courier courier) {
+        if (courier.current != null) return;
+        List<Order> plan = system.getDeliveryPlan(courier.driver);
+        if (plan.isEmpty()) return;
+
+        Order o = plan.get(0);
+        system.updateOrderStatus(o, OrderStatus.IN_PROGRESS);
+        courier.current = o;
+        busyCouriers++;
+
+        long takes = stopMillis(courier.driver.getPosition(), o.getCustomer().getAddress());
+        busyMillis += Math.min(now + takes, end) - now;
+        schedule(now + takes, STOP_DONE, courier);
+    }
+
+    private void sample() {
+        sampleAt.add(now);
+        pendingSamples.add(system.getPendingOrderCount());
+        busySamples.add(busyCouriers);
+        schedule(now + config.sampleEvery().toMillis(), SAMPLE, null);
+    }
+
+    private void accepted(Order o) {
+        int id = o.getOrderId();
+        acceptedAt[id] = now;
+        acceptWaits.add(now - placedAt[id]);
+    }
+
+    /**
+     * Driving time at the average speed plus a log-normal handling time.
+     */
+    private long stopMillis(Location from, Location to) {
+        double km = (from != null && to != null) ? from.distanceTo(to) : config.cityKm() / 2;
+        double drive = km / config.speedKmh() * HOUR_MILLIS;
+
+        double sigma = config.handlingSpread();
+        double mu = Math.log(Math.max(config.handlingMinutes(), 1e-9)) - sigma * sigma / 2;
+        double handling = config.handlingMinutes() == 0 ? 0 : Math.exp(mu + sigma * rnd.nextGaussian()) * 60_000;
+        return Math.max(1, Math.round(drive + handling));
+    }
+
+    /**
+     * Quick deliveries get five stars, slow ones fewer, with some noise.
+     */
+    private int stars(long tookMillis) {
+        double minutes = tookMillis / 60_000.0;
+        int stars = minutes <= 30 ? 5 : minutes <= 45 ? 4 : minutes <= 60 ? 3 : minutes <= 90 ? 2 : 1;
+        if (rnd.nextInt(5) == 0) stars += rnd.nextBoolean() ? 1 : -1;
+        return Math.min(Math.max(stars, 1), 5);
+    }
+
+    private int day() {
+        return (int) Math.min(now / DAY_MILLIS, placedByDay.length - 1);
+    }
+
+    private void track(int id) {
+        if (id < placedAt.length) return;
+        int size = Math.max(id + 1, placedAt.length * 2);
+        placedAt = Arrays.copyOf(placedAt, size);
+        int old = acceptedAt.length;
+        acceptedAt = Arrays.copyOf(acceptedAt, size);
+        Arrays.fill(acceptedAt, old, size, -1);
+    }
+
+    // ============================================================
+    // REPORT
+    // ============================================================
+
+    private SimulationReport report(Duration wallTime) {
+        long[] waits = acceptWaits.toArray();
+        long[] times = deliveryTimes.toArray();
+        Arrays.sort(waits);
+        Arrays.sort(times);
+
+        return new SimulationReport(config, placed, delivered, system.getPendingOrderCount(),
+                waits, times, busyMillis / ((double) end * config.drivers()),
+                sampleAt.toArray(), toInts(pendingSamples.toArray()), toInts(busySamples.toArray()),
+                placedByDay, deliveredByDay, wallTime);
+    }
+
+    private static int[] toInts(long[] values) {
+        int[] out = new int[values.length];
+        for (int i = 0; i < values.length; i++) out[i] = (int) values[i];
+        return out;
+    }
+
+    private static void deleteTree(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            System.out.println("Error removing simulation directory " + dir);
+        }
+    }
+
+    /**
+     * Growable list of longs, so a week of samples is not boxed.
+     */
+    private static final class LongList {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    // ============================================================
+    // COMMAND LINE
+    // ============================================================
+
+    /**
+     * Runs one simulation from "key=value" settings and prints the report;
+     * "csv=file" also writes the queue depth samples.
+     */
+    public static void main(String[] args) {
+        String csv = null;
+        List<String> settings = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("csv=")) {
+                csv = arg.substring(4);
+            } else {
+                settings.add(arg);
+            }
+        }
+
+        SimulationConfig config;
+        try {
+            config = SimulationConfig.parse(settings.toArray(new String[0]));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            System.out.println("Settings: seed drivers customers rate days|hours city speed handling"
+                    + " spread capacity ratings peak sample csv");
+            return;
+        }
+
+        SimulationReport report = run(config);
+        System.out.print(report.format());
+
+        if (csv != null) {
+            try {
+                report.writeQueueCsv(Paths.get(csv));
+            } catch (IOException e) {
+                System.out.println("Error writing " + csv + ".");
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package deliveryApp.sim;
+
+import deliveryApp.users.Driver;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Settings for one simulated run. Everything random in the run comes
+ * from the seed, so the same settings give the same report.
+ *
+ * @param seed            seed for every random draw
+ * @param drivers         drivers on shift for the whole run
+ * @param customers       distinct customers placing orders
+ * @param ordersPerHour   mean order arrival rate (Poisson)
+ * @param length          simulated time
+ * @param cityKm          side of the square city
+ * @param speedKmh        average driving speed
+ * @param handlingMinutes mean time per stop on top of driving (parking, handover)
+ * @param handlingSpread  spread of the handling time (log-normal sigma)
+ * @param capacity        orders a driver can carry at once
+ * @param ratingChance    chance a customer rates the delivery
+ * @param peakFactor      how much busier lunch (11-14) and dinner (17-21)
+ *                        are than the rest of the day; 1 is flat. The
+ *                        daily mean stays ordersPerHour.
+ * @param sampleEvery     how often queue depth and busy drivers are sampled
+ */
+public record SimulationConfig(long seed, int drivers, int customers, double ordersPerHour,
+                               Duration length, double cityKm, double speedKmh,
+                               double handlingMinutes, double handlingSpread, int capacity,
+                               double ratingChance, double peakFactor, Duration sampleEvery) {
+
+    private static final Set<String> KEYS = Set.of("seed", "drivers", "customers", "rate", "days",
+            "hours", "city", "speed", "handling", "spread", "capacity", "ratings", "peak", "sample");
+
+    public SimulationConfig {
+        if (drivers < 1 || customers < 1 || capacity < 1) {
+            throw new IllegalArgumentException("drivers, customers and capacity must be at least 1");
+        }
+        if (!(ordersPerHour > 0) || !(cityKm > 0) || !(speedKmh > 0) || !(peakFactor > 0)
+                || handlingMinutes < 0 || handlingSpread < 0) {
+            throw new IllegalArgumentException("rates, sizes and speeds must be positive");
+        }
+        if (length.toMillis() <= 0 || sampleEvery.toMillis() <= 0) {
+            throw new IllegalArgumentException("length and sample interval must be positive");
+        }
+    }
+
+    /**
+     * A week of a mid-sized city: 50 drivers and 150 orders an hour.
+     */
+    public static SimulationConfig defaults() {
+        return parse();
+    }
+
+    /**
+     * Reads "key=value" arguments over the defaults, e.g. "drivers=80
+     * rate=300 days=2 seed=7". Keys: seed, drivers, customers, rate,
+     * days, hours, city, speed, handling, spread, capacity, ratings,
+     * peak, sample (minutes).
+     */
+    public static SimulationConfig parse(String... args) {
+        Map<String, String> kv = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("expected key=value, got " + arg);
+            String key = arg.substring(0, eq).trim().toLowerCase();
+            if (!KEYS.contains(key)) throw new IllegalArgumentException("unknown setting " + key);
+            kv.put(key, arg.substring(eq + 1).trim());
+        }
+
+        Duration length = kv.containsKey("hours")
+                ? Duration.ofMinutes(Math.round(number(kv, "hours", 0) * 60))
+                : Duration.ofMinutes(Math.round(number(kv, "days", 7) * 24 * 60));
+
+        return new SimulationConfig(
+                (long) number(kv, "seed", 1),
+                (int) number(kv, "drivers", 50),
+                (int) number(kv, "customers", 2000),
+                number(kv, "rate", 150),
+                length,
+                number(kv, "city", 10),
+                number(kv, "speed", 25),
+                number(kv, "handling", 5),
+                number(kv, "spread", 0.5),
+                (int) number(kv, "capacity", Driver.DEFAULT_CAPACITY),
+                number(kv, "ratings", 0.5),
+                number(kv, "peak", 1),
+                Duration.ofMinutes((long) number(kv, "sample", 15)));
+    }
+
+    private static double number(Map<String, String> kv, String key, double fallback) {
+        String v = kv.get(key);
+        if (v == null) return fallback;
+        try {
+            return Double.parseDouble(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("not a number: " + key + "=" + v);
+        }
+    }
+
+    /**
+     * Arrival rate per hour at a given hour of the day.
+     */
+    double ordersPerHourAt(int hourOfDay) {
+        // 7 peak hours and 17 quiet ones, scaled to keep the daily mean
+        double quiet = ordersPerHour * 24 / (7 * peakFactor + 17);
+        boolean peak = (hourOfDay >= 11 && hourOfDay < 14) || (hourOfDay >= 17 && hourOfDay < 21);
+        return peak ? quiet * peakFactor : quiet;
+    }
+
+    double maxOrdersPerHour() {
+        return ordersPerHour * 24 / (7 * peakFactor + 17) * Math.max(1, peakFactor);
+    }
+}
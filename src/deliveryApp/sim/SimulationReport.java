@@ -0,0 +1,206 @@
+package deliveryApp.sim;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * What one simulated run measured. Times are simulated, not wall-clock,
+ * except for {@link #getWallTime()}.
+ */
+public final class SimulationReport {
+
+    private static final long DAY_MILLIS = Duration.ofDays(1).toMillis();
+
+    private final SimulationConfig config;
+    private final int placed;
+    private final int delivered;
+    private final int waitingAtEnd;
+
+    // Sorted, in simulated milliseconds
+    private final long[] acceptWaits;
+    private final long[] deliveryTimes;
+
+    private final double utilization;
+
+    // Queue depth and busy drivers, sampled over time
+    private final long[] sampleAt;
+    private final int[] pendingSamples;
+    private final int[] busySamples;
+
+    private final int[] placedByDay;
+    private final int[] deliveredByDay;
+
+    private final Duration wallTime;
+
+    SimulationReport(SimulationConfig config, int placed, int delivered, int waitingAtEnd,
+                     long[] acceptWaits, long[] deliveryTimes, double utilization,
+                     long[] sampleAt, int[] pendingSamples, int[] busySamples,
+                     int[] placedByDay, int[] deliveredByDay, Duration wallTime) {
+        this.config = config;
+        this.placed = placed;
+        this.delivered = delivered;
+        this.waitingAtEnd = waitingAtEnd;
+        this.acceptWaits = acceptWaits;
+        this.deliveryTimes = deliveryTimes;
+        this.utilization = utilization;
+        this.sampleAt = sampleAt;
+        this.pendingSamples = pendingSamples;
+        this.busySamples = busySamples;
+        this.placedByDay = placedByDay;
+        this.deliveredByDay = deliveredByDay;
+        this.wallTime = wallTime;
+    }
+
+    public SimulationConfig getConfig() {
+        return config;
+    }
+
+    public int getOrdersPlaced() {
+        return placed;
+    }
+
+    public int getOrdersDelivered() {
+        return delivered;
+    }
+
+    /**
+     * Orders still without a driver when the run ended.
+     */
+    public int getOrdersWaitingAtEnd() {
+        return waitingAtEnd;
+    }
+
+    /**
+     * Deliveries per simulated hour.
+     */
+    public double getThroughputPerHour() {
+        return delivered * 3_600_000.0 / config.length().toMillis();
+    }
+
+    /**
+     * Time from placing an order until a driver took it, at a percentile
+     * (0-100) of the orders that got one.
+     */
+    public Duration getAcceptWait(double percentile) {
+        return Duration.ofMillis(percentile(acceptWaits, percentile));
+    }
+
+    /**
+     * Time from placing an order until it was delivered, at a percentile
+     * (0-100) of the delivered orders.
+     */
+    public Duration getDeliveryTime(double percentile) {
+        return Duration.ofMillis(percentile(deliveryTimes, percentile));
+    }
+
+    /**
+     * Share of driver time spent driving or handing over orders.
+     */
+    public double getUtilization() {
+        return utilization;
+    }
+
+    public double getMeanQueueDepth() {
+        long sum = 0;
+        for (int p : pendingSamples) sum += p;
+        return pendingSamples.length == 0 ? 0 : (double) sum / pendingSamples.length;
+    }
+
+    public int getMaxQueueDepth() {
+        int max = 0;
+        for (int p : pendingSamples) max = Math.max(max, p);
+        return max;
+    }
+
+    /**
+     * How long the run took on the real clock.
+     */
+    public Duration getWallTime() {
+        return wallTime;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+        return sorted[Math.min(Math.max(rank, 1), sorted.length) - 1];
+    }
+
+    // ============================================================
+    // OUTPUT
+    // ============================================================
+
+    /**
+     * Writes the queue depth samples as CSV: minute, waiting orders, busy drivers.
+     */
+    public void writeQueueCsv(Path path) throws IOException {
+        try (Writer w = Files.newBufferedWriter(path)) {
+            w.write("minute,pending_orders,busy_drivers\n");
+            for (int i = 0; i < sampleAt.length; i++) {
+                w.write(sampleAt[i] / 60_000 + "," + pendingSamples[i] + "," + busySamples[i] + "\n");
+            }
+        }
+    }
+
+    /**
+     * The report as text: totals, percentiles, then one line per day.
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        SimulationConfig c = config;
+        sb.append(String.format(Locale.ROOT,
+                "Simulated %.1f days (seed %d): %d drivers carrying up to %d, %.0f orders/hour (peak x%.1f), "
+                        + "%d customers in a %.0f km city%n",
+                c.length().toMillis() / (double) DAY_MILLIS, c.seed(), c.drivers(), c.capacity(),
+                c.ordersPerHour(), c.peakFactor(), c.customers(), c.cityKm()));
+        sb.append(String.format(Locale.ROOT, "Orders:          %d placed, %d delivered, %d waiting at the end%n",
+                placed, delivered, waitingAtEnd));
+        sb.append(String.format(Locale.ROOT, "Throughput:      %.1f deliveries/hour%n", getThroughputPerHour()));
+        sb.append("Wait for driver: ").append(percentiles(acceptWaits)).append('\n');
+        sb.append("Order to door:   ").append(percentiles(deliveryTimes)).append('\n');
+        sb.append(String.format(Locale.ROOT, "Utilization:     %.1f%%%n", utilization * 100));
+        sb.append(String.format(Locale.ROOT, "Queue depth:     mean %.1f, max %d%n",
+                getMeanQueueDepth(), getMaxQueueDepth()));
+
+        sb.append(String.format("%nDay  Placed  Delivered  Queue mean/max  Busy drivers%n"));
+        for (int day = 0; day < placedByDay.length; day++) {
+            long from = day * DAY_MILLIS;
+            long to = from + DAY_MILLIS;
+            long queueSum = 0;
+            long busySum = 0;
+            int queueMax = 0;
+            int n = 0;
+            for (int i = 0; i < sampleAt.length; i++) {
+                if (sampleAt[i] < from || sampleAt[i] >= to) continue;
+                queueSum += pendingSamples[i];
+                busySum += busySamples[i];
+                queueMax = Math.max(queueMax, pendingSamples[i]);
+                n++;
+            }
+            sb.append(String.format(Locale.ROOT, "%3d  %6d  %9d  %8.1f/%-5d  %11.1f%n",
+                    day + 1, placedByDay[day], deliveredByDay[day],
+                    n == 0 ? 0.0 : (double) queueSum / n, queueMax, n == 0 ? 0.0 : (double) busySum / n));
+        }
+
+        sb.append(String.format(Locale.ROOT, "%nRan in %.1f s%n", wallTime.toMillis() / 1000.0));
+        return sb.toString();
+    }
+
+    private static String percentiles(long[] sorted) {
+        return String.format(Locale.ROOT, "p50 %s  p90 %s  p99 %s  max %s",
+                minutes(percentile(sorted, 50)), minutes(percentile(sorted, 90)),
+                minutes(percentile(sorted, 99)), minutes(percentile(sorted, 100)));
+    }
+
+    private static String minutes(long millis) {
+        return String.format(Locale.ROOT, "%.1f min", millis / 60_000.0);
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
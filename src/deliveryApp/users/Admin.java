@@ -1,8 +1,18 @@
 package deliveryApp.users;
 
 import deliveryApp.core.DeliverySystem;
+import deliveryApp.core.OrderLogReports;
+import deliveryApp.menu.MenuItem;
+import deliveryApp.menu.Money;
 import deliveryApp.orders.Order;
-
+import deliveryApp.orders.OrderStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -11,6 +21,9 @@ import java.util.Scanner;
  */
 public class Admin extends User {
 
+    // Orders shown per page in the order listing
+    private static final int PAGE_SIZE = 20;
+
     public Admin(String username, String pw, String name,
                  String phone, String email) {
         super(username, pw, name, phone, email);
@@ -25,18 +38,32 @@ public class Admin extends User {
             System.out.println("1. View All Orders");
             System.out.println("2. Add Menu Item");
             System.out.println("3. Remove Menu Item");
-            System.out.println("4. Logout");
+            System.out.println("4. View Metrics");
+            System.out.println("5. View Flagged Orders");
+            System.out.println("6. View Reports");
+            System.out.println("7. Order History Reports");
+            System.out.println("8. Logout");
             System.out.print("Choice: ");
 
             int choice = getIntInput(in);
 
             if (choice == 1) {
-                viewAllOrders(system);
+                viewAllOrders(system, in);
             } else if (choice == 2) {
                 addMenuItem(system, in);
             } else if (choice == 3) {
                 removeMenuItem(system, in);
             } else if (choice == 4) {
+                System.out.println("\n--- METRICS ---");
+                System.out.println(system.getMetrics().dump());
+            } else if (choice == 5) {
+                viewFlaggedOrders(system, in);
+            } else if (choice == 6) {
+                System.out.println("\n--- REPORTS ---");
+                System.out.println(system.getAnalytics().report(System.currentTimeMillis()));
+            } else if (choice == 7) {
+                historyReports(system, in);
+            } else if (choice == 8) {
                 break;  // Logout
             } else {
                 System.out.println("Invalid choice.");
@@ -45,12 +72,115 @@ public class Admin extends User {
     }
 
     /**
-     * Displays all orders in the system.
+     * Displays orders one page at a time, optionally filtered by status.
      */
-    private void viewAllOrders(DeliverySystem system) {
-        for (Order o : system.getAllOrders()) {
+    private void viewAllOrders(DeliverySystem system, Scanner in) {
+        OrderStatus[] statuses = OrderStatus.values();
+        System.out.println("Filter by status:");
+        System.out.println("0. All");
+        for (int i = 0; i < statuses.length; i++) {
+            System.out.println((i + 1) + ". " + statuses[i]);
+        }
+        System.out.print("Choice: ");
+
+        int pick = getIntInput(in);
+        OrderStatus status = (pick >= 1 && pick <= statuses.length) ? statuses[pick - 1] : null;
+
+        System.out.println(system.countOrders(status) + " order(s).");
+
+        int nextId = 0;
+        while (true) {
+            List<Order> page = system.streamOrders(status, nextId, PAGE_SIZE).toList();
+            Money pageTotal = Money.ZERO;
+            for (Order o : page) {
+                System.out.println(o);
+                pageTotal = pageTotal.plus(o.totalPrice());
+            }
+            if (!page.isEmpty()) System.out.println("\nTotal of these orders: $" + pageTotal);
+
+            if (page.size() < PAGE_SIZE) break;
+            nextId = page.get(page.size() - 1).getOrderId() + 1;
+
+            System.out.print("\nPress Enter for more, or q to stop: ");
+            if (in.nextLine().trim().equalsIgnoreCase("q")) break;
+        }
+    }
+
+    /**
+     * Lists the orders that ran over their SLA and offers to hand one to
+     * another driver.
+     */
+    private void viewFlaggedOrders(DeliverySystem system, Scanner in) {
+        List<Order> flagged = system.getFlaggedOrders();
+        for (Order o : flagged) {
             System.out.println(o);
         }
+        if (flagged.isEmpty()) {
+            System.out.println("No flagged orders.");
+            return;
+        }
+
+        System.out.print("\nOrder ID to re-queue (0 to go back): ");
+        int id = getIntInput(in);
+        if (id == 0) return;
+
+        Order o = system.getOrder(id);
+        if (o == null || !flagged.contains(o)) {
+            System.out.println("Invalid Order ID.");
+        } else if (system.requeueOrder(o)) {
+            System.out.println("Order #" + id + " re-queued.");
+        } else {
+            System.out.println("Order #" + id + " is no longer with a driver.");
+        }
+    }
+
+    /**
+     * Reports that scan the whole order history.
+     */
+    private void historyReports(DeliverySystem system, Scanner in) {
+        System.out.println("1. Top Items by Revenue");
+        System.out.println("2. Driver Leaderboard");
+        System.out.println("3. Inactive Customers");
+        System.out.println("0. Back");
+        System.out.print("Choice: ");
+
+        int choice = getIntInput(in);
+        OrderLogReports reports = system.getLogReports();
+        ZoneId zone = ZoneId.systemDefault();
+
+        if (choice == 1 || choice == 2) {
+            System.out.print("From date (yyyy-MM-dd, blank for the start): ");
+            LocalDate from = getDateInput(in);
+            System.out.print("To date, inclusive (yyyy-MM-dd, blank for today): ");
+            LocalDate to = getDateInput(in);
+
+            long fromMillis = from == null ? 0 : from.atStartOfDay(zone).toInstant().toEpochMilli();
+            long toMillis = (to == null ? LocalDate.now(zone) : to).plusDays(1)
+                    .atStartOfDay(zone).toInstant().toEpochMilli();
+
+            if (choice == 1) {
+                for (OrderLogReports.ItemRevenue r : reports.topItems(fromMillis, toMillis, 20)) {
+                    System.out.println(r.item() + ": $" + r.revenue() + " (" + r.sold() + " sold)");
+                }
+            } else {
+                int rank = 1;
+                for (OrderLogReports.DriverDeliveries r : reports.driverLeaderboard(fromMillis, toMillis, 20)) {
+                    System.out.println((rank++) + ". " + r.driver() + ": " + r.deliveries() + " delivered");
+                }
+            }
+        } else if (choice == 3) {
+            System.out.print("No order in how many days? ");
+            int days = getIntInput(in);
+            long since = System.currentTimeMillis() - Duration.ofDays(Math.max(0, days)).toMillis();
+
+            List<OrderLogReports.CustomerActivity> idle = reports.inactiveCustomers(since);
+            for (OrderLogReports.CustomerActivity c : idle) {
+                String last = c.lastOrderMillis() == 0 ? "never ordered"
+                        : "last order " + LocalDate.ofInstant(Instant.ofEpochMilli(c.lastOrderMillis()), zone);
+                System.out.println(c.customer() + ": " + last + " (" + c.orders() + " orders)");
+            }
+            System.out.println(idle.size() + " customer(s).");
+        }
     }
 
     /**
@@ -61,21 +191,26 @@ public class Admin extends User {
         String name = in.nextLine();
 
         System.out.print("Price: ");
-        double price = getDoubleInput(in);
+        Money price = getPriceInput(in);
 
-        system.addMenuItem(name, price);
-        System.out.println("Added!");
+        MenuItem item = system.addMenuItem(name, price);
+        System.out.println("Added as item #" + item.getId() + "!");
     }
 
     /**
-     * Allows admin to remove a menu item.
+     * Allows admin to remove a menu item by its number or name.
      */
     private void removeMenuItem(DeliverySystem system, Scanner in) {
-        System.out.print("Item name: ");
-        String name = in.nextLine();
-
-        system.removeMenuItem(name);
-        System.out.println("Item removed.");
+        System.out.print("Item # or name: ");
+        String entry = in.nextLine().trim();
+
+        boolean removed;
+        try {
+            removed = system.removeMenuItem(Integer.parseInt(entry));
+        } catch (NumberFormatException e) {
+            removed = system.removeMenuItem(entry);
+        }
+        System.out.println(removed ? "Item removed." : "No such item.");
     }
 
     private int getIntInput(Scanner in) {
@@ -89,14 +224,31 @@ public class Admin extends User {
         }
     }
 
-    private double getDoubleInput(Scanner in) {
+    /**
+     * Reads a date, or null if the line is blank.
+     */
+    private LocalDate getDateInput(Scanner in) {
+        while (true) {
+            String input = in.nextLine().trim();
+            if (input.isEmpty()) return null;
+            try {
+                return LocalDate.parse(input);
+            } catch (DateTimeParseException e) {
+                System.out.print("Please enter a DATE (e.g. 2024-01-31): ");
+            }
+        }
+    }
+
+    private Money getPriceInput(Scanner in) {
         while (true) {
             String input = in.nextLine();
             try {
-                return Double.parseDouble(input.trim());
-            } catch (Exception e) {
-                System.out.print("Please enter a VALID PRICE (e.g. 5.99): ");
+                Money price = Money.parse(input);
+                if (!price.isNegative()) return price;
+            } catch (Exception ignored) {
+                // fall through to the prompt
             }
+            System.out.print("Please enter a VALID PRICE (e.g. 5.99): ");
         }
     }
 }
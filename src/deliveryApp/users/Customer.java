@@ -1,5 +1,6 @@
 package deliveryApp.users;
 
+import deliveryApp.menu.MenuCatalog;
 import deliveryApp.menu.MenuItem;
 import deliveryApp.orders.Order;
 import deliveryApp.core.DeliverySystem;
@@ -12,11 +13,22 @@ import java.util.*;
  */
 public class Customer extends User {
 
+    // Where orders are delivered; null until the customer gives one
+    private volatile Location address;
+
     public Customer(String username, String pw, String name,
                     String phone, String email) {
         super(username, pw, name, phone, email);
     }
 
+    public Location getAddress() {
+        return address;
+    }
+
+    public void setAddress(Location address) {
+        this.address = address;
+    }
+
     @Override
     public void showMenu(DeliverySystem system) {
         Scanner in = new Scanner(System.in);
@@ -25,7 +37,9 @@ public class Customer extends User {
             System.out.println("\n--- CUSTOMER MENU ---");
             System.out.println("1. Place Order");
             System.out.println("2. View Menu");
-            System.out.println("3. Logout");
+            System.out.println("3. View My Orders");
+            System.out.println("4. Set Delivery Address");
+            System.out.println("5. Logout");
             System.out.print("Choice: ");
 
             int choice = getIntInput(in);   // <-- SAFE INPUT
@@ -34,9 +48,13 @@ public class Customer extends User {
                 placeOrder(system);
             } else if (choice == 2) {
                 for (MenuItem mi : system.getMenu()) {
-                    System.out.println(mi);
+                    System.out.println(mi.getId() + ". " + mi);
                 }
             } else if (choice == 3) {
+                showMyOrders(system);
+            } else if (choice == 4) {
+                setDeliveryAddress(system, in);
+            } else if (choice == 5) {
                 break;
             } else {
                 System.out.println("Invalid choice.");
@@ -46,25 +64,27 @@ public class Customer extends User {
 
     /**
      * Allows the customer to select menu items and submit an order.
-     * Now uses safe input parsing.
+     * The whole selection is made against one menu snapshot, so an admin
+     * editing the menu meanwhile cannot shift the item numbers under them.
      */
     private void placeOrder(DeliverySystem system) {
         Scanner in = new Scanner(System.in);
         List<MenuItem> items = new ArrayList<>();
+        MenuCatalog menu = system.getCatalog();
+
+        for (MenuItem mi : menu.getItems()) {
+            System.out.println(mi.getId() + ". " + mi);
+        }
 
         while (true) {
             System.out.println("\nSelect item # (0 to finish):");
-            List<MenuItem> menu = system.getMenu();
-
-            for (int i = 0; i < menu.size(); i++) {
-                System.out.println((i + 1) + ". " + menu.get(i));
-            }
 
             int c = getIntInput(in);  // <-- SAFE INPUT
 
             if (c == 0) break;
-            if (c > 0 && c <= menu.size()) {
-                items.add(menu.get(c - 1));
+            MenuItem picked = menu.findById(c);
+            if (picked != null) {
+                items.add(picked);
                 System.out.println("Added.");
             } else {
                 System.out.println("Invalid selection.");
@@ -75,6 +95,38 @@ public class Customer extends User {
         System.out.println("Order placed! ID: " + o.getOrderId());
     }
 
+    /**
+     * Lists every order this customer has placed.
+     */
+    private void showMyOrders(DeliverySystem system) {
+        List<Order> mine = system.getOrdersForCustomer(this, null);
+        for (Order o : mine) {
+            System.out.println(o);
+        }
+        if (mine.isEmpty()) System.out.println("You have not placed any orders yet.");
+    }
+
+    /**
+     * Asks for the map coordinates orders should be delivered to.
+     */
+    private void setDeliveryAddress(DeliverySystem system, Scanner in) {
+        System.out.println("Current address: " + (address == null ? "not set" : address.x() + ", " + address.y()));
+        System.out.print("Enter x and y in km (e.g. 3.5 7.25), or blank to keep it: ");
+
+        while (true) {
+            String input = in.nextLine().trim();
+            if (input.isEmpty()) return;
+
+            Location l = Location.parse(input);
+            if (l != null) {
+                system.updateCustomerAddress(this, l);
+                System.out.println("Delivery address updated.");
+                return;
+            }
+            System.out.print("Please enter two numbers: ");
+        }
+    }
+
     /**
      * Reads an integer input safely without throwing exceptions.
      * If the user enters text, they are asked again.
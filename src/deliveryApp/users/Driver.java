@@ -4,9 +4,12 @@ import deliveryApp.core.DeliverySystem;
 import deliveryApp.orders.Order;
 import deliveryApp.orders.OrderStatus;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Scanner;
+import java.util.Set;
 
 /**
  * Represents a delivery driver.
@@ -16,13 +19,45 @@ import java.util.Scanner;
  */
 public class Driver extends User {
 
-    private boolean available = true;
-    private final Queue<Integer> ratings = new LinkedList<>();
-    private double averageRating = 0.0;
+    // Orders a driver can still move forward
+    public static final Set<OrderStatus> OPEN_STATUSES =
+            EnumSet.of(OrderStatus.ACCEPTED, OrderStatus.IN_PROGRESS);
+
+    // How many recent ratings count towards a driver's average
+    public static final int DEFAULT_RATING_WINDOW = 10;
+
+    // How many orders a driver carries at once unless told otherwise
+    public static final int DEFAULT_CAPACITY = 3;
+
+    private volatile boolean available = true;
+    private volatile int capacity = DEFAULT_CAPACITY;
+    private final RatingWindow ratings;
+    private volatile double averageRating = 0.0;
+    private volatile double ratingScore = 0.0;
+
+    // Slot in DeliverySystem's available-driver heap, or -1 when not queued
+    private int heapIndex = -1;
+
+    // Where the driver is now; null if unknown
+    private volatile Location position;
+
+    // Slot in the available-driver grid cell for the position, or -1
+    private int gridSlot = -1;
 
     public Driver(String username, String pw, String name,
                   String phone, String email) {
+        this(username, pw, name, phone, email, new RatingWindow(DEFAULT_RATING_WINDOW));
+    }
+
+    /**
+     * Creates a driver whose ratings are kept in the given window,
+     * e.g. a longer one or one with a weighted score.
+     */
+    public Driver(String username, String pw, String name,
+                  String phone, String email, RatingWindow ratings) {
         super(username, pw, name, phone, email);
+        this.ratings = ratings;
+        updateAverage();
     }
 
     public boolean isAvailable() {
@@ -33,54 +68,112 @@ public class Driver extends User {
         available = a;
     }
 
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets how many orders the driver can carry at once (at least one).
+     * The dispatcher stacks orders onto a driver up to this many, so go
+     * through DeliverySystem.setDriverCapacity rather than calling this
+     * directly.
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
     public double getAverageRating() {
         return averageRating;
     }
 
     /**
-     * Adds a rating (keeps only the last 10 ratings).
+     * The value drivers are ranked by when orders are matched: the
+     * weighted score if the rating window keeps one, else the average.
      */
-    public void addRating(int r) {
-        if (ratings.size() == 10) ratings.poll();
-        ratings.offer(r);
+    public double getRatingScore() {
+        return ratingScore;
+    }
+
+    /**
+     * Position of this driver in the available-driver heap (-1 if absent).
+     * Maintained by the heap itself; not persisted.
+     */
+    public int getHeapIndex() {
+        return heapIndex;
+    }
+
+    public void setHeapIndex(int i) {
+        heapIndex = i;
+    }
+
+    public Location getPosition() {
+        return position;
+    }
+
+    /**
+     * Moves the driver. While the driver is free the dispatcher indexes
+     * them by position, so go through DeliverySystem.updateDriverPosition
+     * rather than calling this directly.
+     */
+    public void setPosition(Location position) {
+        this.position = position;
+    }
+
+    /**
+     * Slot of this driver in its cell of the available-driver grid (-1 if
+     * absent). Maintained by the grid itself; not persisted.
+     */
+    public int getGridSlot() {
+        return gridSlot;
+    }
+
+    public void setGridSlot(int i) {
+        gridSlot = i;
+    }
+
+    /**
+     * Adds a rating (keeps only the most recent ones, 10 by default).
+     */
+    public synchronized void addRating(int r) {
+        ratings.add(r);
         updateAverage();
     }
 
     private void updateAverage() {
-        double sum = 0;
-        for (int r : ratings) sum += r;
-        averageRating = ratings.isEmpty() ? 0 : sum / ratings.size();
+        averageRating = ratings.average();
+        ratingScore = ratings.score();
     }
 
     /**
      * Returns ratings as a semicolon-separated string (e.g. "5;4;3")
      * so they can be written to drivers.txt.
      */
-    public String getRatingsData() {
-        StringBuilder sb = new StringBuilder();
-        boolean first = true;
-        for (int r : ratings) {
-            if (!first) sb.append(";");
-            sb.append(r);
-            first = false;
-        }
-        return sb.toString();
+    public synchronized String getRatingsData() {
+        return ratings.toString();
+    }
+
+    /**
+     * Appends the same "5;4;3" form straight onto a line being built.
+     */
+    public synchronized void appendRatingsData(StringBuilder sb) {
+        ratings.appendTo(sb);
     }
 
     /**
      * Loads ratings from a semicolon-separated string (e.g. "5;4;3")
      * when reading from drivers.txt.
      */
-    public void loadRatingsFromString(String data) {
+    public synchronized void loadRatingsFromString(String data) {
         if (data == null || data.isBlank()) return;
-        String[] parts = data.split(";");
-        for (String p : parts) {
-            try {
-                int r = Integer.parseInt(p.trim());
-                addRating(r);
-            } catch (NumberFormatException ignored) {
-            }
-        }
+        ratings.addAll(data);
+        updateAverage();
+    }
+
+    /**
+     * Writes the rating window in its compact binary form.
+     */
+    public synchronized void writeRatings(DataOutput out) throws IOException {
+        ratings.writeTo(out);
     }
 
     @Override
@@ -92,7 +185,8 @@ public class Driver extends User {
             System.out.println("1. View My Assigned Orders");
             System.out.println("2. Mark Order as IN_PROGRESS");
             System.out.println("3. Mark Order as DELIVERED");
-            System.out.println("4. Logout");
+            System.out.println("4. Update My Location");
+            System.out.println("5. Logout");
             System.out.print("Choice: ");
 
             int c = getIntInput(in);   // SAFE INPUT
@@ -104,6 +198,8 @@ public class Driver extends User {
             } else if (c == 3) {
                 updateOrder(system, OrderStatus.DELIVERED);
             } else if (c == 4) {
+                updateLocation(system, in);
+            } else if (c == 5) {
                 break;
             } else {
                 System.out.println("Invalid choice.");
@@ -112,17 +208,22 @@ public class Driver extends User {
     }
 
     /**
-     * Shows all orders currently assigned to this driver.
+     * Shows the orders this driver is carrying, in the order to deliver
+     * them, then the ones already delivered.
      */
     private void showAssignedOrders(DeliverySystem system) {
-        boolean found = false;
-        for (Order o : system.getAllOrders()) {
-            if (o.getDriver() == this) {
-                System.out.println(o);
-                found = true;
-            }
+        List<Order> plan = system.getDeliveryPlan(this);
+        if (!plan.isEmpty()) System.out.println("Deliver in this order:");
+        for (int i = 0; i < plan.size(); i++) {
+            System.out.println((i + 1) + ". " + plan.get(i));
         }
-        if (!found) System.out.println("You currently have no assigned orders.");
+
+        List<Order> delivered = system.getOrdersForDriver(this, EnumSet.of(OrderStatus.DELIVERED));
+        if (!delivered.isEmpty()) System.out.println("Delivered:");
+        for (Order o : delivered) {
+            System.out.println(o);
+        }
+        if (plan.isEmpty() && delivered.isEmpty()) System.out.println("You currently have no assigned orders.");
     }
 
     /**
@@ -132,15 +233,12 @@ public class Driver extends User {
         Scanner in = new Scanner(System.in);
 
         System.out.println("\nYour Assigned Orders:");
-        int count = 0;
-        for (Order o : system.getAllOrders()) {
-            if (o.getDriver() == this) {
-                System.out.println("Order #" + o.getOrderId() + " | Status: " + o.getStatus());
-                count++;
-            }
+        List<Order> open = system.getDeliveryPlan(this);
+        for (Order o : open) {
+            System.out.println("Order #" + o.getOrderId() + " | Status: " + o.getStatus());
         }
 
-        if (count == 0) {
+        if (open.isEmpty()) {
             System.out.println("No orders to update.");
             return;
         }
@@ -148,24 +246,38 @@ public class Driver extends User {
         System.out.print("Enter Order ID: ");
         int id = getIntInput(in);  // SAFE INPUT
 
-        Order target = null;
-        for (Order o : system.getAllOrders()) {
-            if (o.getOrderId() == id && o.getDriver() == this) {
-                target = o;
-                break;
-            }
-        }
+        Order target = system.getOrderForDriver(this, id);
 
         if (target == null) {
             System.out.println("Invalid Order ID.");
             return;
         }
 
-        system.updateOrderStatus(target, status);
+        if (!system.updateOrderStatus(target, status)) {
+            System.out.println("Order #" + id + " is " + target.getStatus() + " and cannot be set to " + status + ".");
+            return;
+        }
         System.out.println("Order #" + id + " updated to " + status + ".");
+    }
+
+    /**
+     * Asks for the driver's current map coordinates.
+     */
+    private void updateLocation(DeliverySystem system, Scanner in) {
+        System.out.println("Current location: " + (position == null ? "unknown" : position.x() + ", " + position.y()));
+        System.out.print("Enter x and y in km (e.g. 3.5 7.25), or blank to keep it: ");
+
+        while (true) {
+            String input = in.nextLine().trim();
+            if (input.isEmpty()) return;
 
-        if (status == OrderStatus.DELIVERED) {
-            this.setAvailable(true);
+            Location l = Location.parse(input);
+            if (l != null) {
+                system.updateDriverPosition(this, l);
+                System.out.println("Location updated.");
+                return;
+            }
+            System.out.print("Please enter two numbers: ");
         }
     }
 
@@ -0,0 +1,48 @@
+package deliveryApp.users;
+
+/**
+ * A point on the city map, in kilometres east (x) and north (y) of a
+ * fixed origin. Over one city a flat map is close enough, and distances
+ * come out in kilometres.
+ */
+public record Location(double x, double y) {
+
+    public double distanceTo(Location other) {
+        double dx = x - other.x;
+        double dy = y - other.y;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Parses the "x;y" form written by {@link #toString()}; a comma or
+     * space also works as the separator, for typed input. Returns null
+     * for blank or malformed text, so a missing location just stays unknown.
+     */
+    public static Location parse(String text) {
+        if (text == null) return null;
+        String t = text.trim();
+
+        int sep = t.indexOf(';');
+        if (sep < 0) sep = t.indexOf(',');
+        if (sep < 0) sep = t.indexOf(' ');
+        if (sep < 0) return null;
+
+        try {
+            // parseDouble ignores surrounding blanks
+            double x = Double.parseDouble(t.substring(0, sep));
+            double y = Double.parseDouble(t.substring(sep + 1));
+            if (!Double.isFinite(x) || !Double.isFinite(y)) return null;
+            return new Location(x, y);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The "x;y" form used in the CSV files and the user journal.
+     */
+    @Override
+    public String toString() {
+        return x + ";" + y;
+    }
+}
@@ -0,0 +1,233 @@
+package deliveryApp.users;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The most recent ratings of a driver, kept in a fixed-size ring of bytes
+ * with a running sum, so adding a rating and reading the average are O(1)
+ * and allocate nothing. Optionally also keeps an exponentially weighted
+ * score, which leans towards recent ratings instead of weighting the
+ * whole window equally.
+ *
+ * Not thread-safe; Driver guards its window with its own monitor.
+ */
+public final class RatingWindow {
+
+    public static final int MIN_RATING = 0;
+    public static final int MAX_RATING = Byte.MAX_VALUE;
+    public static final int MAX_SIZE = 0xFFFF;
+
+    private static final int FLAG_EWMA = 1;
+
+    private final byte[] ring;
+    private int start;      // slot of the oldest rating
+    private int count;
+    private int sum;
+
+    // Weight of the newest rating in the weighted score; 0 turns it off
+    private final double alpha;
+    private double weighted;
+    private boolean weightedSet;
+
+    public RatingWindow(int size) {
+        this(size, 0);
+    }
+
+    /**
+     * @param size  how many recent ratings to keep (1 to 65535)
+     * @param alpha weight of each new rating in the weighted score, in (0, 1];
+     *              0 disables the weighted score
+     */
+    public RatingWindow(int size, double alpha) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Window size must be 1 to " + MAX_SIZE + ": " + size);
+        }
+        if (!(alpha >= 0 && alpha <= 1)) {
+            throw new IllegalArgumentException("Alpha must be 0 to 1: " + alpha);
+        }
+        this.ring = new byte[size];
+        this.alpha = alpha;
+    }
+
+    /**
+     * Adds a rating, dropping the oldest one if the window is full.
+     */
+    public void add(int rating) {
+        if (rating < MIN_RATING || rating > MAX_RATING) {
+            throw new IllegalArgumentException("Rating out of range: " + rating);
+        }
+
+        if (count == ring.length) {
+            sum -= ring[start];
+            ring[start] = (byte) rating;
+            start = (start + 1 == ring.length) ? 0 : start + 1;
+        } else {
+            int slot = start + count;
+            ring[slot >= ring.length ? slot - ring.length : slot] = (byte) rating;
+            count++;
+        }
+        sum += rating;
+
+        if (alpha > 0) {
+            weighted = weightedSet ? alpha * rating + (1 - alpha) * weighted : rating;
+            weightedSet = true;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+
+    /**
+     * The i-th rating in the window, oldest first.
+     */
+    public int get(int i) {
+        if (i < 0 || i >= count) throw new IndexOutOfBoundsException(i);
+        int slot = start + i;
+        return ring[slot >= ring.length ? slot - ring.length : slot];
+    }
+
+    public double average() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * The score drivers are ranked by: the weighted score if enabled,
+     * otherwise the plain average of the window.
+     */
+    public double score() {
+        return alpha > 0 ? weighted : average();
+    }
+
+    public void clear() {
+        start = 0;
+        count = 0;
+        sum = 0;
+        weighted = 0;
+        weightedSet = false;
+    }
+
+    // ============================================================
+    // TEXT FORM ("5;4;3", oldest first)
+    // ============================================================
+
+    public void appendTo(StringBuilder sb) {
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(';');
+            sb.append(get(i));
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(count * 2);
+        appendTo(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Adds every rating in a semicolon-separated string, skipping
+     * entries that are not valid ratings.
+     */
+    public void addAll(CharSequence data) {
+        int value = 0;
+        boolean digits = false;
+        boolean valid = true;
+
+        for (int i = 0; i <= data.length(); i++) {
+            char c = (i < data.length()) ? data.charAt(i) : ';';
+
+            if (c == ';') {
+                if (digits && valid && value <= MAX_RATING) add(value);
+                value = 0;
+                digits = false;
+                valid = true;
+            } else if (c >= '0' && c <= '9') {
+                digits = true;
+                // Stop growing once out of range so long garbage cannot overflow
+                if (value <= MAX_RATING) value = value * 10 + (c - '0');
+            } else if (c != ' ') {
+                valid = false;
+            }
+        }
+    }
+
+    // ============================================================
+    // BINARY FORM
+    // ============================================================
+
+    /**
+     * Writes the window as: flags (1 byte), capacity (2), count (2),
+     * the ratings oldest first (1 each), then alpha and the weighted
+     * score (8 each) if the weighted score is enabled.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(alpha > 0 ? FLAG_EWMA : 0);
+        out.writeShort(ring.length);
+        out.writeShort(count);
+
+        int first = Math.min(count, ring.length - start);
+        out.write(ring, start, first);
+        out.write(ring, 0, count - first);
+
+        if (alpha > 0) {
+            out.writeDouble(alpha);
+            out.writeDouble(weighted);
+        }
+    }
+
+    public static RatingWindow readFrom(DataInput in) throws IOException {
+        int flags = in.readUnsignedByte();
+        int capacity = in.readUnsignedShort();
+        byte[] ratings = new byte[in.readUnsignedShort()];
+        in.readFully(ratings);
+
+        boolean ewma = (flags & FLAG_EWMA) != 0;
+        double alpha = ewma ? in.readDouble() : 0;
+        double weighted = ewma ? in.readDouble() : 0;
+        try {
+            return restore(capacity, ratings, alpha, weighted);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt rating window", e);
+        }
+    }
+
+    /**
+     * Reads the binary form from a buffer, e.g. a memory-mapped snapshot.
+     *
+     * @throws IllegalArgumentException if the data is not a valid window
+     */
+    public static RatingWindow readFrom(ByteBuffer in) {
+        int flags = in.get() & 0xFF;
+        int capacity = in.getShort() & 0xFFFF;
+        byte[] ratings = new byte[in.getShort() & 0xFFFF];
+        in.get(ratings);
+
+        boolean ewma = (flags & FLAG_EWMA) != 0;
+        double alpha = ewma ? in.getDouble() : 0;
+        double weighted = ewma ? in.getDouble() : 0;
+        return restore(capacity, ratings, alpha, weighted);
+    }
+
+    private static RatingWindow restore(int capacity, byte[] ratings, double alpha, double weighted) {
+        RatingWindow w = new RatingWindow(capacity, alpha);
+        if (ratings.length > capacity) throw new IllegalArgumentException("More ratings than slots");
+
+        for (byte r : ratings) {
+            if (r < MIN_RATING) throw new IllegalArgumentException("Rating out of range: " + r);
+            w.sum += r;
+        }
+        System.arraycopy(ratings, 0, w.ring, 0, ratings.length);
+        w.count = ratings.length;
+        w.weighted = weighted;
+        w.weightedSet = alpha > 0 && ratings.length > 0;
+        return w;
+    }
+}
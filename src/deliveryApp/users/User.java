@@ -37,7 +37,7 @@ public abstract class User {
         return name;
     }
 
-    // 🔹 These three getters are required by DeliverySystem.saveUsersToFiles()
+    // 🔹 These three getters are required by DeliverySystem's user journal and snapshots
 
     public String getPassword() {
         return password;
@@ -1,19 +1,39 @@
 package deliveryApp.utils;
 
 import deliveryApp.core.DeliverySystem;
+import deliveryApp.sim.LoadSimulator;
 import deliveryApp.users.*;
+import deliveryApp.web.DeliveryHttpServer;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
  * Entry point for the delivery system application.
- * Now supports login, registration, and quitting.
+ * Now supports login, registration, and quitting,
+ * or serving the HTTP API when started with --http,
+ * or running a load simulation when started with --simulate.
  */
 public class Main {
 
     public static void main(String[] args) {
 
+        // "--simulate key=value ..." runs against a throwaway system, not the real data
+        if (args.length > 0 && args[0].equals("--simulate")) {
+            LoadSimulator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         DeliverySystem system = new DeliverySystem();
+
+        // "--http [port]" serves the JSON API instead of the console menus
+        if (args.length > 0 && args[0].equals("--http")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            startHttpServer(system, port);
+            return;
+        }
+
         Scanner in = new Scanner(System.in);
 
         System.out.println("=== DELIVERY APP ===");
@@ -33,6 +53,7 @@ public class Main {
                 handleRegistration(system, in);
             } else if (choice == 3) {
                 System.out.println("Goodbye!");
+                system.close();
                 break;
             } else {
                 System.out.println("Invalid choice.");
@@ -40,6 +61,24 @@ public class Main {
         }
     }
 
+    /**
+     * Starts the HTTP front end; it runs until the process is stopped.
+     */
+    private static void startHttpServer(DeliverySystem system, int port) {
+        try {
+            DeliveryHttpServer server = new DeliveryHttpServer(system, port);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop();
+                system.close();
+            }));
+            server.start();
+            System.out.println("Delivery API listening on port " + server.getPort());
+        } catch (IOException e) {
+            System.out.println("Could not start HTTP server: " + e.getMessage());
+            system.close();
+        }
+    }
+
     /**
      * Handles user login and launches the appropriate dashboard.
      */
@@ -129,7 +168,10 @@ public class Main {
             newUser = new Driver(username, password, name, phone, email);
         }
 
-        system.registerUser(newUser);
+        if (!system.registerUser(newUser)) {
+            System.out.println("That username was just taken. Please register again.");
+            return;
+        }
         System.out.println("Registration successful! You can now log in.");
     }
 
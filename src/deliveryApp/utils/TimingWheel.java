@@ -0,0 +1,187 @@
+package deliveryApp.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: many timers, few of which ever fire, kept
+ * with O(1) schedule and cancel and no task object per timer in an
+ * executor.
+ *
+ * Time is cut into ticks. Four wheels of 64 slots each cover 64, 64^2,
+ * 64^3 and 64^4 ticks ahead; a timer goes into the finest wheel that
+ * reaches its deadline, in the slot for its deadline at that wheel's
+ * resolution. Each slot is a doubly linked list, so adding and removing
+ * a timer only relinks it. Whenever a finer wheel comes round to its
+ * first slot, the matching slot of the next wheel is emptied and its
+ * timers filed again, now closer to due. Deadlines beyond the last wheel
+ * are parked in it and re-filed when it comes round.
+ *
+ * The owner drives the clock by calling {@link #advance} regularly, e.g.
+ * from one scheduled task. All methods are synchronized; expired items
+ * are returned rather than called back, so they can be handled without
+ * the lock.
+ */
+public final class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    // Furthest ahead a timer can be filed directly
+    private static final long MAX_SPAN = 1L << (BITS * LEVELS);
+
+    /**
+     * Handle for one scheduled item; pass it to {@link #cancel}.
+     */
+    public static final class Timer<T> {
+        private final T item;
+        private final long deadlineTick;
+        private Timer<T> prev;
+        private Timer<T> next;
+        private boolean filed;
+
+        private Timer(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        // Sentinel heading a slot's list
+        private Timer() {
+            this(null, 0);
+            prev = next = this;
+        }
+
+        public T getItem() {
+            return item;
+        }
+    }
+
+    private final long tickMillis;
+
+    // Sentinels heading each slot's list, per level
+    private final Timer<T>[][] wheels;
+
+    // Next tick to be processed; everything before it has fired
+    private long currentTick;
+    private int size;
+
+    // No generic array creation in Java; the raw array only ever holds Timer<T>
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("Tick must be positive: " + tickMillis);
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+
+        wheels = new Timer[LEVELS][SLOTS];
+        for (Timer<T>[] wheel : wheels) {
+            for (int i = 0; i < SLOTS; i++) {
+                wheel[i] = new Timer<>();
+            }
+        }
+    }
+
+    /**
+     * Schedules an item to come out of {@link #advance} once the clock
+     * passes the deadline (at tick resolution, never early). A deadline
+     * in the past fires on the next advance.
+     */
+    public synchronized Timer<T> schedule(T item, long deadlineMillis) {
+        // Round up so a timer never fires before its deadline
+        long tick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        Timer<T> t = new Timer<>(item, tick);
+        file(t);
+        size++;
+        return t;
+    }
+
+    /**
+     * Cancels a timer. Returns false if it already fired or was cancelled.
+     */
+    public synchronized boolean cancel(Timer<T> t) {
+        if (t == null || !t.filed) return false;
+        unlink(t);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the clock to now and returns the items whose deadline has
+     * passed, earliest tick first.
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long target = Math.floorDiv(nowMillis, tickMillis);
+
+        while (currentTick <= target) {
+            cascade(currentTick);
+
+            Timer<T> head = wheels[0][(int) (currentTick & MASK)];
+            while (head.next != head) {
+                Timer<T> t = head.next;
+                unlink(t);
+                size--;
+                expired.add(t.item);
+            }
+            currentTick++;
+        }
+        return expired;
+    }
+
+    /**
+     * Timers scheduled and neither fired nor cancelled.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * When the finer wheels wrap at this tick, re-files the matching slot
+     * of each coarser wheel.
+     */
+    private void cascade(long tick) {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((tick & ((1L << (BITS * level)) - 1)) != 0) return;
+
+            Timer<T> head = wheels[level][(int) ((tick >>> (BITS * level)) & MASK)];
+            Timer<T> t = head.next;
+            head.next = head.prev = head;
+            while (t != head) {
+                Timer<T> next = t.next;
+                t.filed = false;
+                file(t);
+                t = next;
+            }
+        }
+    }
+
+    private void file(Timer<T> t) {
+        long delta = t.deadlineTick - currentTick;
+        Timer<T> head;
+        if (delta < SLOTS) {
+            // Due within this turn of the finest wheel, or overdue
+            long tick = Math.max(t.deadlineTick, currentTick);
+            head = wheels[0][(int) (tick & MASK)];
+        } else {
+            int level = 1;
+            while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) level++;
+            // Too far out for any wheel: park it a full turn ahead and re-file later
+            long tick = delta < MAX_SPAN ? t.deadlineTick : currentTick + MAX_SPAN - 1;
+            head = wheels[level][(int) ((tick >>> (BITS * level)) & MASK)];
+        }
+
+        t.prev = head.prev;
+        t.next = head;
+        head.prev.next = t;
+        head.prev = t;
+        t.filed = true;
+    }
+
+    private void unlink(Timer<T> t) {
+        t.prev.next = t.next;
+        t.next.prev = t.prev;
+        t.prev = t.next = null;
+        t.filed = false;
+    }
+}
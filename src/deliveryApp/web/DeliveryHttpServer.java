@@ -0,0 +1,480 @@
+package deliveryApp.web;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import deliveryApp.core.DeliverySystem;
+import deliveryApp.menu.MenuCatalog;
+import deliveryApp.menu.MenuItem;
+import deliveryApp.orders.Order;
+import deliveryApp.orders.OrderStatus;
+import deliveryApp.users.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serial;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded HTTP/JSON front end for a {@link DeliverySystem}, so many
+ * customers and drivers can be served at once instead of one console
+ * session. Each request runs on its own virtual thread when the JVM
+ * supports them (Java 21+), otherwise on a cached thread pool.
+ *
+ * <pre>
+ *   POST /login                  {"username":..,"password":..} -> {"token":..,"role":..}
+ *   POST /logout
+ *   GET  /menu                   [{"id":..,"name":..,"price":..}, ...]
+ *   GET  /orders[?status=A,B]    the caller's orders (customer or driver)
+ *   POST /orders                 {"items":[1,2]}  menu item IDs, customers only
+ *   GET  /orders/{id}
+ *   POST /orders/{id}/status     {"status":"IN_PROGRESS"}  drivers only; 409 if the
+ *                                order cannot move there from its current status
+ *   POST /drivers/{name}/rating  {"rating":5}  customers only
+ *   POST /location               {"x":3.5,"y":7.25}  km; a customer's delivery
+ *                                address or a driver's current position
+ * </pre>
+ *
+ * Every call except /login and /menu needs "Authorization: Bearer token".
+ * A token expires after half an hour without use. Request bodies are
+ * limited to 64 KB (413 beyond that).
+ */
+public class DeliveryHttpServer {
+
+    static {
+        // The JDK server leaves Nagle on by default, which adds ~40 ms to
+        // every keep-alive response; must be set before the server class loads
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final DeliverySystem system;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // JSON of the last menu snapshot served, rebuilt only when the menu changes
+    private record MenuResponse(MenuCatalog catalog, String json) {
+    }
+
+    private volatile MenuResponse menuResponse;
+
+    // Largest request body read; anything bigger is refused with 413
+    static final int MAX_BODY_BYTES = 64 * 1024;
+
+    // How long a login token lasts without being used
+    static final long SESSION_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    // How often logins sweep out expired tokens
+    private static final long SWEEP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * A logged-in user and when their token was last used.
+     */
+    private static final class Session {
+        final User user;
+        volatile long lastUsed;
+
+        Session(User user, long now) {
+            this.user = user;
+            this.lastUsed = now;
+        }
+
+        boolean expired(long now) {
+            return now - lastUsed > SESSION_IDLE_MILLIS;
+        }
+    }
+
+    // Login token -> session
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.currentTimeMillis());
+
+    public DeliveryHttpServer(DeliverySystem system, int port) throws IOException {
+        this.system = system;
+        this.executor = newRequestExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), 16_384);
+        server.setExecutor(executor);
+
+        server.createContext("/login", ex -> handle(ex, this::login));
+        server.createContext("/logout", ex -> handle(ex, this::logout));
+        server.createContext("/menu", ex -> handle(ex, this::menu));
+        server.createContext("/orders", ex -> handle(ex, this::orders));
+        server.createContext("/drivers", ex -> handle(ex, this::drivers));
+        server.createContext("/location", ex -> handle(ex, this::location));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting connections, waits briefly for in-flight requests
+     * and shuts the request executor down.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * One virtual thread per request where available, otherwise a cached pool.
+     * Looked up reflectively so the app still builds and runs on Java 17.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    // ============================================================
+    // ROUTES
+    // ============================================================
+
+    private String login(HttpExchange ex) throws IOException {
+        requireMethod(ex, "POST");
+        Map<String, Object> body = body(ex);
+
+        User u = system.login(stringField(body, "username"), stringField(body, "password"));
+        if (u == null) throw new HttpError(401, "Invalid login");
+
+        long now = System.currentTimeMillis();
+        String token = UUID.randomUUID().toString();
+        sessions.put(token, new Session(u, now));
+
+        // Tokens nobody logs out of would otherwise pile up forever
+        long swept = lastSweep.get();
+        if (now - swept > SWEEP_MILLIS && lastSweep.compareAndSet(swept, now)) {
+            sessions.values().removeIf(s -> s.expired(now));
+        }
+        return "{\"token\":" + Json.quote(token) + ",\"role\":" + Json.quote(role(u)) + "}";
+    }
+
+    private String logout(HttpExchange ex) {
+        requireMethod(ex, "POST");
+        String token = token(ex);
+        if (token != null) sessions.remove(token);
+        return "{}";
+    }
+
+    private String menu(HttpExchange ex) {
+        requireMethod(ex, "GET");
+        MenuCatalog menu = system.getCatalog();
+        MenuResponse cached = menuResponse;
+        if (cached != null && cached.catalog() == menu) return cached.json();
+
+        StringBuilder sb = new StringBuilder("[");
+        for (MenuItem item : menu.getItems()) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append("{\"id\":").append(item.getId())
+                    .append(",\"name\":").append(Json.quote(item.getName()))
+                    .append(",\"price\":").append(item.getPrice())
+                    .append('}');
+        }
+        String json = sb.append(']').toString();
+
+        // Racing requests may both build it; either result is correct
+        menuResponse = new MenuResponse(menu, json);
+        return json;
+    }
+
+    private String orders(HttpExchange ex) throws IOException {
+        User u = authenticate(ex);
+        String[] path = pathParts(ex, "/orders");
+
+        if (path.length == 0) {
+            if (ex.getRequestMethod().equals("GET")) return listOrders(ex, u);
+            requireMethod(ex, "POST");
+            return placeOrder(ex, u);
+        }
+
+        int id = parseId(path[0]);
+        if (path.length == 1) {
+            requireMethod(ex, "GET");
+            return orderJson(ownOrder(u, id));
+        }
+        if (path.length == 2 && path[1].equals("status")) {
+            requireMethod(ex, "POST");
+            return updateStatus(ex, u, id);
+        }
+        throw new HttpError(404, "Not found");
+    }
+
+    private String listOrders(HttpExchange ex, User u) {
+        Set<OrderStatus> filter = statusFilter(ex.getRequestURI());
+
+        List<Order> list;
+        if (u instanceof Driver d) list = system.getOrdersForDriver(d, filter);
+        else if (u instanceof Customer c) list = system.getOrdersForCustomer(c, filter);
+        else throw new HttpError(403, "Only customers and drivers have orders");
+
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(orderJson(list.get(i)));
+        }
+        return sb.append(']').toString();
+    }
+
+    private String placeOrder(HttpExchange ex, User u) throws IOException {
+        if (!(u instanceof Customer c)) throw new HttpError(403, "Only customers can place orders");
+
+        Object raw = body(ex).get("items");
+        if (!(raw instanceof List<?> numbers) || numbers.isEmpty()) {
+            throw new HttpError(400, "items must be a non-empty list of menu item IDs");
+        }
+
+        // One snapshot of the menu for the whole request
+        MenuCatalog menu = system.getCatalog();
+        List<MenuItem> items = new ArrayList<>(numbers.size());
+        for (Object n : numbers) {
+            MenuItem item = (n instanceof Double num && num % 1 == 0) ? menu.findById(num.intValue()) : null;
+            if (item == null) throw new HttpError(400, "Unknown menu item: " + n);
+            items.add(item);
+        }
+
+        return orderJson(system.placeOrder(c, items));
+    }
+
+    private String updateStatus(HttpExchange ex, User u, int id) throws IOException {
+        if (!(u instanceof Driver d)) throw new HttpError(403, "Only drivers can update orders");
+
+        OrderStatus status;
+        try {
+            status = OrderStatus.valueOf(stringField(body(ex), "status").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, "Unknown status");
+        }
+        if (status != OrderStatus.IN_PROGRESS && status != OrderStatus.DELIVERED) {
+            throw new HttpError(400, "Drivers can only set IN_PROGRESS or DELIVERED");
+        }
+
+        Order o = system.getOrderForDriver(d, id);
+        if (o == null) throw new HttpError(404, "No such order");
+
+        if (!system.updateOrderStatus(o, status)) {
+            throw new HttpError(409, "Order is " + o.getStatus());
+        }
+        return orderJson(o);
+    }
+
+    private String drivers(HttpExchange ex) throws IOException {
+        User u = authenticate(ex);
+        String[] path = pathParts(ex, "/drivers");
+        if (path.length != 2 || !path[1].equals("rating")) throw new HttpError(404, "Not found");
+        requireMethod(ex, "POST");
+
+        if (!(u instanceof Customer)) throw new HttpError(403, "Only customers can rate drivers");
+        if (!(system.findUser(path[0]) instanceof Driver d)) throw new HttpError(404, "No such driver");
+
+        Object raw = body(ex).get("rating");
+        if (!(raw instanceof Double r) || r < 1 || r > 5 || r % 1 != 0) {
+            throw new HttpError(400, "rating must be a whole number from 1 to 5");
+        }
+
+        system.rateDriver(d, r.intValue());
+        return "{\"driver\":" + Json.quote(d.getUserName())
+                + ",\"averageRating\":" + d.getAverageRating() + "}";
+    }
+
+    private String location(HttpExchange ex) throws IOException {
+        User u = authenticate(ex);
+        requireMethod(ex, "POST");
+
+        Map<String, Object> body = body(ex);
+        if (!(body.get("x") instanceof Double x) || !(body.get("y") instanceof Double y)
+                || !Double.isFinite(x) || !Double.isFinite(y)) {
+            throw new HttpError(400, "x and y must be numbers");
+        }
+        Location l = new Location(x, y);
+
+        if (u instanceof Customer c) {
+            system.updateCustomerAddress(c, l);
+        } else if (u instanceof Driver d) {
+            system.updateDriverPosition(d, l);
+        } else {
+            throw new HttpError(403, "Only customers and drivers have a location");
+        }
+        return "{\"x\":" + x + ",\"y\":" + y + "}";
+    }
+
+    // ============================================================
+    // HELPERS
+    // ============================================================
+
+    private interface Route {
+        String handle(HttpExchange ex) throws IOException;
+    }
+
+    /**
+     * Thrown by routes to answer with an HTTP error status.
+     */
+    private static class HttpError extends RuntimeException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange ex, Route route) {
+        // Answered in the finally, so even an Error such as a stack
+        // overflow leaves the client with a 500 rather than hanging
+        int status = 500;
+        String json = error("Internal error");
+        try {
+            json = route.handle(ex);
+            status = 200;
+        } catch (HttpError e) {
+            status = e.status;
+            json = error(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            json = error(e.getMessage());
+        } catch (Exception e) {
+            // answered as an internal error
+        } finally {
+            respond(ex, status, json);
+        }
+    }
+
+    private static void respond(HttpExchange ex, int status, String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = ex.getResponseBody()) {
+            ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            ex.sendResponseHeaders(status, bytes.length);
+            out.write(bytes);
+        } catch (IOException ignored) {
+            // client went away
+        } finally {
+            ex.close();
+        }
+    }
+
+    private User authenticate(HttpExchange ex) {
+        String token = token(ex);
+        Session s = token == null ? null : sessions.get(token);
+        long now = System.currentTimeMillis();
+        if (s != null && s.expired(now)) {
+            sessions.remove(token);
+            s = null;
+        }
+        if (s == null) throw new HttpError(401, "Login required");
+        s.lastUsed = now;
+        return s.user;
+    }
+
+    private static String token(HttpExchange ex) {
+        String auth = ex.getRequestHeaders().getFirst("Authorization");
+        if (auth == null || !auth.startsWith("Bearer ")) return null;
+        return auth.substring(7).trim();
+    }
+
+    private Order ownOrder(User u, int id) {
+        Order o = system.getOrder(id);
+        if (o == null || (o.getCustomer() != u && o.getDriver() != u)) {
+            throw new HttpError(404, "No such order");
+        }
+        return o;
+    }
+
+    private static void requireMethod(HttpExchange ex, String method) {
+        if (!ex.getRequestMethod().equals(method)) throw new HttpError(405, "Use " + method);
+    }
+
+    private static Map<String, Object> body(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) throw new HttpError(413, "Request body too large");
+            return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String stringField(Map<String, Object> body, String name) {
+        if (!(body.get(name) instanceof String s)) throw new HttpError(400, name + " is required");
+        return s;
+    }
+
+    /**
+     * Path segments after the context prefix, e.g. "/orders/7/status" -> ["7", "status"].
+     */
+    private static String[] pathParts(HttpExchange ex, String prefix) {
+        String rest = ex.getRequestURI().getPath().substring(prefix.length());
+        if (rest.startsWith("/")) rest = rest.substring(1);
+        if (rest.endsWith("/")) rest = rest.substring(0, rest.length() - 1);
+        return rest.isEmpty() ? new String[0] : rest.split("/");
+    }
+
+    private static int parseId(String s) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new HttpError(404, "Not found");
+        }
+    }
+
+    private static Set<OrderStatus> statusFilter(URI uri) {
+        String query = uri.getQuery();
+        if (query == null) return null;
+
+        for (String param : query.split("&")) {
+            if (!param.startsWith("status=")) continue;
+            Set<OrderStatus> set = EnumSet.noneOf(OrderStatus.class);
+            for (String s : param.substring(7).split(",")) {
+                set.add(OrderStatus.valueOf(s.trim().toUpperCase()));
+            }
+            return set;
+        }
+        return null;
+    }
+
+    private static String orderJson(Order o) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"orderId\":").append(o.getOrderId())
+                .append(",\"customer\":").append(Json.quote(o.getCustomer().getUserName()))
+                .append(",\"driver\":").append(o.getDriver() == null ? "null" : Json.quote(o.getDriver().getUserName()))
+                .append(",\"status\":").append(Json.quote(o.getStatus().name()))
+                .append(",\"total\":").append(o.totalPrice())
+                .append(",\"items\":[");
+        List<MenuItem> items = o.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(Json.quote(items.get(i).getName()));
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static String role(User u) {
+        if (u instanceof Admin) return "ADMIN";
+        if (u instanceof Driver) return "DRIVER";
+        return "CUSTOMER";
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + Json.quote(message) + "}";
+    }
+}
@@ -0,0 +1,207 @@
+package deliveryApp.web;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON for the HTTP front end: a parser for request bodies
+ * (objects, arrays, strings, numbers, booleans, null) and string quoting
+ * for hand-built responses. Numbers are parsed as doubles. Objects and
+ * arrays may nest {@value #MAX_DEPTH} deep, so a hostile body cannot run
+ * the parser out of stack.
+ */
+final class Json {
+
+    static final int MAX_DEPTH = 32;
+
+    private final String src;
+    private int pos;
+    private int depth;
+
+    private Json(String src) {
+        this.src = src;
+    }
+
+    /**
+     * Parses a JSON document. Throws IllegalArgumentException on bad input.
+     */
+    static Object parse(String text) {
+        Json p = new Json(text);
+        p.skipWhitespace();
+        Object value = p.value();
+        p.skipWhitespace();
+        if (p.pos != text.length()) throw p.error("trailing characters");
+        return value;
+    }
+
+    /**
+     * Parses a document that must be an object; an empty body is an empty object.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> parseObject(String text) {
+        if (text.isBlank()) return Map.of();
+        Object value = parse(text);
+        if (!(value instanceof Map)) throw new IllegalArgumentException("Expected a JSON object");
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * Returns the value as a JSON string literal, quotes included.
+     */
+    static String quote(String s) {
+        if (s == null) return "null";
+
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+                    else sb.append(ch);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private Object value() {
+        if (pos >= src.length()) throw error("unexpected end");
+
+        char ch = src.charAt(pos);
+        switch (ch) {
+            case '{':
+            case '[':
+                if (++depth > MAX_DEPTH) throw error("nested too deeply");
+                Object nested = ch == '{' ? object() : array();
+                depth--;
+                return nested;
+            case '"':
+                return string();
+            case 't':
+                return literal("true", Boolean.TRUE);
+            case 'f':
+                return literal("false", Boolean.FALSE);
+            case 'n':
+                return literal("null", null);
+            default:
+                return number();
+        }
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        pos++;
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return map;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') throw error("expected a key");
+            String key = string();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            map.put(key, value());
+            skipWhitespace();
+            char ch = next();
+            if (ch == '}') return map;
+            if (ch != ',') throw error("expected , or }");
+        }
+    }
+
+    private List<Object> array() {
+        List<Object> list = new ArrayList<>();
+        pos++;
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return list;
+        }
+        while (true) {
+            skipWhitespace();
+            list.add(value());
+            skipWhitespace();
+            char ch = next();
+            if (ch == ']') return list;
+            if (ch != ',') throw error("expected , or ]");
+        }
+    }
+
+    private String string() {
+        pos++;
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            char ch = next();
+            if (ch == '"') return sb.toString();
+            if (ch != '\\') {
+                sb.append(ch);
+                continue;
+            }
+            char esc = next();
+            switch (esc) {
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'u' -> {
+                    if (pos + 4 > src.length()) throw error("bad unicode escape");
+                    sb.append((char) Integer.parseInt(src.substring(pos, pos + 4), 16));
+                    pos += 4;
+                }
+                default -> sb.append(esc);
+            }
+        }
+    }
+
+    private Double number() {
+        int start = pos;
+        while (pos < src.length() && "+-0123456789.eE".indexOf(src.charAt(pos)) >= 0) {
+            pos++;
+        }
+        if (start == pos) throw error("unexpected character");
+        try {
+            return Double.parseDouble(src.substring(start, pos));
+        } catch (NumberFormatException e) {
+            throw error("bad number");
+        }
+    }
+
+    private Object literal(String word, Object value) {
+        if (!src.startsWith(word, pos)) throw error("unexpected token");
+        pos += word.length();
+        return value;
+    }
+
+    private void skipWhitespace() {
+        while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+    }
+
+    private char peek() {
+        if (pos >= src.length()) throw error("unexpected end");
+        return src.charAt(pos);
+    }
+
+    private char next() {
+        char ch = peek();
+        pos++;
+        return ch;
+    }
+
+    private void expect(char ch) {
+        if (next() != ch) throw error("expected " + ch);
+    }
+
+    private IllegalArgumentException error(String what) {
+        return new IllegalArgumentException("Bad JSON at " + pos + ": " + what);
+    }
+}